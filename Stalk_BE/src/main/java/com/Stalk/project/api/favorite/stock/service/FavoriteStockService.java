@@ -3,17 +3,19 @@ package com.Stalk.project.api.favorite.stock.service;
 import com.Stalk.project.api.favorite.stock.dao.FavoriteStockMapper;
 import com.Stalk.project.api.favorite.stock.dto.in.ExternalStockDataDto;
 import com.Stalk.project.api.favorite.stock.dto.out.FavoriteStockResponseDto;
+import com.Stalk.project.api.stock.dto.StockQuote;
+import com.Stalk.project.api.stock.service.StockQuoteService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -21,11 +23,7 @@ import java.util.List;
 public class FavoriteStockService {
 
     private final FavoriteStockMapper favoriteStockMapper;
-    private final WebClient webClient;
-
-    // application.properties에서 외부 API의 기본 URL을 주입
-    @Value("${external.api.stock.url}")
-    private String stockApiUrl;
+    private final StockQuoteService stockQuoteService;
 
     /**
      * 사용자의 관심 목록 전체를 조회하고, 각 종목의 최신 정보를 포함하여 반환합니다.
@@ -40,65 +38,28 @@ public class FavoriteStockService {
             return Collections.emptyList();
         }
 
-        // 각 티커에 대해 외부 API를 비동기적으로 호출하여 최신 주식 정보를 가져옴
-        // Flux를 사용하여 여러 API 요청을 병렬로 처리함으로써 성능을 향상
-        return Flux.fromIterable(tickers)
-                .flatMap(this::fetchStockData) // 각 티커로 fetchStockData 메소드 호출
-                .collectList() // 모든 결과를 List로 수집
-                .block(); // 비동기 작업이 완료될 때까지 대기 (Controller는 동기 방식이므로)
-    }
-
-    /**
-     * 특정 티커의 최신 주식 정보를 외부 API를 통해 가져옵니다.
-     * @param ticker 종목 티커
-     * @return 최신 정보가 포함된 DTO
-     */
-    // FavoriteStockService.java
-
-    private Mono<FavoriteStockResponseDto> fetchStockData(String ticker) {
-        String guess = (ticker.startsWith("9") || ticker.startsWith("3")) ? "KOSDAQ" : "KOSPI";
-        String other = guess.equals("KOSPI") ? "KOSDAQ" : "KOSPI";
-
-        return callOnceFlexible(ticker, guess)
-            .onErrorResume(e -> callOnceFlexible(ticker, other))
-            .onErrorReturn(createFallbackDto(ticker));
-    }
-
-    private Mono<FavoriteStockResponseDto> callOnceFlexible(String ticker, String market) {
-        String url = String.format("%s/api/krx/stock/%s?market=%s", stockApiUrl, ticker, market);
-        return webClient.get()
-            .uri(url)
-            .retrieve()
-            .bodyToMono(com.fasterxml.jackson.databind.JsonNode.class)
-            .map(node -> {
-                // 래퍼 처리: { success, data: {...} } 형태면 data로 이동
-                com.fasterxml.jackson.databind.JsonNode data = node.has("data") ? node.get("data") : node;
-
-                String name = pick(data, "name", "ISU_ABBRV");
-                String price = pick(data, "price", "closePrice", "TDD_CLSPRC");
-                String change = pick(data, "change", "priceChange", "CMPPREVDD_PRC");
-                String changeRate = pick(data, "changeRate", "FLUC_RT");
-
-                return FavoriteStockResponseDto.builder()
-                    .ticker(ticker)
-                    .name(emptyTo(name, "정보 조회 실패"))
-                    .price(emptyTo(price, "0"))
-                    .change(emptyTo(change, "0"))
-                    .changeRate(emptyTo(changeRate, "0"))
-                    .build();
-            });
-    }
+        // 전체 티커를 캐시된 시장 스냅샷에서 한 번에 조회 (자기 자신에 대한 HTTP 호출 없음)
+        Map<String, StockQuote> quotes = new HashMap<>();
+        for (StockQuote quote : stockQuoteService.getQuotes(tickers)) {
+            quotes.put(quote.ticker(), quote);
+        }
 
-    private String pick(com.fasterxml.jackson.databind.JsonNode node, String... keys) {
-        for (String k : keys) {
-            com.fasterxml.jackson.databind.JsonNode v = node.get(k);
-            if (v != null && !v.isNull() && !v.asText().isBlank()) return v.asText();
+        List<FavoriteStockResponseDto> favorites = new ArrayList<>(tickers.size());
+        for (String ticker : tickers) {
+            StockQuote quote = quotes.get(ticker);
+            favorites.add(quote != null ? toResponseDto(quote) : createFallbackDto(ticker));
         }
-        return null;
+        return favorites;
     }
 
-    private String emptyTo(String v, String fallback) {
-        return (v == null || v.isBlank() || "-".equals(v)) ? fallback : v;
+    private FavoriteStockResponseDto toResponseDto(StockQuote quote) {
+        return FavoriteStockResponseDto.builder()
+                .ticker(quote.ticker())
+                .name(quote.name())
+                .price(String.format(Locale.US, "%,d", quote.price()))
+                .change(String.format(Locale.US, "%,d", quote.change()))
+                .changeRate(String.format(Locale.US, "%.2f", quote.changeRate()))
+                .build();
     }
 
     // API 호출 실패 시 반환할 기본 DTO 객체 생성
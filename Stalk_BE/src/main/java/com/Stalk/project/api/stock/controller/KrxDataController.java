@@ -2,23 +2,35 @@ package com.Stalk.project.api.stock.controller;
 
 import com.Stalk.project.api.stock.dto.KrxRankingStock;
 import com.Stalk.project.api.stock.dto.KrxStockInfo;
+import com.Stalk.project.api.stock.dto.StockQuote;
 import com.Stalk.project.api.stock.service.KrxApiService;
+import com.Stalk.project.api.stock.service.ChartSeriesService;
+import com.Stalk.project.api.stock.service.IndicatorEngine;
 import com.Stalk.project.api.stock.service.KisApiService;
+import com.Stalk.project.api.stock.service.MarketSnapshot;
 import com.Stalk.project.api.stock.service.StockListingService;
+import com.Stalk.project.api.stock.service.StockQuoteService;
+import com.Stalk.project.api.stock.service.TechnicalIndicatorService;
+import com.Stalk.project.api.stock.service.TickerMarketResolver;
 import com.Stalk.project.api.stock.dto.KisStockInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/krx")
@@ -26,6 +38,10 @@ public class KrxDataController {
     
     private static final Logger logger = LoggerFactory.getLogger(KrxDataController.class);
     
+    // Upper bound on tickers per batch quote request
+    private static final int MAX_BATCH_QUOTES = 200;
+    private static final int MAX_CHART_POINTS = 5000;
+    
     
     @Autowired
     private StockListingService stockListingService;
@@ -36,6 +52,18 @@ public class KrxDataController {
     @Autowired
     private KisApiService kisApiService;
     
+    @Autowired
+    private StockQuoteService stockQuoteService;
+    
+    @Autowired
+    private TickerMarketResolver tickerMarketResolver;
+    
+    @Autowired
+    private TechnicalIndicatorService technicalIndicatorService;
+    
+    @Autowired
+    private ChartSeriesService chartSeriesService;
+    
     @GetMapping("/fetch-all-stocks")
     public ResponseEntity<Map<String, Object>> fetchAllStocks() {
         Map<String, Object> response = new HashMap<>();
@@ -118,16 +146,13 @@ public class KrxDataController {
             // Try using StockListingService if available
             if (stockListingService != null) {
                 try {
-                    List<StockListingService.StockListing> searchResults = stockListingService.searchStocks(query.trim());
-                    if (searchResults != null) {
-                        for (StockListingService.StockListing stock : searchResults) {
-                            if (stock != null && stock.getTicker() != null && stock.getCompanyName() != null) {
-                                Map<String, String> stockData = new HashMap<>();
-                                stockData.put("ticker", stock.getTicker());
-                                stockData.put("name", stock.getCompanyName());
-                                results.add(stockData);
-                                if (results.size() >= 10) break;
-                            }
+                    List<StockListingService.StockListing> searchResults = stockListingService.searchStocks(query, 10);
+                    for (StockListingService.StockListing stock : searchResults) {
+                        if (stock.getTicker() != null && stock.getCompanyName() != null) {
+                            Map<String, String> stockData = new HashMap<>();
+                            stockData.put("ticker", stock.getTicker());
+                            stockData.put("name", stock.getCompanyName());
+                            results.add(stockData);
                         }
                     }
                 } catch (Exception e) {
@@ -135,8 +160,9 @@ public class KrxDataController {
                 }
             }
             
-            // If no results yet, try KrxApiService
-            if (results.isEmpty() && krxApiService != null) {
+            // Scan the volume rankings only when the stock listing could not be loaded at all
+            boolean listingUnavailable = stockListingService == null || stockListingService.getStockCount() == 0;
+            if (results.isEmpty() && listingUnavailable && krxApiService != null) {
                 try {
                     logger.info("Trying KrxApiService for search");
                     // Get stocks from volume ranking and filter
@@ -229,175 +255,238 @@ public class KrxDataController {
      * Get KOSPI volume ranking (거래량 순위)
      */
     @GetMapping("/kospi/volume-ranking")
-    public ResponseEntity<List<KrxRankingStock>> getKospiVolumeRanking(
+    public Mono<ResponseEntity<List<KrxRankingStock>>> getKospiVolumeRanking(
             @RequestParam(defaultValue = "50") int limit) {
-        try {
-            List<KrxRankingStock> rankings = krxApiService.getKospiVolumeRanking(limit);
-            return ResponseEntity.ok(rankings);
-        } catch (Exception e) {
-            logger.error("Failed to fetch KOSPI volume ranking", e);
-            return ResponseEntity.internalServerError().build();
-        }
+        return rankingResponse("KOSPI", MarketSnapshot.SortKey.VOLUME, limit, "KOSPI volume ranking");
     }
     
     /**
      * Get KOSPI trade value ranking (거래대금 순위)
      */
     @GetMapping("/kospi/trade-value-ranking")
-    public ResponseEntity<List<KrxRankingStock>> getKospiTradeValueRanking(
+    public Mono<ResponseEntity<List<KrxRankingStock>>> getKospiTradeValueRanking(
             @RequestParam(defaultValue = "50") int limit) {
-        try {
-            List<KrxRankingStock> rankings = krxApiService.getKospiTradeValueRanking(limit);
-            return ResponseEntity.ok(rankings);
-        } catch (Exception e) {
-            logger.error("Failed to fetch KOSPI trade value ranking", e);
-            return ResponseEntity.internalServerError().build();
-        }
+        return rankingResponse("KOSPI", MarketSnapshot.SortKey.TRADE_VALUE, limit, "KOSPI trade value ranking");
     }
     
     /**
      * Get KOSPI price increase ranking (상승률 순위)
      */
     @GetMapping("/kospi/price-increase-ranking")
-    public ResponseEntity<List<KrxRankingStock>> getKospiPriceIncreaseRanking(
+    public Mono<ResponseEntity<List<KrxRankingStock>>> getKospiPriceIncreaseRanking(
             @RequestParam(defaultValue = "50") int limit) {
-        try {
-            List<KrxRankingStock> rankings = krxApiService.getKospiPriceIncreaseRanking(limit);
-            return ResponseEntity.ok(rankings);
-        } catch (Exception e) {
-            logger.error("Failed to fetch KOSPI price increase ranking", e);
-            return ResponseEntity.internalServerError().build();
-        }
+        return rankingResponse("KOSPI", MarketSnapshot.SortKey.CHANGE_RATE_DESC, limit, "KOSPI price increase ranking");
     }
     
     /**
      * Get KOSPI price decrease ranking (하락률 순위)
      */
     @GetMapping("/kospi/price-decrease-ranking")
-    public ResponseEntity<List<KrxRankingStock>> getKospiPriceDecreaseRanking(
+    public Mono<ResponseEntity<List<KrxRankingStock>>> getKospiPriceDecreaseRanking(
             @RequestParam(defaultValue = "50") int limit) {
-        try {
-            List<KrxRankingStock> rankings = krxApiService.getKospiPriceDecreaseRanking(limit);
-            return ResponseEntity.ok(rankings);
-        } catch (Exception e) {
-            logger.error("Failed to fetch KOSPI price decrease ranking", e);
-            return ResponseEntity.internalServerError().build();
-        }
+        return rankingResponse("KOSPI", MarketSnapshot.SortKey.CHANGE_RATE_ASC, limit, "KOSPI price decrease ranking");
     }
     
     /**
      * Get KOSDAQ volume ranking (거래량 순위)
      */
     @GetMapping("/kosdaq/volume-ranking")
-    public ResponseEntity<List<KrxRankingStock>> getKosdaqVolumeRanking(
+    public Mono<ResponseEntity<List<KrxRankingStock>>> getKosdaqVolumeRanking(
             @RequestParam(defaultValue = "50") int limit) {
-        try {
-            List<KrxRankingStock> rankings = krxApiService.getKosdaqVolumeRanking(limit);
-            return ResponseEntity.ok(rankings);
-        } catch (Exception e) {
-            logger.error("Failed to fetch KOSDAQ volume ranking", e);
-            return ResponseEntity.internalServerError().build();
-        }
+        return rankingResponse("KOSDAQ", MarketSnapshot.SortKey.VOLUME, limit, "KOSDAQ volume ranking");
     }
     
     /**
      * Get KOSDAQ trade value ranking (거래대금 순위)
      */
     @GetMapping("/kosdaq/trade-value-ranking")
-    public ResponseEntity<List<KrxRankingStock>> getKosdaqTradeValueRanking(
+    public Mono<ResponseEntity<List<KrxRankingStock>>> getKosdaqTradeValueRanking(
             @RequestParam(defaultValue = "50") int limit) {
-        try {
-            List<KrxRankingStock> rankings = krxApiService.getKosdaqTradeValueRanking(limit);
-            return ResponseEntity.ok(rankings);
-        } catch (Exception e) {
-            logger.error("Failed to fetch KOSDAQ trade value ranking", e);
-            return ResponseEntity.internalServerError().build();
-        }
+        return rankingResponse("KOSDAQ", MarketSnapshot.SortKey.TRADE_VALUE, limit, "KOSDAQ trade value ranking");
     }
     
     /**
      * Get KOSDAQ price increase ranking (상승률 순위)
      */
     @GetMapping("/kosdaq/price-increase-ranking")
-    public ResponseEntity<List<KrxRankingStock>> getKosdaqPriceIncreaseRanking(
+    public Mono<ResponseEntity<List<KrxRankingStock>>> getKosdaqPriceIncreaseRanking(
             @RequestParam(defaultValue = "50") int limit) {
-        try {
-            List<KrxRankingStock> rankings = krxApiService.getKosdaqPriceIncreaseRanking(limit);
-            return ResponseEntity.ok(rankings);
-        } catch (Exception e) {
-            logger.error("Failed to fetch KOSDAQ price increase ranking", e);
-            return ResponseEntity.internalServerError().build();
-        }
+        return rankingResponse("KOSDAQ", MarketSnapshot.SortKey.CHANGE_RATE_DESC, limit, "KOSDAQ price increase ranking");
     }
     
     /**
      * Get KOSDAQ price decrease ranking (하락률 순위)
      */
     @GetMapping("/kosdaq/price-decrease-ranking")
-    public ResponseEntity<List<KrxRankingStock>> getKosdaqPriceDecreaseRanking(
+    public Mono<ResponseEntity<List<KrxRankingStock>>> getKosdaqPriceDecreaseRanking(
             @RequestParam(defaultValue = "50") int limit) {
-        try {
-            List<KrxRankingStock> rankings = krxApiService.getKosdaqPriceDecreaseRanking(limit);
-            return ResponseEntity.ok(rankings);
-        } catch (Exception e) {
-            logger.error("Failed to fetch KOSDAQ price decrease ranking", e);
-            return ResponseEntity.internalServerError().build();
-        }
+        return rankingResponse("KOSDAQ", MarketSnapshot.SortKey.CHANGE_RATE_ASC, limit, "KOSDAQ price decrease ranking");
     }
     
     /**
      * Get individual stock information
      * @param ticker Stock ticker code (e.g., "005930" for Samsung Electronics)
-     * @param market Market type: "KOSPI" for main market, "KOSDAQ" for growth market
+     * @param market Market type: "KOSPI" for main market, "KOSDAQ" for growth market.
+     *               Only used for tickers the ticker resolver does not know; listed tickers use their own market.
+     * @param maxPoints With a period, return at most this many chart points (date, close, volume) downsampled
+     *                  with LTTB instead of every daily record, e.g. the pixel width of the chart
      */
     @GetMapping("/stock/{ticker}")
-    public ResponseEntity<?> getStockInfo(
+    public Mono<ResponseEntity<?>> getStockInfo(
             @PathVariable String ticker,
-            @RequestParam(defaultValue = "KOSPI") String market,
-            @RequestParam(required = false) Integer period) {
-        try {
-            logger.info("API request for stock info - ticker: {}, market: {}, period: {}", ticker, market, period);
-            
-            // If period is specified, use KIS API for historical data (hybrid approach)
-            if (period != null && period >= 1) {
-                logger.info("Using KIS API for historical data - ticker: {}, period: {} days", ticker, period);
-                List<KisStockInfo> kisHistoricalData = kisApiService.getHistoricalPrices(ticker, period);
-                
-                if (!kisHistoricalData.isEmpty()) {
-                    logger.info("KIS historical data retrieved - ticker: {}, points: {}", 
-                        ticker, kisHistoricalData.size());
-                    
-                    // Convert KIS format to KRX format for frontend compatibility
-                    List<Map<String, Object>> convertedData = convertKisToKrxFormat(kisHistoricalData);
-                    return ResponseEntity.ok(convertedData);
-                } else {
-                    logger.warn("No KIS historical data found, falling back to KRX current data");
-                    // Fall back to KRX current data but return as array for consistency
-                    KrxStockInfo stockInfo = krxApiService.getIndividualStockInfo(ticker, market);
-                    if (stockInfo != null) {
-                        List<KrxStockInfo> fallbackList = new java.util.ArrayList<>();
-                        fallbackList.add(stockInfo);
-                        logger.info("Returning KRX current data as fallback");
-                        return ResponseEntity.ok(fallbackList);
+            @RequestParam(required = false) String market,
+            @RequestParam(required = false) Integer period,
+            @RequestParam(required = false) Integer maxPoints) {
+        if (maxPoints != null && (maxPoints < 3 || maxPoints > MAX_CHART_POINTS)) {
+            return Mono.<ResponseEntity<?>>just(ResponseEntity.badRequest()
+                .body("maxPoints must be between 3 and " + MAX_CHART_POINTS));
+        }
+        String resolvedMarket = tickerMarketResolver.marketOf(ticker, market);
+        logger.info("API request for stock info - ticker: {}, market: {}, period: {}", ticker, resolvedMarket, period);
+        
+        Mono<ResponseEntity<?>> result;
+        // If period is specified, use KIS API for historical data (hybrid approach)
+        if (period != null && period >= 1 && maxPoints != null) {
+            logger.info("Using KIS API for chart data - ticker: {}, period: {} days, maxPoints: {}", ticker, period, maxPoints);
+            result = chartSeriesService.getChart(ticker, period, maxPoints)
+                .<ResponseEntity<?>>flatMap(points -> points.isEmpty()
+                    ? currentInfoAsList(ticker, resolvedMarket)
+                    : Mono.<ResponseEntity<?>>just(ResponseEntity.ok(points)));
+        } else if (period != null && period >= 1) {
+            logger.info("Using KIS API for historical data - ticker: {}, period: {} days", ticker, period);
+            result = kisApiService.getHistoricalPricesAsync(ticker, period)
+                .<ResponseEntity<?>>flatMap(kisHistoricalData -> {
+                    if (!kisHistoricalData.isEmpty()) {
+                        logger.info("KIS historical data retrieved - ticker: {}, points: {}", 
+                            ticker, kisHistoricalData.size());
+                        
+                        // Convert KIS format to KRX format for frontend compatibility
+                        List<Map<String, Object>> convertedData = convertKisToKrxFormat(kisHistoricalData);
+                        return Mono.<ResponseEntity<?>>just(ResponseEntity.ok(convertedData));
                     }
-                    return ResponseEntity.notFound().build();
-                }
-            } else {
-                // Return current stock info
-                KrxStockInfo stockInfo = krxApiService.getIndividualStockInfo(ticker, market);
-                if (stockInfo != null) {
+                    return currentInfoAsList(ticker, resolvedMarket);
+                });
+        } else {
+            // Return current stock info
+            result = krxApiService.getIndividualStockInfoAsync(ticker, resolvedMarket)
+                .<ResponseEntity<?>>map(stockInfo -> {
                     logger.info("Stock info retrieved - ticker: {}, name: {}, price: {}", 
                         stockInfo.getTicker(), stockInfo.getName(), stockInfo.getClosePrice());
                     return ResponseEntity.ok(stockInfo);
-                } else {
-                    logger.warn("No stock info found for ticker: {}", ticker);
-                    return ResponseEntity.notFound().build();
-                }
+                });
+        }
+        
+        return result
+            .switchIfEmpty(Mono.<ResponseEntity<?>>fromSupplier(() -> {
+                logger.warn("No stock info found for ticker: {}", ticker);
+                return ResponseEntity.notFound().build();
+            }))
+            .onErrorResume(e -> {
+                logger.error("Failed to fetch stock info for ticker: {}", ticker, e);
+                return Mono.<ResponseEntity<?>>just(ResponseEntity.internalServerError().build());
+            });
+    }
+    
+    /**
+     * Fallback when KIS has no history: KRX current data, returned as an array for consistency
+     */
+    private Mono<ResponseEntity<?>> currentInfoAsList(String ticker, String market) {
+        logger.warn("No KIS historical data found, falling back to KRX current data");
+        return krxApiService.getIndividualStockInfoAsync(ticker, market)
+            .<ResponseEntity<?>>map(stockInfo -> {
+                List<KrxStockInfo> fallbackList = new ArrayList<>();
+                fallbackList.add(stockInfo);
+                logger.info("Returning KRX current data as fallback");
+                return ResponseEntity.ok(fallbackList);
+            });
+    }
+    
+    /**
+     * Technical indicators computed on the server from the daily closes, e.g.
+     * /api/krx/stock/005930/indicators?period=180&sma=5,20,60&rsi=14&macd=12,26,9&bollinger=20
+     * Pass 0 to leave an indicator out, e.g. sma=0&macd=0. Values before an indicator is warmed up are null.
+     */
+    @GetMapping("/stock/{ticker}/indicators")
+    public Mono<ResponseEntity<Map<String, Object>>> getIndicators(
+            @PathVariable String ticker,
+            @RequestParam(defaultValue = "180") int period,
+            @RequestParam(defaultValue = "5,20,60") List<Integer> sma,
+            @RequestParam(defaultValue = "20") List<Integer> ema,
+            @RequestParam(defaultValue = "14") int rsi,
+            @RequestParam(defaultValue = "12,26,9") List<Integer> macd,
+            @RequestParam(defaultValue = "20") int bollinger,
+            @RequestParam(defaultValue = "2") double bollingerWidth) {
+        IndicatorEngine.Parameters parameters;
+        try {
+            if (period < 1 || period > 3650) {
+                throw new IllegalArgumentException("period must be between 1 and 3650 days");
             }
-        } catch (Exception e) {
-            logger.error("Failed to fetch stock info for ticker: {}", ticker, e);
-            return ResponseEntity.internalServerError().build();
+            parameters = IndicatorEngine.Parameters.of(sma, ema, rsi, macd, bollinger, bollingerWidth);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return Mono.just(ResponseEntity.badRequest().body(response));
         }
+        
+        return technicalIndicatorService.getIndicators(ticker, period, parameters)
+            .map(indicators -> {
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("success", true);
+                response.put("ticker", ticker);
+                response.put("period", period);
+                response.putAll(indicators);
+                return ResponseEntity.ok(response);
+            })
+            .switchIfEmpty(Mono.fromSupplier(() -> {
+                logger.warn("No price history for indicators of ticker: {}", ticker);
+                return ResponseEntity.notFound().<Map<String, Object>>build();
+            }))
+            .onErrorResume(e -> {
+                logger.error("Failed to compute indicators for ticker: {}", ticker, e);
+                return Mono.just(ResponseEntity.internalServerError().<Map<String, Object>>build());
+            });
+    }
+    
+    /**
+     * Batch quotes for many tickers in one request, e.g. /api/krx/quotes?tickers=005930,000660
+     * Resolved in memory against the cached KOSPI/KOSDAQ snapshots; unlisted tickers are reported in notFound.
+     */
+    @GetMapping("/quotes")
+    public Mono<ResponseEntity<Map<String, Object>>> getQuotes(@RequestParam List<String> tickers) {
+        if (tickers.size() > MAX_BATCH_QUOTES) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "At most " + MAX_BATCH_QUOTES + " tickers per request");
+            return Mono.just(ResponseEntity.badRequest().body(response));
+        }
+        
+        return stockQuoteService.getQuotesAsync(tickers).map(quotes -> {
+            Set<String> found = new HashSet<>();
+            for (StockQuote quote : quotes) {
+                found.add(quote.ticker());
+            }
+            List<String> notFound = new ArrayList<>();
+            for (String ticker : tickers) {
+                String trimmed = ticker.trim();
+                if (!trimmed.isEmpty() && !found.contains(trimmed) && !notFound.contains(trimmed)) {
+                    notFound.add(trimmed);
+                }
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("quotes", quotes);
+            response.put("notFound", notFound);
+            response.putAll(snapshotFreshness("KOSPI", "KOSDAQ"));
+            return ResponseEntity.ok(response);
+        }).onErrorResume(e -> {
+            logger.error("Failed to fetch batch quotes for tickers: {}", tickers, e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to fetch quotes: " + e.getMessage());
+            return Mono.just(ResponseEntity.internalServerError().body(response));
+        });
     }
     
     /**
@@ -405,15 +494,14 @@ public class KrxDataController {
      * Uses KRX Open API to fetch real ETF data
      */
     @GetMapping("/etf/daily-trading")
-    public ResponseEntity<List<KrxRankingStock>> getETFDailyTradingInfo() {
-        try {
-            logger.info("Fetching ETF daily trading information from KRX API");
-            List<KrxRankingStock> etfData = krxApiService.getETFDailyTradingInfo();
-            return ResponseEntity.ok(etfData);
-        } catch (Exception e) {
-            logger.error("Failed to fetch ETF daily trading information", e);
-            return ResponseEntity.internalServerError().build();
-        }
+    public Mono<ResponseEntity<List<KrxRankingStock>>> getETFDailyTradingInfo() {
+        logger.info("Fetching ETF daily trading information from KRX API");
+        return krxApiService.getETFDailyTradingInfoAsync()
+            .map(ResponseEntity::ok)
+            .onErrorResume(e -> {
+                logger.error("Failed to fetch ETF daily trading information", e);
+                return Mono.just(ResponseEntity.internalServerError().<List<KrxRankingStock>>build());
+            });
     }
     
     /**
@@ -425,6 +513,7 @@ public class KrxDataController {
         
         try {
             krxApiService.clearCache();
+            kisApiService.clearCache();
             response.put("success", true);
             response.put("message", "KRX API service caches cleared successfully (test endpoint)");
             return ResponseEntity.ok(response);
@@ -445,6 +534,7 @@ public class KrxDataController {
         
         try {
             krxApiService.clearCache();
+            kisApiService.clearCache();
             response.put("success", true);
             response.put("message", "KRX API service caches cleared successfully");
             return ResponseEntity.ok(response);
@@ -462,381 +552,50 @@ public class KrxDataController {
      * Get combined volume ranking from both KOSPI and KOSDAQ
      */
     @GetMapping("/ranking/volume-ranking")
-    public ResponseEntity<Map<String, Object>> getCombinedVolumeRanking(
+    public Mono<ResponseEntity<Map<String, Object>>> getCombinedVolumeRanking(
             @RequestParam(required = false) String market) {
-        Map<String, Object> response = new HashMap<>();
-        
-        try {
-            logger.info("Fetching volume ranking data, market filter: {}", market);
-            
-            List<KrxRankingStock> allStocks = new ArrayList<>();
-            
-            // Check market filter
-            if ("kospi".equalsIgnoreCase(market)) {
-                // KOSPI only
-                allStocks = krxApiService.getKospiVolumeRanking(50);
-            } else if ("kosdaq".equalsIgnoreCase(market)) {
-                // KOSDAQ only
-                allStocks = krxApiService.getKosdaqVolumeRanking(50);
-            } else {
-                // Combined (default)
-                List<KrxRankingStock> kospiVolume = new ArrayList<>();
-                List<KrxRankingStock> kosdaqVolume = new ArrayList<>();
-                
-                try {
-                    kospiVolume = krxApiService.getKospiVolumeRanking(25);
-                } catch (Exception e) {
-                    logger.error("Failed to fetch KOSPI volume ranking: {}", e.getMessage());
-                }
-                
-                try {
-                    kosdaqVolume = krxApiService.getKosdaqVolumeRanking(25);
-                } catch (Exception e) {
-                    logger.error("Failed to fetch KOSDAQ volume ranking: {}", e.getMessage());
-                }
-                
-                // Combine both lists
-                allStocks = new java.util.ArrayList<>(kospiVolume);
-                allStocks.addAll(kosdaqVolume);
-            }
-            
-            // Sort by volume and limit to top 50
-            allStocks.sort((a, b) -> {
-                try {
-                    long volA = parseVolume(a.getVolume());
-                    long volB = parseVolume(b.getVolume());
-                    return Long.compare(volB, volA);
-                } catch (Exception e) {
-                    return 0;
-                }
-            });
-            
-            if (allStocks.size() > 50) {
-                allStocks = allStocks.subList(0, 50);
-            }
-            
-            // Update rankings
-            for (int i = 0; i < allStocks.size(); i++) {
-                allStocks.get(i).setRank(i + 1);
-            }
-            
-            response.put("success", true);
-            response.put("data", allStocks);
-            response.put("message", "거래량 순위 조회 성공");
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            logger.error("Failed to fetch volume ranking", e);
-            response.put("success", false);
-            response.put("message", "거래량 순위 조회 실패: " + e.getMessage());
-            response.put("data", new ArrayList<>());
-            return ResponseEntity.ok(response); // Return 200 with error message instead of 500
-        }
+        logger.info("Fetching volume ranking data, market filter: {}", market);
+        return combinedRanking(market, MarketSnapshot.SortKey.VOLUME, "volume ranking", "거래량 순위");
     }
     
     /**
      * Get combined price increase ranking from both KOSPI and KOSDAQ
      */
     @GetMapping("/ranking/price-increase-ranking")
-    public ResponseEntity<Map<String, Object>> getCombinedPriceIncreaseRanking(
+    public Mono<ResponseEntity<Map<String, Object>>> getCombinedPriceIncreaseRanking(
             @RequestParam(required = false) String market) {
-        Map<String, Object> response = new HashMap<>();
-        
-        try {
-            logger.info("Fetching price increase ranking data, market filter: {}", market);
-            
-            List<KrxRankingStock> allStocks = new ArrayList<>();
-            
-            // Check market filter
-            if ("kospi".equalsIgnoreCase(market)) {
-                // KOSPI only
-                allStocks = krxApiService.getKospiPriceIncreaseRanking(50);
-            } else if ("kosdaq".equalsIgnoreCase(market)) {
-                // KOSDAQ only
-                allStocks = krxApiService.getKosdaqPriceIncreaseRanking(50);
-            } else {
-                // Combined (default)
-                List<KrxRankingStock> kospiIncrease = new ArrayList<>();
-                List<KrxRankingStock> kosdaqIncrease = new ArrayList<>();
-                
-                try {
-                    kospiIncrease = krxApiService.getKospiPriceIncreaseRanking(25);
-                } catch (Exception e) {
-                    logger.error("Failed to fetch KOSPI price increase ranking: {}", e.getMessage());
-                }
-                
-                try {
-                    kosdaqIncrease = krxApiService.getKosdaqPriceIncreaseRanking(25);
-                } catch (Exception e) {
-                    logger.error("Failed to fetch KOSDAQ price increase ranking: {}", e.getMessage());
-                }
-                
-                // Combine both lists
-                allStocks = new java.util.ArrayList<>(kospiIncrease);
-                allStocks.addAll(kosdaqIncrease);
-            }
-            
-            // Sort by change rate and limit to top 50
-            allStocks.sort((a, b) -> {
-                try {
-                    double rateA = a.getChangeRate();
-                    double rateB = b.getChangeRate();
-                    return Double.compare(rateB, rateA);
-                } catch (Exception e) {
-                    return 0;
-                }
-            });
-            
-            if (allStocks.size() > 50) {
-                allStocks = allStocks.subList(0, 50);
-            }
-            
-            // Update rankings43n
-            for (int i = 0; i < allStocks.size(); i++) {
-                allStocks.get(i).setRank(i + 1);
-            }
-            
-            response.put("success", true);
-            response.put("data", allStocks);
-            response.put("message", "상승률 순위 조회 성공");
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            logger.error("Failed to fetch price increase ranking", e);
-            response.put("success", false);
-            response.put("message", "상승률 순위 조회 실패: " + e.getMessage());
-            response.put("data", new ArrayList<>());
-            return ResponseEntity.ok(response); // Return 200 with error message instead of 500
-        }
+        logger.info("Fetching price increase ranking data, market filter: {}", market);
+        return combinedRanking(market, MarketSnapshot.SortKey.CHANGE_RATE_DESC, "price increase ranking", "상승률 순위");
     }
     
     /**
      * Get combined price decrease ranking from both KOSPI and KOSDAQ
      */
     @GetMapping("/ranking/price-decrease-ranking")
-    public ResponseEntity<Map<String, Object>> getCombinedPriceDecreaseRanking(
+    public Mono<ResponseEntity<Map<String, Object>>> getCombinedPriceDecreaseRanking(
             @RequestParam(required = false) String market) {
-        Map<String, Object> response = new HashMap<>();
-        
-        try {
-            logger.info("Fetching price decrease ranking data, market filter: {}", market);
-            
-            List<KrxRankingStock> allStocks = new ArrayList<>();
-            
-            // Check market filter
-            if ("kospi".equalsIgnoreCase(market)) {
-                // KOSPI only
-                allStocks = krxApiService.getKospiPriceDecreaseRanking(50);
-            } else if ("kosdaq".equalsIgnoreCase(market)) {
-                // KOSDAQ only
-                allStocks = krxApiService.getKosdaqPriceDecreaseRanking(50);
-            } else {
-                // Combined (default)
-                List<KrxRankingStock> kospiDecrease = new ArrayList<>();
-                List<KrxRankingStock> kosdaqDecrease = new ArrayList<>();
-                
-                try {
-                    kospiDecrease = krxApiService.getKospiPriceDecreaseRanking(25);
-                } catch (Exception e) {
-                    logger.error("Failed to fetch KOSPI price decrease ranking: {}", e.getMessage());
-                }
-                
-                try {
-                    kosdaqDecrease = krxApiService.getKosdaqPriceDecreaseRanking(25);
-                } catch (Exception e) {
-                    logger.error("Failed to fetch KOSDAQ price decrease ranking: {}", e.getMessage());
-                }
-                
-                // Combine both lists
-                allStocks = new java.util.ArrayList<>(kospiDecrease);
-                allStocks.addAll(kosdaqDecrease);
-            }
-            
-            // Sort by change rate (negative) and limit to top 50
-            allStocks.sort((a, b) -> {
-                try {
-                    double rateA = a.getChangeRate();
-                    double rateB = b.getChangeRate();
-                    return Double.compare(rateA, rateB); // Note: reversed for decrease
-                } catch (Exception e) {
-                    return 0;
-                }
-            });
-            
-            if (allStocks.size() > 50) {
-                allStocks = allStocks.subList(0, 50);
-            }
-            
-            // Update rankings
-            for (int i = 0; i < allStocks.size(); i++) {
-                allStocks.get(i).setRank(i + 1);
-            }
-            
-            response.put("success", true);
-            response.put("data", allStocks);
-            response.put("message", "하락률 순위 조회 성공");
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            logger.error("Failed to fetch price decrease ranking", e);
-            response.put("success", false);
-            response.put("message", "하락률 순위 조회 실패: " + e.getMessage());
-            response.put("data", new ArrayList<>());
-            return ResponseEntity.ok(response); // Return 200 with error message instead of 500
-        }
+        logger.info("Fetching price decrease ranking data, market filter: {}", market);
+        return combinedRanking(market, MarketSnapshot.SortKey.CHANGE_RATE_ASC, "price decrease ranking", "하락률 순위");
     }
     
     /**
      * Get combined trade value ranking from both KOSPI and KOSDAQ
      */
     @GetMapping("/ranking/trade-value-ranking")
-    public ResponseEntity<Map<String, Object>> getCombinedTradeValueRanking(
+    public Mono<ResponseEntity<Map<String, Object>>> getCombinedTradeValueRanking(
             @RequestParam(required = false) String market) {
-        Map<String, Object> response = new HashMap<>();
-        
-        try {
-            logger.info("Fetching trade value ranking data, market filter: {}", market);
-            
-            List<KrxRankingStock> allStocks = new ArrayList<>();
-            
-            // Check market filter
-            if ("kospi".equalsIgnoreCase(market)) {
-                // KOSPI only
-                allStocks = krxApiService.getKospiTradeValueRanking(50);
-            } else if ("kosdaq".equalsIgnoreCase(market)) {
-                // KOSDAQ only
-                allStocks = krxApiService.getKosdaqTradeValueRanking(50);
-            } else {
-                // Combined (default)
-                List<KrxRankingStock> kospiValue = new ArrayList<>();
-                List<KrxRankingStock> kosdaqValue = new ArrayList<>();
-                
-                try {
-                    kospiValue = krxApiService.getKospiTradeValueRanking(25);
-                } catch (Exception e) {
-                    logger.error("Failed to fetch KOSPI trade value ranking: {}", e.getMessage());
-                }
-                
-                try {
-                    kosdaqValue = krxApiService.getKosdaqTradeValueRanking(25);
-                } catch (Exception e) {
-                    logger.error("Failed to fetch KOSDAQ trade value ranking: {}", e.getMessage());
-                }
-                
-                // Combine both lists
-                allStocks = new java.util.ArrayList<>(kospiValue);
-                allStocks.addAll(kosdaqValue);
-            }
-            
-            // Sort by trade value and limit to top 50
-            allStocks.sort((a, b) -> {
-                try {
-                    long valA = parseVolume(a.getTradeValue());
-                    long valB = parseVolume(b.getTradeValue());
-                    return Long.compare(valB, valA);
-                } catch (Exception e) {
-                    return 0;
-                }
-            });
-            
-            if (allStocks.size() > 50) {
-                allStocks = allStocks.subList(0, 50);
-            }
-            
-            // Update rankings
-            for (int i = 0; i < allStocks.size(); i++) {
-                allStocks.get(i).setRank(i + 1);
-            }
-            
-            response.put("success", true);
-            response.put("data", allStocks);
-            response.put("message", "거래대금 순위 조회 성공");
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            logger.error("Failed to fetch trade value ranking", e);
-            response.put("success", false);
-            response.put("message", "거래대금 순위 조회 실패: " + e.getMessage());
-            response.put("data", new ArrayList<>());
-            return ResponseEntity.ok(response); // Return 200 with error message instead of 500
-        }
+        logger.info("Fetching trade value ranking data, market filter: {}", market);
+        return combinedRanking(market, MarketSnapshot.SortKey.TRADE_VALUE, "trade value ranking", "거래대금 순위");
     }
     
     /**
      * Get combined market capitalization ranking from both KOSPI and KOSDAQ
      */
     @GetMapping("/ranking/market-cap-ranking")
-    public ResponseEntity<Map<String, Object>> getCombinedMarketCapRanking(
+    public Mono<ResponseEntity<Map<String, Object>>> getCombinedMarketCapRanking(
             @RequestParam(required = false) String market) {
-        Map<String, Object> response = new HashMap<>();
-        
-        try {
-            logger.info("Fetching market capitalization ranking data, market filter: {}", market);
-            
-            List<KrxRankingStock> allStocks = new ArrayList<>();
-            
-            // Check market filter
-            if ("kospi".equalsIgnoreCase(market)) {
-                // KOSPI only
-                allStocks = krxApiService.getKospiMarketCapRanking(50);
-            } else if ("kosdaq".equalsIgnoreCase(market)) {
-                // KOSDAQ only
-                allStocks = krxApiService.getKosdaqMarketCapRanking(50);
-            } else {
-                // Combined (default)
-                List<KrxRankingStock> kospiStocks = new ArrayList<>();
-                List<KrxRankingStock> kosdaqStocks = new ArrayList<>();
-                
-                try {
-                    // Fetch market cap ranking directly
-                    kospiStocks = krxApiService.getKospiMarketCapRanking(25);
-                } catch (Exception e) {
-                    logger.error("Failed to fetch KOSPI market cap ranking: {}", e.getMessage());
-                }
-                
-                try {
-                    kosdaqStocks = krxApiService.getKosdaqMarketCapRanking(25);
-                } catch (Exception e) {
-                    logger.error("Failed to fetch KOSDAQ market cap ranking: {}", e.getMessage());
-                }
-                
-                // Combine both lists
-                allStocks = new java.util.ArrayList<>(kospiStocks);
-                allStocks.addAll(kosdaqStocks);
-            }
-            
-            // Sort by market cap and limit to top 50
-            allStocks.sort((a, b) -> {
-                try {
-                    long capA = parseVolume(a.getMarketCap());
-                    long capB = parseVolume(b.getMarketCap());
-                    return Long.compare(capB, capA);
-                } catch (Exception e) {
-                    return 0;
-                }
-            });
-            
-            if (allStocks.size() > 50) {
-                allStocks = allStocks.subList(0, 50);
-            }
-            
-            // Update rankings
-            for (int i = 0; i < allStocks.size(); i++) {
-                allStocks.get(i).setRank(i + 1);
-            }
-            
-            response.put("success", true);
-            response.put("data", allStocks);
-            response.put("message", "시가총액 순위 조회 성공");
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            logger.error("Failed to fetch market cap ranking", e);
-            response.put("success", false);
-            response.put("message", "시가총액 순위 조회 실패: " + e.getMessage());
-            response.put("data", new ArrayList<>());
-            return ResponseEntity.ok(response); // Return 200 with error message instead of 500
-        }
+        logger.info("Fetching market capitalization ranking data, market filter: {}", market);
+        return combinedRanking(market, MarketSnapshot.SortKey.MARKET_CAP, "market cap ranking", "시가총액 순위");
     }
     
     /**
@@ -890,42 +649,6 @@ public class KrxDataController {
         return convertedData;
     }
 
-    /**
-     * Helper method to parse volume string to long for sorting
-     * Handles both numeric strings and Korean formatted strings (억, 조, etc.)
-     */
-    private long parseVolume(String volume) {
-        if (volume == null || volume.trim().isEmpty()) {
-            return 0L;
-        }
-        
-        try {
-            // Remove commas
-            String cleanVolume = volume.replace(",", "").trim();
-            
-            // Handle Korean suffixes
-            if (cleanVolume.endsWith("조")) {
-                // 1조 = 1,000,000,000,000
-                String numPart = cleanVolume.substring(0, cleanVolume.length() - 1).trim();
-                return (long)(Double.parseDouble(numPart) * 1_000_000_000_000L);
-            } else if (cleanVolume.endsWith("억")) {
-                // 1억 = 100,000,000
-                String numPart = cleanVolume.substring(0, cleanVolume.length() - 1).trim();
-                return (long)(Double.parseDouble(numPart) * 100_000_000L);
-            } else if (cleanVolume.endsWith("만")) {
-                // 1만 = 10,000
-                String numPart = cleanVolume.substring(0, cleanVolume.length() - 1).trim();
-                return (long)(Double.parseDouble(numPart) * 10_000L);
-            } else {
-                // Plain number
-                return Long.parseLong(cleanVolume);
-            }
-        } catch (NumberFormatException e) {
-            logger.warn("Failed to parse volume: {}", volume);
-            return 0L;
-        }
-    }
-    
     /**
      * Diagnose KRX API connectivity and data issues
      */
@@ -1005,6 +728,8 @@ public class KrxDataController {
             
             diagnosis.put("timestamp", LocalDateTime.now());
             diagnosis.put("trading_date", krxApiService.getLastTradingDate());
+            diagnosis.put("circuit_breakers", krxApiService.getCircuitStates());
+            diagnosis.putAll(snapshotFreshness("KOSPI", "KOSDAQ"));
             
             return ResponseEntity.ok(diagnosis);
             
@@ -1016,4 +741,99 @@ public class KrxDataController {
             return ResponseEntity.ok(diagnosis); // Return 200 with error info instead of 500
         }
     }
+    
+    /**
+     * Single-market ranking with freshness headers; a failed load answers 500
+     */
+    private Mono<ResponseEntity<List<KrxRankingStock>>> rankingResponse(String market, MarketSnapshot.SortKey sortKey,
+                                                                        int limit, String description) {
+        return krxApiService.getRankingAsync(market, sortKey, limit)
+            .map(rankings -> ResponseEntity.ok().headers(freshnessHeaders(market)).body(rankings))
+            .onErrorResume(e -> {
+                logger.error("Failed to fetch {}", description, e);
+                return Mono.just(ResponseEntity.internalServerError().<List<KrxRankingStock>>build());
+            });
+    }
+    
+    /**
+     * Top 50 of the filtered market, or of KOSPI and KOSDAQ together (see {@link KrxApiService#getCombinedRankingAsync}).
+     * A failure is answered with 200 and success=false.
+     */
+    private Mono<ResponseEntity<Map<String, Object>>> combinedRanking(String market, MarketSnapshot.SortKey sortKey,
+                                                                     String description, String label) {
+        Mono<List<KrxRankingStock>> rankings;
+        if ("kospi".equalsIgnoreCase(market)) {
+            rankings = krxApiService.getRankingAsync("KOSPI", sortKey, 50);
+        } else if ("kosdaq".equalsIgnoreCase(market)) {
+            rankings = krxApiService.getRankingAsync("KOSDAQ", sortKey, 50);
+        } else {
+            rankings = krxApiService.getCombinedRankingAsync(sortKey, 50);
+        }
+        
+        return rankings.map(allStocks -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("data", allStocks);
+                response.putAll(snapshotFreshness(marketsFor(market)));
+                response.put("message", label + " 조회 성공");
+                return ResponseEntity.ok(response);
+            })
+            .onErrorResume(e -> {
+                logger.error("Failed to fetch {}", description, e);
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("message", label + " 조회 실패: " + e.getMessage());
+                response.put("data", new ArrayList<>());
+                return Mono.just(ResponseEntity.ok(response)); // Return 200 with error message instead of 500
+            });
+    }
+    
+    /**
+     * Snapshot markets behind a combined ranking: the filtered market, or both
+     */
+    private String[] marketsFor(String market) {
+        if ("kospi".equalsIgnoreCase(market)) {
+            return new String[] {"KOSPI"};
+        }
+        if ("kosdaq".equalsIgnoreCase(market)) {
+            return new String[] {"KOSDAQ"};
+        }
+        return new String[] {"KOSPI", "KOSDAQ"};
+    }
+    
+    /**
+     * Whether the market snapshots behind a response are stale (restored from disk or served while
+     * KRX is unavailable) and the oldest trading date they cover
+     */
+    private Map<String, Object> snapshotFreshness(String... markets) {
+        boolean stale = false;
+        String asOf = null;
+        for (String market : markets) {
+            KrxApiService.SnapshotStatus status = krxApiService.getSnapshotStatus(market);
+            if (status == null) {
+                continue;
+            }
+            stale |= status.stale();
+            if (asOf == null || status.tradingDate().compareTo(asOf) < 0) {
+                asOf = status.tradingDate();
+            }
+        }
+        Map<String, Object> freshness = new HashMap<>();
+        freshness.put("stale", stale);
+        freshness.put("asOf", asOf);
+        return freshness;
+    }
+    
+    /**
+     * Freshness of the market snapshots for endpoints that return a bare list
+     */
+    private HttpHeaders freshnessHeaders(String... markets) {
+        Map<String, Object> freshness = snapshotFreshness(markets);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Data-Stale", String.valueOf(freshness.get("stale")));
+        if (freshness.get("asOf") != null) {
+            headers.set("X-Data-As-Of", (String) freshness.get("asOf"));
+        }
+        return headers;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.Stalk.project.api.stock.controller;
+
+import com.Stalk.project.api.stock.service.QuoteStreamService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket endpoint for live quotes and ranking boards, see {@link QuoteStreamService}.
+ *
+ * Clients send
+ * {@code {"action":"subscribe","tickers":["005930"],"boards":["KOSPI:VOLUME"]}} and the same with
+ * {@code "unsubscribe"}. The server applies the request and answers with {@code {"type":"subscribed",...}}
+ * listing the topics it actually subscribed (the current state of a topic may arrive just before), then
+ * pushes {@code quote} messages for tickers and {@code board} messages for boards whenever they change.
+ * A board message with {@code "full":false} only carries the rows that changed, to be patched by rank.
+ */
+@Component
+public class QuoteStreamHandler extends TextWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuoteStreamHandler.class);
+
+    // A slow client is disconnected instead of buffering pushes without bound
+    private static final int SEND_TIME_LIMIT_MILLIS = 5_000;
+    private static final int SEND_BUFFER_SIZE_LIMIT = 512 * 1024;
+
+    @Autowired
+    private QuoteStreamService quoteStreamService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, SessionSubscriber> subscribers = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        subscribers.put(session.getId(), new SessionSubscriber(
+            new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MILLIS, SEND_BUFFER_SIZE_LIMIT)));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        SessionSubscriber subscriber = subscribers.get(session.getId());
+        if (subscriber == null) {
+            return;
+        }
+        JsonNode request;
+        try {
+            request = objectMapper.readTree(message.getPayload());
+        } catch (IOException e) {
+            subscriber.send(errorMessage("Malformed message"));
+            return;
+        }
+
+        String action = request.path("action").asText();
+        boolean subscribe = "subscribe".equals(action);
+        if (!subscribe && !"unsubscribe".equals(action)) {
+            subscriber.send(errorMessage("Unknown action: " + action));
+            return;
+        }
+
+        List<String> topics = new ArrayList<>();
+        try {
+            for (JsonNode ticker : request.path("tickers")) {
+                topics.add(quoteStreamService.tickerTopic(ticker.asText()));
+            }
+            for (JsonNode board : request.path("boards")) {
+                topics.add(quoteStreamService.boardTopic(board.asText()));
+            }
+        } catch (IllegalArgumentException e) {
+            subscriber.send(errorMessage(e.getMessage()));
+            return;
+        }
+
+        List<String> applied = new ArrayList<>(topics.size());
+        String failure = null;
+        for (String topic : topics) {
+            if (subscribe) {
+                try {
+                    quoteStreamService.subscribe(subscriber, topic);
+                } catch (IllegalStateException e) {
+                    failure = e.getMessage();
+                    break;
+                }
+            } else {
+                quoteStreamService.unsubscribe(subscriber, topic);
+            }
+            applied.add(topic);
+        }
+
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("type", subscribe ? "subscribed" : "unsubscribed");
+        reply.put("topics", applied);
+        subscriber.send(toJson(reply));
+        if (failure != null) {
+            subscriber.send(errorMessage(failure));
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        logger.debug("Quote stream transport error on session {}: {}", session.getId(), exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        SessionSubscriber subscriber = subscribers.remove(session.getId());
+        if (subscriber != null) {
+            quoteStreamService.unsubscribeAll(subscriber);
+        }
+    }
+
+    private String errorMessage(String text) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("type", "error");
+        error.put("message", text);
+        return toJson(error);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize quote stream message", e);
+        }
+    }
+
+    private static final class SessionSubscriber implements QuoteStreamService.Subscriber {
+        private final WebSocketSession session;
+
+        private SessionSubscriber(WebSocketSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public String getId() {
+            return session.getId();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return session.isOpen();
+        }
+
+        @Override
+        public void send(String message) {
+            if (!session.isOpen()) {
+                return;
+            }
+            try {
+                session.sendMessage(new TextMessage(message));
+            } catch (IOException | RuntimeException e) {
+                // Send limits exceeded or the connection dropped; the close callback releases the topics
+                logger.debug("Closing quote stream session {}: {}", session.getId(), e.getMessage());
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException ignored) {
+                    // Already closed
+                }
+            }
+        }
+    }
+}
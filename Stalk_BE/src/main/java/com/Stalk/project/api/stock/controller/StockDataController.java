@@ -1,11 +1,13 @@
 package com.Stalk.project.api.stock.controller;
 
 import com.Stalk.project.api.stock.service.KrxApiService;
+import com.Stalk.project.api.stock.service.TickerMarketResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -20,19 +22,25 @@ public class StockDataController {
     @Autowired
     private KrxApiService krxApiService;
     
+    @Autowired
+    private TickerMarketResolver tickerMarketResolver;
+    
     @GetMapping("/daily/{stockCode}")
-    public ResponseEntity<Map<String, Object>> getDailyStockData(
+    public Mono<ResponseEntity<Map<String, Object>>> getDailyStockData(
             @PathVariable String stockCode,
             @RequestParam(defaultValue = "30") int period) {
         
         logger.info("Stock API: Fetching stock data for code: {}, period: {}", stockCode, period);
         
+        // Get current real price from KRX API
+        return getCurrentRealPrice(stockCode)
+            .map(currentPrice -> buildDailyStockResponse(stockCode, period, currentPrice));
+    }
+    
+    private ResponseEntity<Map<String, Object>> buildDailyStockResponse(String stockCode, int period, double currentPrice) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            // Get current real price from KRX API
-            double currentPrice = getCurrentRealPrice(stockCode);
-            
             if (currentPrice <= 0) {
                 response.put("success", false);
                 response.put("error", "No real-time data available for stock: " + stockCode);
@@ -64,30 +72,32 @@ public class StockDataController {
     }
     
     /**
-     * Get current real price from KRX API
+     * Get current real price from KRX API, or 0 when the ticker is unknown or the lookup fails
      */
-    private double getCurrentRealPrice(String stockCode) {
-        try {
-            // Try STK market first, then KSQ if not found
-            var stockInfo = krxApiService.getIndividualStockInfo(stockCode, "STK");
-            if (stockInfo == null) {
-                stockInfo = krxApiService.getIndividualStockInfo(stockCode, "KSQ");
-            }
-            
-            if (stockInfo != null) {
-                String priceStr = stockInfo.getClosePrice();
-                if (priceStr != null && !priceStr.isEmpty()) {
-                    double price = Double.parseDouble(priceStr.replace(",", ""));
-                    logger.info("Retrieved current real price for {}: {}", stockCode, price);
-                    return price;
+    private Mono<Double> getCurrentRealPrice(String stockCode) {
+        return Mono.defer(() -> {
+                // Query only the market the ticker is listed in
+                String market = tickerMarketResolver.marketOf(stockCode);
+                if (market == null) {
+                    logger.warn("Ticker {} is not listed on KOSPI or KOSDAQ", stockCode);
+                    return Mono.just(0.0);
                 }
-            }
-            
-        } catch (Exception e) {
-            logger.error("Failed to get current price for stock: {}", stockCode, e);
-        }
-        
-        return 0;
+                return krxApiService.getIndividualStockInfoAsync(stockCode, market)
+                    .map(stockInfo -> {
+                        String priceStr = stockInfo.getClosePrice();
+                        if (priceStr != null && !priceStr.isEmpty()) {
+                            double price = Double.parseDouble(priceStr.replace(",", ""));
+                            logger.info("Retrieved current real price for {}: {}", stockCode, price);
+                            return price;
+                        }
+                        return 0.0;
+                    })
+                    .defaultIfEmpty(0.0);
+            })
+            .onErrorResume(e -> {
+                logger.error("Failed to get current price for stock: {}", stockCode, e);
+                return Mono.just(0.0);
+            });
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.Stalk.project.api.stock.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Writes a raw amount as a display string in Korean units (조/억/만), e.g. 123456789012 as "1,234.57억".
+ * DTOs keep the numeric value for sorting and comparison; the text is only built while the response is written.
+ */
+public class KoreanUnitSerializer extends StdSerializer<Long> {
+
+    private static final long JO = 1_000_000_000_000L;
+    private static final long EOK = 100_000_000L;
+    private static final long MAN = 10_000L;
+
+    public KoreanUnitSerializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public void serialize(Long value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeString(format(value));
+    }
+
+    /**
+     * Amounts of 10,000 and more get two decimals and a 조/억/만 suffix; smaller amounts are comma grouped
+     */
+    public static String format(long number) {
+        if (number >= JO) {
+            return withUnit(number, JO, "조");
+        } else if (number >= EOK) {
+            return withUnit(number, EOK, "억");
+        } else if (number >= MAN) {
+            return withUnit(number, MAN, "만");
+        }
+        return String.format(Locale.US, "%,d", number);
+    }
+
+    private static String withUnit(long number, long unit, String suffix) {
+        long hundredths = Math.round((double) number / (unit / 100));
+        return String.format(Locale.US, "%,d.%02d%s", hundredths / 100, hundredths % 100, suffix);
+    }
+}
@@ -1,5 +1,11 @@
 package com.Stalk.project.api.stock.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * One row of a ranking board. Volume, market cap and trade value are raw amounts and are
+ * written to JSON in Korean units (see {@link KoreanUnitSerializer}).
+ */
 public class KrxRankingStock {
     private int rank;
     private String ticker;
@@ -7,16 +13,19 @@ public class KrxRankingStock {
     private double price;
     private double change;
     private double changeRate;
-    private String volume;
-    private String marketCap;
-    private String tradeValue;
+    @JsonSerialize(using = KoreanUnitSerializer.class)
+    private long volume;
+    @JsonSerialize(using = KoreanUnitSerializer.class)
+    private long marketCap;
+    @JsonSerialize(using = KoreanUnitSerializer.class)
+    private long tradeValue;
     
     // Constructors
     public KrxRankingStock() {}
     
     public KrxRankingStock(int rank, String ticker, String name, double price, 
-                          double change, double changeRate, String volume, 
-                          String marketCap, String tradeValue) {
+                          double change, double changeRate, long volume, 
+                          long marketCap, long tradeValue) {
         this.rank = rank;
         this.ticker = ticker;
         this.name = name;
@@ -77,27 +86,27 @@ public class KrxRankingStock {
         this.changeRate = changeRate;
     }
     
-    public String getVolume() {
+    public long getVolume() {
         return volume;
     }
     
-    public void setVolume(String volume) {
+    public void setVolume(long volume) {
         this.volume = volume;
     }
     
-    public String getMarketCap() {
+    public long getMarketCap() {
         return marketCap;
     }
     
-    public void setMarketCap(String marketCap) {
+    public void setMarketCap(long marketCap) {
         this.marketCap = marketCap;
     }
     
-    public String getTradeValue() {
+    public long getTradeValue() {
         return tradeValue;
     }
     
-    public void setTradeValue(String tradeValue) {
+    public void setTradeValue(long tradeValue) {
         this.tradeValue = tradeValue;
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.Stalk.project.api.stock.dto;
+
+/**
+ * Current quote of one listed stock, read from the full-market snapshot.
+ * Prices and amounts are in KRW, changeRate is in percent.
+ */
+public record StockQuote(
+    String ticker,
+    String name,
+    String market,
+    String tradingDate,
+    long price,
+    long change,
+    double changeRate,
+    long volume,
+    long tradeValue,
+    long marketCap,
+    long openPrice,
+    long highPrice,
+    long lowPrice
+) {
+}
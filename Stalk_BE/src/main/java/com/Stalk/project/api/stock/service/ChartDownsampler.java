@@ -0,0 +1,76 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.api.stock.dto.ChartDataPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling of a price series.
+ * The series is split into buckets and from each bucket the point forming the largest triangle with
+ * the previously kept point and the average of the next bucket is kept, so peaks, troughs and the
+ * overall shape survive while the point count follows the chart width. First and last points are kept.
+ */
+public final class ChartDownsampler {
+
+    private ChartDownsampler() {
+    }
+
+    /**
+     * @param points    chart points, oldest first; trading days are treated as evenly spaced
+     * @param maxPoints maximum number of points to return, at least 3
+     * @return the points themselves if there are no more than {@code maxPoints}, otherwise a subset of them
+     */
+    public static List<ChartDataPoint> lttb(List<ChartDataPoint> points, int maxPoints) {
+        int size = points.size();
+        if (maxPoints < 3) {
+            throw new IllegalArgumentException("maxPoints must be at least 3: " + maxPoints);
+        }
+        if (size <= maxPoints) {
+            return points;
+        }
+
+        double[] closes = new double[size];
+        for (int i = 0; i < size; i++) {
+            closes[i] = points.get(i).close();
+        }
+
+        List<ChartDataPoint> sampled = new ArrayList<>(maxPoints);
+        sampled.add(points.get(0));
+        // Points between the first and last are split into maxPoints - 2 buckets
+        double bucketSize = (double) (size - 2) / (maxPoints - 2);
+        int kept = 0;
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+
+            // Average of the next bucket; the last point for the final bucket
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += i;
+                averageY += closes[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            averageX /= nextCount;
+            averageY /= nextCount;
+
+            double keptY = closes[kept];
+            double largestArea = -1;
+            int selected = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((kept - averageX) * (closes[i] - keptY) - (kept - i) * (averageY - keptY));
+                if (area > largestArea) {
+                    largestArea = area;
+                    selected = i;
+                }
+            }
+            sampled.add(points.get(selected));
+            kept = selected;
+        }
+        sampled.add(points.get(size - 1));
+        return sampled;
+    }
+}
@@ -0,0 +1,88 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.api.stock.dto.ChartDataPoint;
+import com.Stalk.project.api.stock.dto.KisStockInfo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Daily price charts downsampled on the server to at most the number of points the client can draw.
+ * Results are cached per ticker, period and resolution and reused while the underlying daily series
+ * is unchanged, so a chart costs one LTTB pass per new trading day (or intraday refresh).
+ */
+@Service
+public class ChartSeriesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChartSeriesService.class);
+
+    @Autowired
+    private KisApiService kisApiService;
+
+    private final Cache<String, CachedChart> charts = Caffeine.newBuilder()
+        .maximumSize(2_000)
+        .expireAfterAccess(Duration.ofMinutes(30))
+        .build();
+
+    /**
+     * Downsampled chart of the last {@code periodDays} calendar days, oldest first
+     * @return chart points, or an empty list if no price history is available
+     */
+    public Mono<List<ChartDataPoint>> getChart(String ticker, int periodDays, int maxPoints) {
+        return kisApiService.getHistoricalPricesAsync(ticker, periodDays).map(bars -> {
+            if (bars.isEmpty()) {
+                return List.<ChartDataPoint>of();
+            }
+            String key = ticker + "|" + periodDays + "|" + maxPoints;
+            String version = versionOf(bars);
+            CachedChart cached = charts.getIfPresent(key);
+            if (cached != null && cached.version().equals(version)) {
+                return cached.points();
+            }
+
+            List<ChartDataPoint> points = ChartDownsampler.lttb(toChartPoints(bars), maxPoints);
+            logger.debug("Downsampled {} bars of {} to {} chart points", bars.size(), ticker, points.size());
+            charts.put(key, new CachedChart(version, points));
+            return points;
+        });
+    }
+
+    private static List<ChartDataPoint> toChartPoints(List<KisStockInfo> bars) {
+        List<ChartDataPoint> points = new ArrayList<>(bars.size());
+        for (KisStockInfo bar : bars) {
+            points.add(new ChartDataPoint(bar.getDate(), parseNumber(bar.getClosePrice()), (long) parseNumber(bar.getVolume())));
+        }
+        return List.copyOf(points);
+    }
+
+    /**
+     * Identifies the daily series a chart was built from: its range, length and latest close
+     */
+    private static String versionOf(List<KisStockInfo> bars) {
+        KisStockInfo first = bars.get(0);
+        KisStockInfo last = bars.get(bars.size() - 1);
+        return first.getDate() + "|" + last.getDate() + "|" + bars.size() + "|" + last.getClosePrice() + "|" + last.getVolume();
+    }
+
+    private static double parseNumber(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value.replace(",", "").trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private record CachedChart(String version, List<ChartDataPoint> points) {
+    }
+}
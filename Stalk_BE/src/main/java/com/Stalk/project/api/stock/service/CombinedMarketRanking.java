@@ -0,0 +1,115 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.api.stock.dto.KrxRankingStock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * KOSPI + KOSDAQ rankings over one pair of market snapshots.
+ * The combined order of each ranking is a two-way merge of the per-market orders, which are already
+ * sorted. The merge is lazy: it only advances as far as the longest top-N requested so far, and the
+ * merged prefix is kept, so repeated combined boards cost a slice of the merged index. Ties keep
+ * KOSPI rows ahead of KOSDAQ rows. With an issue filter the rankings only cover the matching issues
+ * (e.g. the ETF board); each per-market order is filtered once, without re-sorting.
+ */
+public class CombinedMarketRanking {
+
+    private final MarketSnapshot kospi;
+    private final MarketSnapshot kosdaq;
+    // null to rank every issue
+    private final BiPredicate<String, String> issueFilter;
+    private final MergedOrder[] merged = new MergedOrder[MarketSnapshot.SortKey.values().length];
+
+    public CombinedMarketRanking(MarketSnapshot kospi, MarketSnapshot kosdaq) {
+        this(kospi, kosdaq, null);
+    }
+
+    /**
+     * @param issueFilter tested with the ticker and name of each issue
+     */
+    public CombinedMarketRanking(MarketSnapshot kospi, MarketSnapshot kosdaq, BiPredicate<String, String> issueFilter) {
+        this.kospi = kospi;
+        this.kosdaq = kosdaq;
+        this.issueFilter = issueFilter;
+    }
+
+    /**
+     * @return whether this ranking was built from exactly these snapshots
+     */
+    public boolean covers(MarketSnapshot kospiSnapshot, MarketSnapshot kosdaqSnapshot) {
+        return kospi == kospiSnapshot && kosdaq == kosdaqSnapshot;
+    }
+
+    /**
+     * @return whether this ranking was built from exactly these snapshots and this issue filter
+     */
+    public boolean covers(MarketSnapshot kospiSnapshot, MarketSnapshot kosdaqSnapshot, BiPredicate<String, String> filter) {
+        return covers(kospiSnapshot, kosdaqSnapshot) && issueFilter == filter;
+    }
+
+    /**
+     * Top {@code limit} stocks of both markets for the given ranking, ranked from 1
+     */
+    public List<KrxRankingStock> top(MarketSnapshot.SortKey sortKey, int limit) {
+        MergedOrder order;
+        synchronized (this) {
+            order = merged[sortKey.ordinal()];
+            if (order == null) {
+                order = new MergedOrder(sortKey);
+                merged[sortKey.ordinal()] = order;
+            }
+        }
+        return order.top(limit);
+    }
+
+    /**
+     * Merged prefix of one ranking. Entries are row numbers; KOSDAQ rows are stored as {@code ~row}.
+     */
+    private final class MergedOrder {
+        private final MarketSnapshot.SortKey sortKey;
+        private final int[] kospiOrder;
+        private final int[] kosdaqOrder;
+        private final int[] entries;
+        private int length;
+        private int kospiPosition;
+        private int kosdaqPosition;
+
+        private MergedOrder(MarketSnapshot.SortKey sortKey) {
+            this.sortKey = sortKey;
+            this.kospiOrder = issueFilter == null ? kospi.order(sortKey) : kospi.order(sortKey, issueFilter);
+            this.kosdaqOrder = issueFilter == null ? kosdaq.order(sortKey) : kosdaq.order(sortKey, issueFilter);
+            this.entries = new int[kospiOrder.length + kosdaqOrder.length];
+        }
+
+        private List<KrxRankingStock> top(int limit) {
+            int actualLimit = Math.max(0, Math.min(limit, entries.length));
+            synchronized (this) {
+                advanceTo(actualLimit);
+            }
+
+            List<KrxRankingStock> rankings = new ArrayList<>(actualLimit);
+            for (int i = 0; i < actualLimit; i++) {
+                int entry = entries[i];
+                rankings.add(entry >= 0 ? kospi.rankingRow(entry, i + 1) : kosdaq.rankingRow(~entry, i + 1));
+            }
+            return rankings;
+        }
+
+        private void advanceTo(int target) {
+            while (length < target) {
+                boolean takeKospi;
+                if (kospiPosition == kospiOrder.length) {
+                    takeKospi = false;
+                } else if (kosdaqPosition == kosdaqOrder.length) {
+                    takeKospi = true;
+                } else {
+                    takeKospi = MarketSnapshot.compareRows(sortKey, kospi, kospiOrder[kospiPosition],
+                        kosdaq, kosdaqOrder[kosdaqPosition]) <= 0;
+                }
+                entries[length++] = takeKospi ? kospiOrder[kospiPosition++] : ~kosdaqOrder[kosdaqPosition++];
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.api.stock.dto.KrxStockInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local store of full-market daily bars, one binary file per market segment and trading date.
+ * A day downloaded from the KRX daily trading API is written once and then serves every ticker,
+ * so historical price queries become range reads over memory-mapped files.
+ *
+ * File layout (big endian):
+ *   header  : magic, version, row count, name block offset
+ *   records : fixed-width rows sorted by ticker (binary searchable)
+ *   names   : UTF-8 company names referenced by offset/length from the records
+ */
+@Service
+public class DailyBarStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyBarStore.class);
+
+    private static final int MAGIC = 0x4B445942; // "KDYB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int TICKER_BYTES = 12;
+    // ticker + name offset/length + 8 long columns + change rate
+    private static final int RECORD_SIZE = TICKER_BYTES + 4 + 4 + 8 * 8 + 8;
+    private static final String FILE_SUFFIX = ".bars";
+
+    @Value("${krx.daily-bar-store.dir:./data/krx-daily-bars}")
+    private String storeDir;
+
+    // Mapped day files keyed by "segment/yyyyMMdd"; the OS page cache holds the data, not the heap
+    private final Map<String, ByteBuffer> mappedDays = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the given trading date has already been stored (including empty non-trading days)
+     */
+    public boolean hasDay(String segment, String tradingDate) {
+        return mappedDays.containsKey(key(segment, tradingDate)) || Files.exists(dayFile(segment, tradingDate));
+    }
+
+    /**
+     * Read one ticker's bar for a stored trading date
+     * @return bar, or null if the day is not stored or the ticker did not trade that day
+     */
+    public KrxStockInfo readBar(String segment, String tradingDate, String ticker) {
+        ByteBuffer day = mapDay(segment, tradingDate);
+        if (day == null) {
+            return null;
+        }
+        int row = findRow(day, ticker);
+        return row >= 0 ? toKrxStockInfo(day, row, tradingDate) : null;
+    }
+
+    /**
+     * Persist a full-market day. The file is written to a temp file and moved into place,
+     * so concurrent readers never see a partial day.
+     */
+    public void writeDay(String segment, String tradingDate, DayBuilder day) {
+        Path target = dayFile(segment, tradingDate);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), tradingDate, ".tmp");
+            Files.write(temp, day.toBytes());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            mappedDays.remove(key(segment, tradingDate));
+            logger.info("Stored {} daily bars for {} {}", day.size(), segment, tradingDate);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store daily bars for " + segment + " " + tradingDate + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static DayBuilder dayBuilder() {
+        return new DayBuilder();
+    }
+
+    private ByteBuffer mapDay(String segment, String tradingDate) {
+        String key = key(segment, tradingDate);
+        ByteBuffer day = mappedDays.get(key);
+        if (day != null) {
+            return day;
+        }
+        Path file = dayFile(segment, tradingDate);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                logger.warn("Ignoring unreadable daily bar file: {}", file);
+                return null;
+            }
+            ByteBuffer existing = mappedDays.putIfAbsent(key, mapped);
+            return existing != null ? existing : mapped;
+        } catch (IOException e) {
+            logger.warn("Failed to map daily bar file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Binary search over the ticker-sorted records
+     */
+    private int findRow(ByteBuffer day, String ticker) {
+        byte[] target = tickerBytes(ticker);
+        byte[] candidate = new byte[TICKER_BYTES];
+        int lo = 0;
+        int hi = day.getInt(8) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            day.get(HEADER_SIZE + mid * RECORD_SIZE, candidate);
+            int cmp = Arrays.compareUnsigned(candidate, target);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private KrxStockInfo toKrxStockInfo(ByteBuffer day, int row, String tradingDate) {
+        int offset = HEADER_SIZE + row * RECORD_SIZE;
+        byte[] tickerBytes = new byte[TICKER_BYTES];
+        day.get(offset, tickerBytes);
+        int nameOffset = day.getInt(offset + TICKER_BYTES);
+        int nameLength = day.getInt(offset + TICKER_BYTES + 4);
+        byte[] nameBytes = new byte[nameLength];
+        day.get(day.getInt(12) + nameOffset, nameBytes);
+
+        int column = offset + TICKER_BYTES + 8;
+        KrxStockInfo stockInfo = new KrxStockInfo();
+        stockInfo.setTicker(new String(tickerBytes, StandardCharsets.US_ASCII).trim());
+        stockInfo.setName(new String(nameBytes, StandardCharsets.UTF_8));
+        stockInfo.setTradeDate(tradingDate);
+        stockInfo.setClosePrice(Long.toString(day.getLong(column)));
+        stockInfo.setPriceChange(Long.toString(day.getLong(column + 8)));
+        stockInfo.setOpenPrice(Long.toString(day.getLong(column + 16)));
+        stockInfo.setHighPrice(Long.toString(day.getLong(column + 24)));
+        stockInfo.setLowPrice(Long.toString(day.getLong(column + 32)));
+        stockInfo.setVolume(Long.toString(day.getLong(column + 40)));
+        stockInfo.setTradeValue(Long.toString(day.getLong(column + 48)));
+        stockInfo.setMarketCap(Long.toString(day.getLong(column + 56)));
+        stockInfo.setChangeRate(String.format(Locale.US, "%.2f", day.getDouble(column + 64)));
+        return stockInfo;
+    }
+
+    private Path dayFile(String segment, String tradingDate) {
+        return Paths.get(storeDir, segment, tradingDate + FILE_SUFFIX).toAbsolutePath().normalize();
+    }
+
+    private static String key(String segment, String tradingDate) {
+        return segment + "/" + tradingDate;
+    }
+
+    private static byte[] tickerBytes(String ticker) {
+        byte[] bytes = new byte[TICKER_BYTES];
+        Arrays.fill(bytes, (byte) ' ');
+        byte[] raw = ticker.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(raw, 0, bytes, 0, Math.min(raw.length, TICKER_BYTES));
+        return bytes;
+    }
+
+    /**
+     * Collects the rows of one trading day in response order and encodes them sorted by ticker
+     */
+    public static class DayBuilder {
+        private final List<Row> rows = new ArrayList<>();
+
+        private DayBuilder() {
+        }
+
+        public DayBuilder add(String ticker, String name, long closePrice, long priceChange, double changeRate,
+                              long openPrice, long highPrice, long lowPrice,
+                              long volume, long tradeValue, long marketCap) {
+            rows.add(new Row(tickerBytes(ticker), name.getBytes(StandardCharsets.UTF_8),
+                new long[] {closePrice, priceChange, openPrice, highPrice, lowPrice, volume, tradeValue, marketCap},
+                changeRate));
+            return this;
+        }
+
+        public int size() {
+            return rows.size();
+        }
+
+        private byte[] toBytes() {
+            rows.sort((a, b) -> Arrays.compareUnsigned(a.ticker, b.ticker));
+
+            int nameBlockSize = 0;
+            for (Row row : rows) {
+                nameBlockSize += row.name.length;
+            }
+            int nameBlockOffset = HEADER_SIZE + rows.size() * RECORD_SIZE;
+            ByteBuffer buffer = ByteBuffer.allocate(nameBlockOffset + nameBlockSize).order(ByteOrder.BIG_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(rows.size()).putInt(nameBlockOffset);
+
+            int nameOffset = 0;
+            for (Row row : rows) {
+                buffer.put(row.ticker);
+                buffer.putInt(nameOffset).putInt(row.name.length);
+                for (long value : row.columns) {
+                    buffer.putLong(value);
+                }
+                buffer.putDouble(row.changeRate);
+                nameOffset += row.name.length;
+            }
+            for (Row row : rows) {
+                buffer.put(row.name);
+            }
+            return buffer.array();
+        }
+
+        private static class Row {
+            private final byte[] ticker;
+            private final byte[] name;
+            private final long[] columns;
+            private final double changeRate;
+
+            private Row(byte[] ticker, byte[] name, long[] columns, double changeRate) {
+                this.ticker = ticker;
+                this.name = name;
+                this.columns = columns;
+                this.changeRate = changeRate;
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.Stalk.project.api.stock.service;
+
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+/**
+ * ETF/ETN membership used to pick the ETF board out of the market snapshots, tested by ticker and name.
+ * One instance is built per KRX ETF listing load. ETNs are not in that listing and are recognised by the
+ * "ETN" suffix of their KRX names. Until a listing has been loaded, {@link #BY_NAME} falls back to the
+ * issuer brand heuristic.
+ */
+final class EtfMembership implements BiPredicate<String, String> {
+
+    static final EtfMembership BY_NAME = new EtfMembership(null);
+
+    private static final String[] BRAND_PREFIXES = {
+        "KODEX", "TIGER", "KINDEX", "ARIRANG", "HANARO", "KOSEF", "ACE ", "SOL ", "KBSTAR", "SMART", "FOCUS", "MASTER"
+    };
+
+    // null when only the name heuristic is available
+    private final Set<String> etfTickers;
+
+    private EtfMembership(Set<String> etfTickers) {
+        this.etfTickers = etfTickers;
+    }
+
+    static EtfMembership of(Set<String> etfTickers) {
+        return new EtfMembership(Set.copyOf(etfTickers));
+    }
+
+    @Override
+    public boolean test(String ticker, String name) {
+        if (etfTickers == null) {
+            return looksLikeEtf(name);
+        }
+        return etfTickers.contains(ticker) || (name != null && name.toUpperCase().endsWith("ETN"));
+    }
+
+    /**
+     * @return whether membership comes from the KRX ETF listing rather than the name heuristic
+     */
+    boolean isListed() {
+        return etfTickers != null;
+    }
+
+    int size() {
+        return etfTickers != null ? etfTickers.size() : 0;
+    }
+
+    private static boolean looksLikeEtf(String name) {
+        if (name == null) {
+            return false;
+        }
+        String upper = name.toUpperCase();
+        if (upper.contains("ETF") || upper.endsWith("ETN") || upper.contains("인버스") || upper.contains("레버리지")) {
+            return true;
+        }
+        for (String prefix : BRAND_PREFIXES) {
+            if (upper.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,277 @@
+package com.Stalk.project.api.stock.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Per-ticker daily price series cache.
+ * Keeps one date-sorted series per key covering the widest range fetched so far; any period inside
+ * it is returned as a view, and a longer period or a new trading day only fetches the missing days
+ * before or after the covered range. Replaces caching a separate copy per requested period.
+ *
+ * @param <T> daily bar type, identified by its yyyyMMdd trade date
+ */
+public class HistoricalSeriesCache<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoricalSeriesCache.class);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * Fetches the bars of one key for an inclusive date range; throws if the upstream call failed,
+     * so a failure is not recorded as an empty range
+     */
+    @FunctionalInterface
+    public interface RangeFetcher<T> {
+        List<T> fetch(LocalDate from, LocalDate to);
+    }
+
+    /**
+     * Non-blocking {@link RangeFetcher}; errors if the upstream call failed
+     */
+    @FunctionalInterface
+    public interface AsyncRangeFetcher<T> {
+        Mono<List<T>> fetch(LocalDate from, LocalDate to);
+    }
+
+    private final String name;
+    private final Function<T, String> dateOf;
+    private final int maxSeries;
+    private final long tailRefreshMillis;
+
+    private final Map<String, Series<T>> series = new ConcurrentHashMap<>();
+    // Concurrent misses for the same key wait for one upstream fetch
+    private final RequestCoalescer requestCoalescer;
+    // In-flight non-blocking fetches, shared by concurrent misses for the same key
+    private final Map<String, Mono<Series<T>>> asyncLoads = new ConcurrentHashMap<>();
+
+    /**
+     * @param name              cache name for logging
+     * @param dateOf            trade date (yyyyMMdd) of a bar
+     * @param maxSeries         maximum number of keys kept; least recently used series are evicted
+     * @param tailRefreshMillis how long a range ending today is reused before today's bar is fetched again
+     * @param loadTimeout       how long a caller waits for another caller's in-flight fetch of the same key
+     */
+    public HistoricalSeriesCache(String name, Function<T, String> dateOf, int maxSeries, long tailRefreshMillis,
+                                 Duration loadTimeout) {
+        this.name = name;
+        this.dateOf = dateOf;
+        this.maxSeries = maxSeries;
+        this.tailRefreshMillis = tailRefreshMillis;
+        this.requestCoalescer = new RequestCoalescer(loadTimeout);
+    }
+
+    /**
+     * Bars of {@code key} between {@code from} and {@code to} (inclusive), oldest first.
+     * The returned list is a read-only view over the cached series.
+     */
+    public List<T> get(String key, LocalDate from, LocalDate to, RangeFetcher<T> fetcher) {
+        Series<T> current = series.get(key);
+        while (current == null || !current.covers(from, to, tailRefreshMillis)) {
+            // A joined fetch may have been for a narrower range, so coverage is checked again afterwards
+            current = requestCoalescer.execute(key, () -> {
+                Series<T> latest = series.get(key);
+                if (latest == null || !latest.covers(from, to, tailRefreshMillis)) {
+                    latest = extend(key, latest, from, to, fetcher);
+                    series.put(key, latest);
+                    evictIfNeeded();
+                }
+                return latest;
+            });
+        }
+        current.lastAccess = System.currentTimeMillis();
+        return current.view(from.format(DATE_FORMAT), to.format(DATE_FORMAT), dateOf);
+    }
+
+    /**
+     * Non-blocking {@link #get}: a covered range completes immediately, a miss subscribes to one
+     * shared fetch per key without holding a thread while the upstream responds
+     */
+    public Mono<List<T>> getAsync(String key, LocalDate from, LocalDate to, AsyncRangeFetcher<T> fetcher) {
+        return Mono.defer(() -> {
+            Series<T> current = series.get(key);
+            if (current != null && current.covers(from, to, tailRefreshMillis)) {
+                current.lastAccess = System.currentTimeMillis();
+                return Mono.just(current.view(from.format(DATE_FORMAT), to.format(DATE_FORMAT), dateOf));
+            }
+            // A joined fetch may have been for a narrower range, so coverage is checked again afterwards
+            return asyncLoads.computeIfAbsent(key, k -> loadAsync(k, from, to, fetcher))
+                .flatMap(loaded -> getAsync(key, from, to, fetcher));
+        });
+    }
+
+    /**
+     * One shared fetch; the cached Mono keeps running when a subscriber cancels, so the result is
+     * still stored for the next request
+     */
+    private Mono<Series<T>> loadAsync(String key, LocalDate from, LocalDate to, AsyncRangeFetcher<T> fetcher) {
+        return Mono.defer(() -> {
+                Series<T> latest = series.get(key);
+                if (latest != null && latest.covers(from, to, tailRefreshMillis)) {
+                    return Mono.just(latest);
+                }
+                return extendAsync(key, latest, from, to, fetcher).doOnNext(extended -> {
+                    series.put(key, extended);
+                    evictIfNeeded();
+                });
+            })
+            // Released before the result reaches the joined callers, so a caller that needs a wider
+            // range starts a new fetch instead of rejoining this one
+            .doOnTerminate(() -> asyncLoads.remove(key))
+            .cache();
+    }
+
+    /**
+     * Non-blocking {@link #extend}; the days before and after the covered range are fetched concurrently
+     */
+    private Mono<Series<T>> extendAsync(String key, Series<T> current, LocalDate from, LocalDate to,
+                                        AsyncRangeFetcher<T> fetcher) {
+        if (current == null) {
+            return fetcher.fetch(from, to).map(bars -> {
+                logger.info("{}: loaded {} bars for {} ({} ~ {})", name, bars.size(), key, from, to);
+                return new Series<>(merge(Collections.emptyList(), bars), from, to, System.currentTimeMillis());
+            });
+        }
+
+        boolean extendHead = from.isBefore(current.from);
+        boolean extendTail = to.isAfter(current.to) || current.tailExpired(to, tailRefreshMillis);
+        LocalDate coveredFrom = extendHead ? from : current.from;
+        LocalDate coveredTo = to.isAfter(current.to) ? to : current.to;
+        Mono<List<T>> head = extendHead
+            ? fetcher.fetch(from, current.from.minusDays(1))
+            : Mono.just(Collections.emptyList());
+        // The last covered day is fetched again since it may have been an intraday bar
+        Mono<List<T>> tail = extendTail
+            ? fetcher.fetch(current.to, coveredTo)
+            : Mono.just(Collections.emptyList());
+
+        return Mono.zip(head, tail).map(fetched -> {
+            List<T> bars = new ArrayList<>(fetched.getT1());
+            bars.addAll(fetched.getT2());
+            long tailFetchedAt = extendTail ? System.currentTimeMillis() : current.fetchedAt;
+            logger.info("{}: extended {} with {} bars, now covering {} ~ {}", name, key, bars.size(), coveredFrom, coveredTo);
+            return new Series<>(merge(current.bars, bars), coveredFrom, coveredTo, tailFetchedAt);
+        });
+    }
+
+    public void clear() {
+        series.clear();
+        logger.info("Cleared historical series cache: {}", name);
+    }
+
+    public int size() {
+        return series.size();
+    }
+
+    /**
+     * Fetch only the days outside the covered range and merge them into a new series
+     */
+    private Series<T> extend(String key, Series<T> current, LocalDate from, LocalDate to, RangeFetcher<T> fetcher) {
+        if (current == null) {
+            List<T> bars = fetcher.fetch(from, to);
+            logger.info("{}: loaded {} bars for {} ({} ~ {})", name, bars.size(), key, from, to);
+            return new Series<>(merge(Collections.emptyList(), bars), from, to, System.currentTimeMillis());
+        }
+
+        List<T> fetched = new ArrayList<>();
+        LocalDate coveredFrom = current.from;
+        LocalDate coveredTo = current.to;
+        long tailFetchedAt = current.fetchedAt;
+
+        if (from.isBefore(coveredFrom)) {
+            fetched.addAll(fetcher.fetch(from, coveredFrom.minusDays(1)));
+            coveredFrom = from;
+        }
+        if (to.isAfter(coveredTo) || current.tailExpired(to, tailRefreshMillis)) {
+            // The last covered day is fetched again since it may have been an intraday bar
+            LocalDate tailTo = to.isAfter(coveredTo) ? to : coveredTo;
+            fetched.addAll(fetcher.fetch(coveredTo, tailTo));
+            coveredTo = tailTo;
+            tailFetchedAt = System.currentTimeMillis();
+        }
+
+        logger.info("{}: extended {} with {} bars, now covering {} ~ {}", name, key, fetched.size(), coveredFrom, coveredTo);
+        return new Series<>(merge(current.bars, fetched), coveredFrom, coveredTo, tailFetchedAt);
+    }
+
+    /**
+     * Merge by trade date; fetched bars replace cached bars of the same date
+     */
+    private List<T> merge(List<T> cached, List<T> fetched) {
+        TreeMap<String, T> byDate = new TreeMap<>();
+        for (T bar : cached) {
+            byDate.put(dateOf.apply(bar), bar);
+        }
+        for (T bar : fetched) {
+            String date = dateOf.apply(bar);
+            if (date != null && !date.isEmpty()) {
+                byDate.put(date, bar);
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(byDate.values()));
+    }
+
+    private void evictIfNeeded() {
+        while (series.size() > maxSeries) {
+            series.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+                .ifPresent(eldest -> series.remove(eldest.getKey(), eldest.getValue()));
+        }
+    }
+
+    /**
+     * Immutable date-sorted bars with the date range they were fetched for
+     */
+    private static class Series<T> {
+        private final List<T> bars;
+        private final LocalDate from;
+        private final LocalDate to;
+        // When the last covered day was fetched
+        private final long fetchedAt;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private Series(List<T> bars, LocalDate from, LocalDate to, long fetchedAt) {
+            this.bars = bars;
+            this.from = from;
+            this.to = to;
+            this.fetchedAt = fetchedAt;
+        }
+
+        private boolean covers(LocalDate rangeFrom, LocalDate rangeTo, long tailRefreshMillis) {
+            return !rangeFrom.isBefore(from) && !rangeTo.isAfter(to) && !tailExpired(rangeTo, tailRefreshMillis);
+        }
+
+        /**
+         * A range reaching today is only reused for tailRefreshMillis, since today's bar is still changing
+         */
+        private boolean tailExpired(LocalDate rangeTo, long tailRefreshMillis) {
+            return !rangeTo.isBefore(LocalDate.now())
+                && !to.isBefore(LocalDate.now())
+                && System.currentTimeMillis() - fetchedAt > tailRefreshMillis;
+        }
+
+        private List<T> view(String fromDate, String toDate, Function<T, String> dateOf) {
+            int start = 0;
+            while (start < bars.size() && dateOf.apply(bars.get(start)).compareTo(fromDate) < 0) {
+                start++;
+            }
+            int end = bars.size();
+            while (end > start && dateOf.apply(bars.get(end - 1)).compareTo(toDate) > 0) {
+                end--;
+            }
+            return bars.subList(start, end);
+        }
+    }
+}
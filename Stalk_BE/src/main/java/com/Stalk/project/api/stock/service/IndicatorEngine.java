@@ -0,0 +1,615 @@
+package com.Stalk.project.api.stock.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Technical indicators (SMA, EMA, RSI, MACD, Bollinger bands) over one daily close series.
+ * Every indicator keeps its running state (window sums, smoothed averages) and appends one value per
+ * bar into a primitive column, so the whole series costs a single O(n) pass. When the price series
+ * grows by new trading days only the new bars are processed; a revised last bar (today's close
+ * during the session) is recomputed from the state saved before it. Any other change, such as KIS
+ * adjusting the earlier closes after a split or dividend, recomputes the series from its first bar.
+ */
+public class IndicatorEngine {
+
+    private static final int MAX_WINDOW = 250;
+    private static final int MAX_PERIODS_PER_KIND = 5;
+
+    /**
+     * Indicator settings; a period of 0, an empty list or a list of just 0 disables that indicator
+     */
+    public record Parameters(List<Integer> smaPeriods, List<Integer> emaPeriods, int rsiPeriod,
+                             int macdFast, int macdSlow, int macdSignal,
+                             int bollingerPeriod, double bollingerWidth) {
+
+        /**
+         * @param macd empty or [0], or fast, slow and signal periods
+         * @throws IllegalArgumentException if a period is out of range
+         */
+        public static Parameters of(List<Integer> smaPeriods, List<Integer> emaPeriods, int rsiPeriod,
+                                    List<Integer> macd, int bollingerPeriod, double bollingerWidth) {
+            List<Integer> sma = distinctPeriods("sma", smaPeriods);
+            List<Integer> ema = distinctPeriods("ema", emaPeriods);
+            if (rsiPeriod != 0) {
+                checkPeriod("rsi", rsiPeriod);
+            }
+            if (bollingerPeriod != 0) {
+                checkPeriod("bollinger", bollingerPeriod);
+                if (!(bollingerWidth > 0 && bollingerWidth <= 10)) {
+                    throw new IllegalArgumentException("bollingerWidth must be between 0 and 10");
+                }
+            }
+            if (isDisabled(macd)) {
+                return new Parameters(sma, ema, rsiPeriod, 0, 0, 0, bollingerPeriod, bollingerWidth);
+            }
+            if (macd.size() != 3) {
+                throw new IllegalArgumentException("macd takes fast, slow and signal periods");
+            }
+            for (int period : macd) {
+                checkPeriod("macd", period);
+            }
+            if (macd.get(0) >= macd.get(1)) {
+                throw new IllegalArgumentException("macd fast period must be shorter than the slow period");
+            }
+            return new Parameters(sma, ema, rsiPeriod, macd.get(0), macd.get(1), macd.get(2), bollingerPeriod, bollingerWidth);
+        }
+
+        /**
+         * Canonical form, used to cache one engine per ticker and settings
+         */
+        public String key() {
+            return "sma" + smaPeriods + ";ema" + emaPeriods + ";rsi" + rsiPeriod
+                + ";macd" + macdFast + "," + macdSlow + "," + macdSignal
+                + ";bb" + bollingerPeriod + "," + bollingerWidth;
+        }
+
+        /**
+         * Bars needed before the first indicator value is fully warmed up
+         */
+        public int warmupBars() {
+            int bars = Math.max(rsiPeriod + 1, bollingerPeriod);
+            bars = Math.max(bars, macdSlow + macdSignal);
+            for (int period : smaPeriods) {
+                bars = Math.max(bars, period);
+            }
+            for (int period : emaPeriods) {
+                bars = Math.max(bars, period);
+            }
+            return bars;
+        }
+
+        private static List<Integer> distinctPeriods(String name, List<Integer> periods) {
+            if (isDisabled(periods)) {
+                return List.of();
+            }
+            List<Integer> distinct = periods.stream().distinct().sorted().toList();
+            if (distinct.size() > MAX_PERIODS_PER_KIND) {
+                throw new IllegalArgumentException("At most " + MAX_PERIODS_PER_KIND + " " + name + " periods");
+            }
+            distinct.forEach(period -> checkPeriod(name, period));
+            return distinct;
+        }
+
+        /**
+         * A single 0 turns a list-valued indicator off, like a period of 0 does for the others
+         */
+        private static boolean isDisabled(List<Integer> periods) {
+            return periods == null || periods.isEmpty() || periods.equals(List.of(0));
+        }
+
+        private static void checkPeriod(String name, int period) {
+            if (period < 1 || period > MAX_WINDOW) {
+                throw new IllegalArgumentException(name + " period must be between 1 and " + MAX_WINDOW + ": " + period);
+            }
+        }
+    }
+
+    private final Parameters parameters;
+    private final List<String> dates = new ArrayList<>();
+    private final Column closes = new Column();
+    private List<Indicator> indicators = new ArrayList<>();
+    // Indicator states before the last bar was added; empty until a bar was processed
+    private List<Indicator> beforeLastBar = List.of();
+
+    public IndicatorEngine(Parameters parameters) {
+        this.parameters = parameters;
+        reset();
+    }
+
+    /**
+     * Bring the indicators up to date with the series.
+     * @param barDates   trade dates (yyyyMMdd), oldest first
+     * @param barCloses  closing prices of the same bars
+     * @return number of bars processed; the series length after a full recomputation
+     */
+    public synchronized int update(List<String> barDates, double[] barCloses) {
+        int start = resumeIndex(barDates, barCloses);
+        if (start < 0) {
+            reset();
+            start = 0;
+        }
+        int last = barDates.size() - 1;
+        for (int i = start; i <= last; i++) {
+            if (i == last) {
+                beforeLastBar = copyOf(indicators);
+            }
+            dates.add(barDates.get(i));
+            closes.add(barCloses[i]);
+            for (Indicator indicator : indicators) {
+                indicator.add(barCloses[i]);
+            }
+        }
+        return barDates.size() - start;
+    }
+
+    /**
+     * Dates, closes and indicator values from {@code fromDate} (yyyyMMdd) on. Values are rounded to
+     * two decimals; positions where an indicator is still warming up are null.
+     */
+    public synchronized Map<String, Object> toResponse(String fromDate) {
+        int from = 0;
+        while (from < dates.size() && dates.get(from).compareTo(fromDate) < 0) {
+            from++;
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Indicator indicator : indicators) {
+            indicator.writeTo(values, from);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("dates", new ArrayList<>(dates.subList(from, dates.size())));
+        response.put("close", closes.slice(from));
+        response.put("indicators", values);
+        return response;
+    }
+
+    /**
+     * @return index of the first bar of the series still to process, or -1 if the series must be
+     *         recomputed from its first bar
+     */
+    private int resumeIndex(List<String> barDates, double[] barCloses) {
+        int count = dates.size();
+        if (count == 0 || barDates.isEmpty() || barDates.get(0).compareTo(dates.get(0)) < 0) {
+            return -1;
+        }
+        String lastDate = dates.get(count - 1);
+        int index = barDates.size() - 1;
+        while (index >= 0 && barDates.get(index).compareTo(lastDate) > 0) {
+            index--;
+        }
+        if (index < 0 || !barDates.get(index).equals(lastDate)) {
+            return -1;
+        }
+        // Closes are adjusted: a split or dividend rewrites every earlier close while the last bar
+        // may still match, so the first overlapping bar has to match as well
+        int firstOverlap = Collections.binarySearch(dates, barDates.get(0));
+        if (firstOverlap < 0 || (firstOverlap < count - 1 && barCloses[0] != closes.get(firstOverlap))) {
+            return -1;
+        }
+        if (barCloses[index] == closes.get(count - 1)) {
+            return index + 1;
+        }
+        if (beforeLastBar.isEmpty()) {
+            return -1;
+        }
+        // Only the last processed bar changed: restore the state before it and process it again
+        indicators = beforeLastBar;
+        beforeLastBar = List.of();
+        dates.remove(count - 1);
+        closes.truncate(count - 1);
+        for (Indicator indicator : indicators) {
+            indicator.truncate(count - 1);
+        }
+        return index;
+    }
+
+    private void reset() {
+        dates.clear();
+        closes.truncate(0);
+        indicators = new ArrayList<>();
+        for (int period : parameters.smaPeriods()) {
+            indicators.add(new Sma("sma" + period, new Window(period), new Column()));
+        }
+        for (int period : parameters.emaPeriods()) {
+            indicators.add(new EmaIndicator("ema" + period, new Ema(period), new Column()));
+        }
+        if (parameters.rsiPeriod() > 0) {
+            indicators.add(new Rsi("rsi" + parameters.rsiPeriod(), parameters.rsiPeriod(), new Column()));
+        }
+        if (parameters.macdFast() > 0) {
+            indicators.add(new Macd(new Ema(parameters.macdFast()), new Ema(parameters.macdSlow()),
+                new Ema(parameters.macdSignal()), new Column(), new Column(), new Column()));
+        }
+        if (parameters.bollingerPeriod() > 0) {
+            indicators.add(new Bollinger(new Window(parameters.bollingerPeriod()), parameters.bollingerWidth(),
+                new Column(), new Column(), new Column()));
+        }
+        beforeLastBar = List.of();
+    }
+
+    private static List<Indicator> copyOf(List<Indicator> indicators) {
+        List<Indicator> copies = new ArrayList<>(indicators.size());
+        for (Indicator indicator : indicators) {
+            copies.add(indicator.copy());
+        }
+        return copies;
+    }
+
+    /**
+     * Growable primitive column of indicator values; NaN while an indicator is warming up
+     */
+    private static final class Column {
+        private double[] values = new double[64];
+        private int length;
+
+        private void add(double value) {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, length * 2);
+            }
+            values[length++] = value;
+        }
+
+        private double get(int index) {
+            return values[index];
+        }
+
+        private void truncate(int newLength) {
+            length = Math.min(length, newLength);
+        }
+
+        private List<Double> slice(int from) {
+            List<Double> slice = new ArrayList<>(Math.max(0, length - from));
+            for (int i = from; i < length; i++) {
+                double value = values[i];
+                slice.add(Double.isNaN(value) ? null : Math.round(value * 100) / 100.0);
+            }
+            return slice;
+        }
+    }
+
+    /**
+     * Last {@code size} values with their running sum and sum of squares
+     */
+    private static final class Window {
+        private final double[] values;
+        private int count;
+        private int next;
+        private double sum;
+        private double sumOfSquares;
+
+        private Window(int size) {
+            this.values = new double[size];
+        }
+
+        private Window(Window other) {
+            this.values = other.values.clone();
+            this.count = other.count;
+            this.next = other.next;
+            this.sum = other.sum;
+            this.sumOfSquares = other.sumOfSquares;
+        }
+
+        private void add(double value) {
+            if (count == values.length) {
+                double dropped = values[next];
+                sum -= dropped;
+                sumOfSquares -= dropped * dropped;
+            } else {
+                count++;
+            }
+            values[next] = value;
+            next = (next + 1) % values.length;
+            sum += value;
+            sumOfSquares += value * value;
+        }
+
+        private boolean isFull() {
+            return count == values.length;
+        }
+
+        private double mean() {
+            return sum / count;
+        }
+
+        private double standardDeviation() {
+            double mean = mean();
+            return Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+        }
+    }
+
+    /**
+     * Exponential moving average seeded with the simple average of its first {@code period} values
+     */
+    private static final class Ema {
+        private final int period;
+        private final double alpha;
+        private int count;
+        private double value;
+
+        private Ema(int period) {
+            this.period = period;
+            this.alpha = 2.0 / (period + 1);
+        }
+
+        private Ema(Ema other) {
+            this.period = other.period;
+            this.alpha = other.alpha;
+            this.count = other.count;
+            this.value = other.value;
+        }
+
+        private double next(double input) {
+            count++;
+            if (count <= period) {
+                // Running mean of the seed values; becomes the first EMA value at count == period
+                value += (input - value) / count;
+                return count == period ? value : Double.NaN;
+            }
+            value += alpha * (input - value);
+            return value;
+        }
+    }
+
+    private abstract static class Indicator {
+        abstract void add(double close);
+
+        /**
+         * Copy of the running state; the output columns are shared with the original
+         */
+        abstract Indicator copy();
+
+        abstract void truncate(int length);
+
+        abstract void writeTo(Map<String, Object> values, int from);
+    }
+
+    private static final class Sma extends Indicator {
+        private final String name;
+        private final Window window;
+        private final Column out;
+
+        private Sma(String name, Window window, Column out) {
+            this.name = name;
+            this.window = window;
+            this.out = out;
+        }
+
+        @Override
+        void add(double close) {
+            window.add(close);
+            out.add(window.isFull() ? window.mean() : Double.NaN);
+        }
+
+        @Override
+        Indicator copy() {
+            return new Sma(name, new Window(window), out);
+        }
+
+        @Override
+        void truncate(int length) {
+            out.truncate(length);
+        }
+
+        @Override
+        void writeTo(Map<String, Object> values, int from) {
+            values.put(name, out.slice(from));
+        }
+    }
+
+    private static final class EmaIndicator extends Indicator {
+        private final String name;
+        private final Ema ema;
+        private final Column out;
+
+        private EmaIndicator(String name, Ema ema, Column out) {
+            this.name = name;
+            this.ema = ema;
+            this.out = out;
+        }
+
+        @Override
+        void add(double close) {
+            out.add(ema.next(close));
+        }
+
+        @Override
+        Indicator copy() {
+            return new EmaIndicator(name, new Ema(ema), out);
+        }
+
+        @Override
+        void truncate(int length) {
+            out.truncate(length);
+        }
+
+        @Override
+        void writeTo(Map<String, Object> values, int from) {
+            values.put(name, out.slice(from));
+        }
+    }
+
+    /**
+     * Wilder's RSI: simple averages of the first {@code period} gains and losses, smoothed afterwards
+     */
+    private static final class Rsi extends Indicator {
+        private final String name;
+        private final int period;
+        private final Column out;
+        private int changes = -1;
+        private double previousClose;
+        private double averageGain;
+        private double averageLoss;
+
+        private Rsi(String name, int period, Column out) {
+            this.name = name;
+            this.period = period;
+            this.out = out;
+        }
+
+        @Override
+        void add(double close) {
+            changes++;
+            if (changes == 0) {
+                previousClose = close;
+                out.add(Double.NaN);
+                return;
+            }
+            double change = close - previousClose;
+            previousClose = close;
+            double gain = Math.max(change, 0);
+            double loss = Math.max(-change, 0);
+            if (changes <= period) {
+                averageGain += (gain - averageGain) / changes;
+                averageLoss += (loss - averageLoss) / changes;
+                if (changes < period) {
+                    out.add(Double.NaN);
+                    return;
+                }
+            } else {
+                averageGain = (averageGain * (period - 1) + gain) / period;
+                averageLoss = (averageLoss * (period - 1) + loss) / period;
+            }
+            if (averageLoss == 0) {
+                out.add(averageGain == 0 ? 50 : 100);
+            } else {
+                out.add(100 - 100 / (1 + averageGain / averageLoss));
+            }
+        }
+
+        @Override
+        Indicator copy() {
+            Rsi copy = new Rsi(name, period, out);
+            copy.changes = changes;
+            copy.previousClose = previousClose;
+            copy.averageGain = averageGain;
+            copy.averageLoss = averageLoss;
+            return copy;
+        }
+
+        @Override
+        void truncate(int length) {
+            out.truncate(length);
+        }
+
+        @Override
+        void writeTo(Map<String, Object> values, int from) {
+            values.put(name, out.slice(from));
+        }
+    }
+
+    private static final class Macd extends Indicator {
+        private final Ema fast;
+        private final Ema slow;
+        private final Ema signal;
+        private final Column macdOut;
+        private final Column signalOut;
+        private final Column histogramOut;
+
+        private Macd(Ema fast, Ema slow, Ema signal, Column macdOut, Column signalOut, Column histogramOut) {
+            this.fast = fast;
+            this.slow = slow;
+            this.signal = signal;
+            this.macdOut = macdOut;
+            this.signalOut = signalOut;
+            this.histogramOut = histogramOut;
+        }
+
+        @Override
+        void add(double close) {
+            double fastValue = fast.next(close);
+            double slowValue = slow.next(close);
+            if (Double.isNaN(fastValue) || Double.isNaN(slowValue)) {
+                macdOut.add(Double.NaN);
+                signalOut.add(Double.NaN);
+                histogramOut.add(Double.NaN);
+                return;
+            }
+            double macd = fastValue - slowValue;
+            double signalValue = signal.next(macd);
+            macdOut.add(macd);
+            signalOut.add(signalValue);
+            histogramOut.add(Double.isNaN(signalValue) ? Double.NaN : macd - signalValue);
+        }
+
+        @Override
+        Indicator copy() {
+            return new Macd(new Ema(fast), new Ema(slow), new Ema(signal), macdOut, signalOut, histogramOut);
+        }
+
+        @Override
+        void truncate(int length) {
+            macdOut.truncate(length);
+            signalOut.truncate(length);
+            histogramOut.truncate(length);
+        }
+
+        @Override
+        void writeTo(Map<String, Object> values, int from) {
+            Map<String, Object> macd = new LinkedHashMap<>();
+            macd.put("macd", macdOut.slice(from));
+            macd.put("signal", signalOut.slice(from));
+            macd.put("histogram", histogramOut.slice(from));
+            values.put("macd", macd);
+        }
+    }
+
+    /**
+     * Simple moving average with bands {@code width} population standard deviations above and below
+     */
+    private static final class Bollinger extends Indicator {
+        private final Window window;
+        private final double width;
+        private final Column middleOut;
+        private final Column upperOut;
+        private final Column lowerOut;
+
+        private Bollinger(Window window, double width, Column middleOut, Column upperOut, Column lowerOut) {
+            this.window = window;
+            this.width = width;
+            this.middleOut = middleOut;
+            this.upperOut = upperOut;
+            this.lowerOut = lowerOut;
+        }
+
+        @Override
+        void add(double close) {
+            window.add(close);
+            if (!window.isFull()) {
+                middleOut.add(Double.NaN);
+                upperOut.add(Double.NaN);
+                lowerOut.add(Double.NaN);
+                return;
+            }
+            double middle = window.mean();
+            double band = width * window.standardDeviation();
+            middleOut.add(middle);
+            upperOut.add(middle + band);
+            lowerOut.add(middle - band);
+        }
+
+        @Override
+        Indicator copy() {
+            return new Bollinger(new Window(window), width, middleOut, upperOut, lowerOut);
+        }
+
+        @Override
+        void truncate(int length) {
+            middleOut.truncate(length);
+            upperOut.truncate(length);
+            lowerOut.truncate(length);
+        }
+
+        @Override
+        void writeTo(Map<String, Object> values, int from) {
+            Map<String, Object> bollinger = new LinkedHashMap<>();
+            bollinger.put("middle", middleOut.slice(from));
+            bollinger.put("upper", upperOut.slice(from));
+            bollinger.put("lower", lowerOut.slice(from));
+            values.put("bollinger", bollinger);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.Stalk.project.api.stock.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming reader for KRX/KIS JSON responses.
+ * Parses the response body token by token as the DataBuffers arrive and hands each object of the
+ * row array (OutBlock_1, output2, ...) to a handler, so the full body String and JsonNode tree are
+ * never held in memory. The handler can stop the read early, which cancels the rest of the download.
+ */
+public class JsonRowStreamReader {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Receives one row at a time. The row instance is reused, so copy out the values you need.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @return true to continue with the next row, false to stop reading the response
+         */
+        boolean onRow(JsonRow row);
+    }
+
+    /**
+     * Read rows from the first array whose top-level field name is in {@code arrayFields}.
+     * A response whose root is itself an array is read as the row array.
+     * Top-level scalar fields (e.g. KIS rt_cd / msg1) are collected into the result.
+     */
+    public Mono<Result> read(Flux<DataBuffer> body, Set<String> arrayFields, RowHandler handler) {
+        return Mono.defer(() -> {
+            ParseSession session;
+            try {
+                session = new ParseSession(jsonFactory.createNonBlockingByteArrayParser(), arrayFields, handler);
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+            return body
+                .map(buffer -> {
+                    try {
+                        return session.feed(buffer);
+                    } catch (IOException e) {
+                        throw Exceptions.propagate(e);
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .takeUntil(more -> !more)
+                .then(Mono.fromCallable(session::finish));
+        });
+    }
+
+    /**
+     * Flat view of one row object; nested values inside a row are skipped
+     */
+    public static class JsonRow {
+        private final Map<String, String> values = new HashMap<>();
+
+        public String text(String field, String defaultValue) {
+            String value = values.get(field);
+            return value != null ? value : defaultValue;
+        }
+
+        public boolean has(String field) {
+            return values.containsKey(field);
+        }
+
+        void put(String field, String value) {
+            values.put(field, value);
+        }
+
+        void clear() {
+            values.clear();
+        }
+    }
+
+    /**
+     * Summary of a streamed response
+     */
+    public static class Result {
+        private final Map<String, String> header;
+        private final List<String> topLevelFields;
+        private final String arrayField;
+        private final int rowCount;
+        private final boolean stoppedEarly;
+        private final boolean empty;
+
+        Result(Map<String, String> header, List<String> topLevelFields, String arrayField,
+               int rowCount, boolean stoppedEarly, boolean empty) {
+            this.header = header;
+            this.topLevelFields = topLevelFields;
+            this.arrayField = arrayField;
+            this.rowCount = rowCount;
+            this.stoppedEarly = stoppedEarly;
+            this.empty = empty;
+        }
+
+        /**
+         * Top-level scalar value, e.g. KIS "rt_cd"
+         */
+        public String header(String field, String defaultValue) {
+            String value = header.get(field);
+            return value != null ? value : defaultValue;
+        }
+
+        public List<String> getTopLevelFields() {
+            return topLevelFields;
+        }
+
+        /**
+         * Name of the array the rows were read from, or null if no matching array was found
+         */
+        public String getArrayField() {
+            return arrayField;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public boolean isStoppedEarly() {
+            return stoppedEarly;
+        }
+
+        /**
+         * True if the response body contained no JSON at all
+         */
+        public boolean isEmpty() {
+            return empty;
+        }
+    }
+
+    /**
+     * Parser state for one response; the non-blocking parser keeps its position across buffers
+     */
+    private static class ParseSession {
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+        private final Set<String> arrayFields;
+        private final RowHandler handler;
+
+        private final Map<String, String> header = new LinkedHashMap<>();
+        private final List<String> topLevelFields = new ArrayList<>();
+        private final JsonRow row = new JsonRow();
+
+        private int depth;
+        private boolean sawToken;
+        private String currentField;
+        private String rowField;
+        private String arrayField;
+        private boolean inTargetArray;
+        private boolean targetDone;
+        private boolean inRow;
+        private int rowDepth;
+        private int rowCount;
+        private boolean stopped;
+
+        ParseSession(JsonParser parser, Set<String> arrayFields, RowHandler handler) {
+            this.parser = parser;
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+            this.arrayFields = arrayFields;
+            this.handler = handler;
+        }
+
+        /**
+         * @return false once the handler asked to stop, so the remaining body is not downloaded
+         */
+        boolean feed(DataBuffer buffer) throws IOException {
+            if (stopped) {
+                return false;
+            }
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            feeder.feedInput(bytes, 0, bytes.length);
+            return drain();
+        }
+
+        Result finish() throws IOException {
+            if (!stopped) {
+                feeder.endOfInput();
+                drain();
+            }
+            parser.close();
+            return new Result(header, Collections.unmodifiableList(topLevelFields), arrayField,
+                rowCount, stopped, !sawToken);
+        }
+
+        private boolean drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                sawToken = true;
+                switch (token) {
+                    case START_OBJECT:
+                        depth++;
+                        if (inTargetArray && depth == rowDepth) {
+                            row.clear();
+                            inRow = true;
+                        }
+                        break;
+                    case START_ARRAY:
+                        depth++;
+                        boolean rootArray = depth == 1;
+                        boolean namedArray = depth == 2 && currentField != null && arrayFields.contains(currentField);
+                        if (!targetDone && (rootArray || namedArray)) {
+                            inTargetArray = true;
+                            arrayField = rootArray ? "" : currentField;
+                            rowDepth = depth + 1;
+                        }
+                        break;
+                    case END_OBJECT:
+                        if (inRow && depth == rowDepth) {
+                            inRow = false;
+                            rowCount++;
+                            if (!handler.onRow(row)) {
+                                stopped = true;
+                                return false;
+                            }
+                        }
+                        depth--;
+                        break;
+                    case END_ARRAY:
+                        if (inTargetArray && depth == rowDepth - 1) {
+                            inTargetArray = false;
+                            targetDone = true;
+                        }
+                        depth--;
+                        break;
+                    case FIELD_NAME:
+                        if (depth == 1) {
+                            currentField = parser.currentName();
+                            topLevelFields.add(currentField);
+                        } else if (inRow && depth == rowDepth) {
+                            rowField = parser.currentName();
+                        }
+                        break;
+                    default:
+                        // scalar value
+                        if (depth == 1 && currentField != null) {
+                            header.put(currentField, parser.getText());
+                        } else if (inRow && depth == rowDepth && rowField != null) {
+                            row.put(rowField, token == JsonToken.VALUE_NULL ? null : parser.getText());
+                        }
+                        break;
+                }
+            }
+            return true;
+        }
+    }
+}
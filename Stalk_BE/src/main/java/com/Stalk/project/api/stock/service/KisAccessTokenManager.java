@@ -0,0 +1,403 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.global.config.KisApiConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * KIS OAuth access token shared by all application nodes.
+ * The token lives in Redis; one node at a time issues a new one under a Redis lock, the others pick
+ * it up from Redis. Tokens are renewed in the background a while before they expire, so callers
+ * read the current token from memory and only the very first call on a node waits for a token.
+ * Concurrent refreshes on one node share a single in-flight refresh.
+ * The token endpoint base URL can be pointed at a local stand-in with kis.api.token-base-url.
+ */
+@Component
+public class KisAccessTokenManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(KisAccessTokenManager.class);
+
+    private static final String TOKEN_ENDPOINT = "/oauth2/tokenP";
+    private static final String REDIS_TOKEN_KEY = "kis:access_token";
+    private static final String REDIS_LOCK_KEY = "kis:access_token:lock";
+    private static final Duration LOCK_TTL = Duration.ofSeconds(30);
+    // How long a node waits for the lock holder to publish a token before issuing one itself
+    private static final long LOCK_WAIT_MILLIS = 5_000L;
+    private static final long LOCK_POLL_MILLIS = 250L;
+    // After a failed refresh, callers do not start another one for this long
+    private static final long FAILURE_BACKOFF_MILLIS = 30_000L;
+
+    private final KisApiConfig kisApiConfig;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final OutboundCallScheduler outboundCallScheduler;
+    private final String tokenBaseUrl;
+    // Dedicated thread, so a refresh is never dropped by a full shared pool
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kis-token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile AccessToken current;
+    private final AtomicReference<CompletableFuture<AccessToken>> inFlight = new AtomicReference<>();
+    private volatile long lastFailureAt;
+
+    // Renew this long before expiry; KIS tokens are valid for 24 hours
+    @Value("${kis.token.refresh-lead-seconds:1800}")
+    private long refreshLeadSeconds;
+
+    // How long the first caller on a node waits for a token
+    @Value("${kis.token.initial-wait-seconds:10}")
+    private long initialWaitSeconds;
+
+    @Autowired
+    public KisAccessTokenManager(KisApiConfig kisApiConfig,
+                                 RedisTemplate<String, String> redisTemplate,
+                                 OutboundCallScheduler outboundCallScheduler,
+                                 @Value("${kis.api.token-base-url:${kis.api.base-url}}") String tokenBaseUrl) {
+        this.kisApiConfig = kisApiConfig;
+        this.redisTemplate = redisTemplate;
+        this.outboundCallScheduler = outboundCallScheduler;
+        this.tokenBaseUrl = tokenBaseUrl;
+        this.webClient = WebClient.builder()
+                .baseUrl(tokenBaseUrl)
+                .defaultHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0")
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+
+    /**
+     * Current access token. Starts a background renewal when the token is close to expiry and
+     * only waits when this node has no valid token yet.
+     * @return token, or null if none could be obtained
+     */
+    public String getAccessToken() {
+        AccessToken token = current;
+        long now = System.currentTimeMillis();
+        boolean backingOff = now - lastFailureAt < FAILURE_BACKOFF_MILLIS;
+        if (token != null && token.isValidAt(now)) {
+            if (token.needsRefreshAt(now, refreshLeadMillis()) && !backingOff) {
+                refreshAsync();
+            }
+            return token.value;
+        }
+        if (backingOff) {
+            logger.warn("No KIS access token, last refresh failed {} ms ago", now - lastFailureAt);
+            return null;
+        }
+
+        try {
+            AccessToken refreshed = refreshAsync().get(initialWaitSeconds, TimeUnit.SECONDS);
+            return refreshed != null ? refreshed.value : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            logger.error("Failed to obtain KIS access token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #getAccessToken()} for reactive callers; completes right away
+     * with the current token, or once the first token of this node has been obtained
+     * @return token, or empty if none could be obtained
+     */
+    public Mono<String> accessToken() {
+        return Mono.defer(() -> {
+            AccessToken token = current;
+            long now = System.currentTimeMillis();
+            boolean backingOff = now - lastFailureAt < FAILURE_BACKOFF_MILLIS;
+            if (token != null && token.isValidAt(now)) {
+                if (token.needsRefreshAt(now, refreshLeadMillis()) && !backingOff) {
+                    refreshAsync();
+                }
+                return Mono.just(token.value);
+            }
+            if (backingOff) {
+                logger.warn("No KIS access token, last refresh failed {} ms ago", now - lastFailureAt);
+                return Mono.empty();
+            }
+
+            // The refresh is shared with other callers, so a timed out caller must not cancel it
+            return Mono.fromFuture(refreshAsync(), true)
+                .timeout(Duration.ofSeconds(initialWaitSeconds))
+                .map(refreshed -> refreshed.value)
+                .onErrorResume(e -> {
+                    logger.error("Failed to obtain KIS access token: {}", e.getMessage());
+                    return Mono.empty();
+                });
+        });
+    }
+
+    /**
+     * Renew tokens that are about to expire, so request threads never see an expired token
+     */
+    @Scheduled(fixedDelayString = "${kis.token.refresh-check-millis:60000}")
+    public void refreshIfNeeded() {
+        AccessToken token = current;
+        if (token != null && token.needsRefreshAt(System.currentTimeMillis(), refreshLeadMillis())) {
+            refreshAsync();
+        }
+    }
+
+    @PreDestroy
+    public void shutdownRefreshExecutor() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Start a refresh unless one is already running on this node
+     */
+    private CompletableFuture<AccessToken> refreshAsync() {
+        CompletableFuture<AccessToken> existing = inFlight.get();
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<AccessToken> future = new CompletableFuture<>();
+        if (!inFlight.compareAndSet(null, future)) {
+            return inFlight.get();
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    future.complete(refresh());
+                } catch (Throwable e) {
+                    lastFailureAt = System.currentTimeMillis();
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.compareAndSet(future, null);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.compareAndSet(future, null);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Adopt a fresh token from Redis, or issue one under the cross-node lock and publish it
+     */
+    private AccessToken refresh() {
+        long leadMillis = refreshLeadMillis();
+
+        AccessToken shared = readShared();
+        if (shared != null && !shared.needsRefreshAt(System.currentTimeMillis(), leadMillis)) {
+            return adopt(shared, "Redis");
+        }
+
+        Boolean locked = tryLock();
+        if (Boolean.FALSE.equals(locked)) {
+            // Another node is issuing a token; wait for it to show up in Redis
+            AccessToken published = awaitShared(shared);
+            if (published != null) {
+                return adopt(published, "another node");
+            }
+            AccessToken token = current;
+            if (token != null && token.isValidAt(System.currentTimeMillis())) {
+                return token;
+            }
+            logger.warn("No KIS token published by the lock holder, issuing one on this node");
+        }
+
+        try {
+            if (Boolean.TRUE.equals(locked)) {
+                // The previous holder may have published a token and released the lock since the first read
+                AccessToken published = readShared();
+                if (published != null && !published.needsRefreshAt(System.currentTimeMillis(), leadMillis)) {
+                    return adopt(published, "Redis");
+                }
+            }
+            AccessToken issued = issue();
+            current = issued;
+            writeShared(issued);
+            return issued;
+        } finally {
+            if (Boolean.TRUE.equals(locked)) {
+                unlock();
+            }
+        }
+    }
+
+    private AccessToken adopt(AccessToken token, String source) {
+        AccessToken previous = current;
+        current = token;
+        if (previous == null || !previous.value.equals(token.value)) {
+            logger.info("Using KIS access token from {}, expires in {} seconds",
+                source, (token.expiresAt - System.currentTimeMillis()) / 1000);
+        }
+        return token;
+    }
+
+    /**
+     * Request a new token from the KIS token endpoint
+     */
+    private AccessToken issue() {
+        try {
+            logger.info("Requesting new KIS API access token");
+
+            String requestBody = String.format(
+                "{\"grant_type\":\"client_credentials\",\"appkey\":\"%s\",\"appsecret\":\"%s\"}",
+                kisApiConfig.getAppKey(),
+                kisApiConfig.getAppSecret()
+            );
+
+            // Requests wait for the token, so issuing it goes ahead of queued background calls
+            String response = outboundCallScheduler.schedule(tokenBaseUrl, OutboundCallScheduler.Priority.INTERACTIVE,
+                    () -> webClient.post()
+                        .uri(TOKEN_ENDPOINT)
+                        .bodyValue(requestBody)
+                        .retrieve()
+                        .bodyToMono(String.class))
+                .block();
+
+            JsonNode root = objectMapper.readTree(response == null ? "{}" : response);
+            String newToken = root.path("access_token").asText();
+            int expiresIn = root.path("expires_in").asInt(86400); // Default 24 hours
+            if (newToken.isEmpty()) {
+                throw new RuntimeException("KIS token response has no access_token");
+            }
+
+            logger.info("KIS API access token obtained successfully, expires in {} seconds", expiresIn);
+            // 5 min buffer
+            return new AccessToken(newToken, System.currentTimeMillis() + (expiresIn - 300) * 1000L);
+
+        } catch (Exception e) {
+            logger.error("Error getting KIS API access token", e);
+            throw new RuntimeException("Failed to obtain KIS access token: " + e.getMessage(), e);
+        }
+    }
+
+    private AccessToken readShared() {
+        try {
+            return AccessToken.parse(redisTemplate.opsForValue().get(REDIS_TOKEN_KEY));
+        } catch (Exception e) {
+            logger.warn("Failed to read shared KIS token from Redis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeShared(AccessToken token) {
+        long ttlMillis = token.expiresAt - System.currentTimeMillis();
+        if (ttlMillis <= 0) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(REDIS_TOKEN_KEY, token.serialize(), Duration.ofMillis(ttlMillis));
+        } catch (Exception e) {
+            logger.warn("Failed to share KIS token through Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return whether the lock was taken, or null if Redis is unavailable (this node then issues its own token)
+     */
+    private Boolean tryLock() {
+        try {
+            return redisTemplate.opsForValue().setIfAbsent(REDIS_LOCK_KEY, nodeId, LOCK_TTL);
+        } catch (Exception e) {
+            logger.warn("Failed to take KIS token lock in Redis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void unlock() {
+        try {
+            if (nodeId.equals(redisTemplate.opsForValue().get(REDIS_LOCK_KEY))) {
+                redisTemplate.delete(REDIS_LOCK_KEY);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to release KIS token lock in Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Poll Redis until a token different from {@code stale} is published
+     */
+    private AccessToken awaitShared(AccessToken stale) {
+        long deadline = System.currentTimeMillis() + LOCK_WAIT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(LOCK_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            AccessToken shared = readShared();
+            if (shared != null && (stale == null || !shared.value.equals(stale.value))
+                    && shared.isValidAt(System.currentTimeMillis())) {
+                return shared;
+            }
+        }
+        return null;
+    }
+
+    private long refreshLeadMillis() {
+        return refreshLeadSeconds * 1000L;
+    }
+
+    /**
+     * Token value with the time it stops being used; stored in Redis as "expiresAt|token"
+     */
+    private static final class AccessToken {
+        private final String value;
+        private final long expiresAt;
+
+        private AccessToken(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isValidAt(long now) {
+            return now < expiresAt;
+        }
+
+        private boolean needsRefreshAt(long now, long leadMillis) {
+            return now >= expiresAt - leadMillis;
+        }
+
+        private String serialize() {
+            return expiresAt + "|" + value;
+        }
+
+        private static AccessToken parse(String stored) {
+            if (stored == null) {
+                return null;
+            }
+            int separator = stored.indexOf('|');
+            if (separator <= 0 || separator == stored.length() - 1) {
+                return null;
+            }
+            try {
+                return new AccessToken(stored.substring(separator + 1), Long.parseLong(stored.substring(0, separator)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
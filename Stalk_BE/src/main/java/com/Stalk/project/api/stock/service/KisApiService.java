@@ -1,24 +1,29 @@
 package com.Stalk.project.api.stock.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.Stalk.project.global.config.KisApiConfig;
 import com.Stalk.project.api.stock.dto.KisStockInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service for integrating with KIS (Korea Investment & Securities) Open API
@@ -31,19 +36,38 @@ public class KisApiService {
     
     private final KisApiConfig kisApiConfig;
     private final WebClient webClient;
-    private final ObjectMapper objectMapper;
+    private final JsonRowStreamReader jsonRowStreamReader = new JsonRowStreamReader();
     
     // KIS API endpoints
-    private static final String TOKEN_ENDPOINT = "/oauth2/tokenP";
     private static final String HISTORICAL_PRICE_ENDPOINT = "/uapi/domestic-stock/v1/quotations/inquire-daily-itemchartprice";
+    private static final Set<String> HISTORICAL_ARRAY_FIELDS = Set.of("output2");
+    // Maximum rows KIS returns per daily price call
+    private static final int MAX_RECORDS_PER_CALL = 100;
+    // A slow KIS call fails instead of holding the request thread
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
     
-    private String accessToken;
-    private long tokenExpiryTime;
+    // One daily series per ticker; shorter periods are served as views of the widest range fetched
+    private final HistoricalSeriesCache<KisStockInfo> historicalSeriesCache =
+        new HistoricalSeriesCache<>("kisHistoricalPrices", KisStockInfo::getDate, 500, 60_000L, Duration.ofSeconds(30));
+    
+    // Shared token, renewed in the background before it expires
+    @Autowired
+    private KisAccessTokenManager kisAccessTokenManager;
+    
+    @Autowired
+    private KrxTradingCalendar tradingCalendar;
+    
+    // Paces the concurrent history windows within the KIS call budget
+    @Autowired
+    private OutboundCallScheduler outboundCallScheduler;
+    
+    // While KIS keeps failing, history requests fail fast and callers fall back to KRX data
+    private final UpstreamCircuitBreaker historyCircuitBreaker =
+        new UpstreamCircuitBreaker("KIS daily prices", 5, Duration.ofSeconds(30), KisApiService::isUpstreamFailure);
     
     @Autowired
     public KisApiService(KisApiConfig kisApiConfig) {
         this.kisApiConfig = kisApiConfig;
-        this.objectMapper = new ObjectMapper();
         this.webClient = WebClient.builder()
                 .baseUrl(kisApiConfig.getBaseUrl())
                 .defaultHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0")
@@ -52,153 +76,202 @@ public class KisApiService {
                 .build();
     }
     
-    /**
-     * Get access token for KIS API authentication
-     */
-    private String getAccessToken() {
-        if (accessToken != null && System.currentTimeMillis() < tokenExpiryTime) {
-            return accessToken;
-        }
-        
-        try {
-            logger.info("Requesting new KIS API access token");
-            
-            String requestBody = String.format(
-                "{\"grant_type\":\"client_credentials\",\"appkey\":\"%s\",\"appsecret\":\"%s\"}", 
-                kisApiConfig.getAppKey(), 
-                kisApiConfig.getAppSecret()
-            );
-            
-            String response = webClient.post()
-                .uri(TOKEN_ENDPOINT)
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
-            
-            if (response != null) {
-                JsonNode root = objectMapper.readTree(response);
-                String newToken = root.path("access_token").asText();
-                int expiresIn = root.path("expires_in").asInt(86400); // Default 24 hours
-                
-                if (!newToken.isEmpty()) {
-                    this.accessToken = newToken;
-                    this.tokenExpiryTime = System.currentTimeMillis() + (expiresIn - 300) * 1000L; // 5 min buffer
-                    logger.info("KIS API access token obtained successfully, expires in {} seconds", expiresIn);
-                    return accessToken;
-                }
-            }
-            
-            logger.error("Failed to obtain KIS API access token");
-            return null;
-            
-        } catch (Exception e) {
-            logger.error("Error getting KIS API access token", e);
-            return null;
-        }
-    }
-    
     /**
      * Fetch historical stock prices from KIS API
      * @param ticker Stock ticker code (e.g., "005930")
-     * @param periodDays Number of days to fetch (up to 100 for daily data)
+     * @param periodDays Number of calendar days to fetch
      * @return List of historical stock price data
      */
-    @Cacheable(value = "kisHistoricalPrices", key = "#ticker + '_' + #periodDays")
     public List<KisStockInfo> getHistoricalPrices(String ticker, int periodDays) {
-        logger.info("=== KIS API HISTORICAL DATA FETCH ===");
+        return getHistoricalPricesAsync(ticker, periodDays).block();
+    }
+    
+    /**
+     * Non-blocking variant of {@link #getHistoricalPrices(String, int)}; no thread is held while KIS responds
+     * @return historical prices oldest first, or an empty list if they could not be fetched
+     */
+    public Mono<List<KisStockInfo>> getHistoricalPricesAsync(String ticker, int periodDays) {
         logger.info("Fetching KIS historical prices for ticker: {}, period: {} days", ticker, periodDays);
         
-        String token = getAccessToken();
-        if (token == null) {
-            logger.error("Cannot fetch historical data - no access token");
-            return new ArrayList<>();
+        // Ranges longer than one KIS call are fetched in windows, see fetchHistoricalPrices
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusDays(periodDays);
+        
+        return historicalSeriesCache.getAsync(ticker, startDate, endDate,
+                (from, to) -> fetchHistoricalPrices(ticker, from, to))
+            .doOnNext(historicalData -> logger.info("Serving {} historical data points for ticker {} in chronological order", 
+                historicalData.size(), ticker))
+            .onErrorResume(e -> {
+                logger.error("Error fetching KIS historical data for ticker: {}", ticker, e);
+                return Mono.just(new ArrayList<>());
+            });
+    }
+    
+    /**
+     * Clear the cached historical series
+     */
+    public void clearCache() {
+        historicalSeriesCache.clear();
+    }
+    
+    /**
+     * Fetch daily prices for an inclusive date range from the KIS API, oldest first.
+     * The range is split into windows of at most 100 trading days (one KIS call each), which are
+     * fetched concurrently within the KIS rate budget and merged by date. Only the range missing from
+     * the series cache is passed in, so cached windows are never fetched again.
+     * Errors if there is no token or any KIS call fails.
+     */
+    private Mono<List<KisStockInfo>> fetchHistoricalPrices(String ticker, LocalDate startDate, LocalDate endDate) {
+        List<LocalDate[]> windows = tradingDayWindows(startDate, endDate);
+        if (windows.isEmpty()) {
+            logger.info("No trading days between {} and {}, skipping KIS call", startDate, endDate);
+            return Mono.just(new ArrayList<>());
         }
         
-        try {
-            // Calculate date range (KIS API limit: max 100 records per call)
-            LocalDate endDate = LocalDate.now();
-            LocalDate startDate = endDate.minusDays(Math.min(periodDays, 100)); // KIS API hard limit
-            
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-            String startDateStr = startDate.format(formatter);
-            String endDateStr = endDate.format(formatter);
-            
-            logger.info("KIS API date range: {} to {}", startDateStr, endDateStr);
-            
-            // Build query parameters
-            String queryParams = String.format(
-                "?fid_cond_mrkt_div_code=J&fid_input_iscd=%s&fid_input_date_1=%s&fid_input_date_2=%s&fid_period_div_code=D&fid_org_adj_prc=1",
-                ticker, startDateStr, endDateStr
-            );
-            
-            String response = webClient.get()
-                .uri(HISTORICAL_PRICE_ENDPOINT + queryParams)
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
-                .header("appkey", kisApiConfig.getAppKey())
-                .header("appsecret", kisApiConfig.getAppSecret())
-                .header("tr_id", "FHKST03010100") // Transaction ID for daily price inquiry
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
-            
-            if (response != null) {
-                logger.debug("KIS API response received: {}", response.substring(0, Math.min(response.length(), 200)));
-                List<KisStockInfo> historicalData = parseHistoricalResponse(response, ticker);
-                
-                // Sort by date (oldest first) for proper chart display
-                historicalData.sort((a, b) -> a.getDate().compareTo(b.getDate()));
-                logger.info("Sorted {} historical data points in chronological order", historicalData.size());
+        long startTime = System.currentTimeMillis();
+        int parallelism = Math.max(1, kisApiConfig.getHistoryParallelism());
+        return kisAccessTokenManager.accessToken()
+            .switchIfEmpty(Mono.error(() -> {
+                logger.error("Cannot fetch historical data - no access token");
+                return new RuntimeException("Cannot fetch historical data - no access token");
+            }))
+            // One request is one circuit call: its windows share the outcome, so a half-open probe
+            // covers the whole range and a failed request counts once, not once per window
+            .flatMap(token -> historyCircuitBreaker.guard(() -> Flux.fromIterable(windows)
+                .flatMapSequential(window -> outboundCallScheduler.schedule(
+                    kisApiConfig.getBaseUrl(), OutboundCallScheduler.Priority.INTERACTIVE,
+                    () -> fetchHistoryWindow(ticker, token, window[0], window[1]).timeout(REQUEST_TIMEOUT)), parallelism)
+                .collectList()))
+            .map(windowData -> {
+                // Windows do not overlap, but merge by date so a repeated row can never appear twice
+                TreeMap<String, KisStockInfo> byDate = new TreeMap<>();
+                for (List<KisStockInfo> rows : windowData) {
+                    for (KisStockInfo row : rows) {
+                        byDate.put(row.getDate(), row);
+                    }
+                }
                 
-                return historicalData;
-            } else {
-                logger.warn("KIS API returned null response");
-                return new ArrayList<>();
-            }
-            
-        } catch (Exception e) {
-            logger.error("Error fetching KIS historical data for ticker: {}", ticker, e);
-            return new ArrayList<>();
+                logger.info("Fetched {} KIS daily bars for {} ({} ~ {}) in {} windows, {} ms",
+                    byDate.size(), ticker, startDate, endDate, windows.size(), System.currentTimeMillis() - startTime);
+                return new ArrayList<>(byDate.values());
+            });
+    }
+    
+    /**
+     * Transport errors, timeouts, 429 and 5xx responses say KIS is unhealthy; other 4xx responses and
+     * KIS error codes for a single request (e.g. an unknown ticker) do not
+     */
+    private static boolean isUpstreamFailure(Throwable e) {
+        if (e instanceof WebClientResponseException) {
+            WebClientResponseException responseException = (WebClientResponseException) e;
+            return responseException.getStatusCode().is5xxServerError() 
+                || responseException.getStatusCode().value() == 429;
         }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
     }
     
     /**
-     * Parse KIS API historical price response
+     * Split a date range into consecutive [from, to] windows of at most MAX_RECORDS_PER_CALL trading days
      */
-    private List<KisStockInfo> parseHistoricalResponse(String response, String ticker) {
-        List<KisStockInfo> historicalData = new ArrayList<>();
+    private List<LocalDate[]> tradingDayWindows(LocalDate startDate, LocalDate endDate) {
+        List<LocalDate> tradingDays = tradingCalendar.tradingDaysBetween(startDate, endDate);
+        List<LocalDate[]> windows = new ArrayList<>();
+        for (int from = 0; from < tradingDays.size(); from += MAX_RECORDS_PER_CALL) {
+            int to = Math.min(from + MAX_RECORDS_PER_CALL, tradingDays.size()) - 1;
+            windows.add(new LocalDate[] {tradingDays.get(from), tradingDays.get(to)});
+        }
+        return windows;
+    }
+    
+    /**
+     * One KIS daily price call for a window of at most 100 trading days
+     */
+    private Mono<List<KisStockInfo>> fetchHistoryWindow(String ticker, String token, LocalDate startDate, LocalDate endDate) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
+        String startDateStr = startDate.format(formatter);
+        String endDateStr = endDate.format(formatter);
         
-        try {
-            JsonNode root = objectMapper.readTree(response);
-            JsonNode rtCd = root.path("rt_cd");
-            JsonNode msgCd = root.path("msg_cd");
-            
-            if (!"0".equals(rtCd.asText())) {
-                logger.error("KIS API error - rt_cd: {}, msg_cd: {}, msg1: {}", 
-                    rtCd.asText(), msgCd.asText(), root.path("msg1").asText());
-                return historicalData;
-            }
+        logger.info("KIS API date range: {} to {}", startDateStr, endDateStr);
+        
+        // Build query parameters
+        String queryParams = String.format(
+            "?fid_cond_mrkt_div_code=J&fid_input_iscd=%s&fid_input_date_1=%s&fid_input_date_2=%s&fid_period_div_code=D&fid_org_adj_prc=1",
+            ticker, startDateStr, endDateStr
+        );
+        
+        Flux<DataBuffer> body = webClient.get()
+            .uri(HISTORICAL_PRICE_ENDPOINT + queryParams)
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+            .header("appkey", kisApiConfig.getAppKey())
+            .header("appsecret", kisApiConfig.getAppSecret())
+            .header("tr_id", "FHKST03010100") // Transaction ID for daily price inquiry
+            .retrieve()
+            .bodyToFlux(DataBuffer.class);
+        
+        return parseHistoricalResponse(body, ticker);
+    }
+    
+    /**
+     * Parse a daily price response; emits the rows oldest first, or an error if KIS reported one
+     */
+    private Mono<List<KisStockInfo>> parseHistoricalResponse(Flux<DataBuffer> body, String ticker) {
+        return Mono.defer(() -> {
+            List<KisStockInfo> historicalData = new ArrayList<>();
             
-            JsonNode output2 = root.path("output2");
-            if (output2.isArray() && output2.size() > 0) {
-                logger.info("KIS API returned {} data points", output2.size());
+            // output2 rows are mapped as they are parsed; rt_cd is checked once the response is complete
+            return jsonRowStreamReader.read(body, HISTORICAL_ARRAY_FIELDS, dataNode -> {
+                // KIS pads output2 with empty objects when there are fewer trading days than requested
+                if (dataNode.has("stck_bsop_date")) {
+                    historicalData.add(toKisStockInfo(dataNode, ticker));
+                }
+                return true;
+            }).map(result -> {
+                if (result.isEmpty()) {
+                    logger.warn("KIS API returned null response");
+                    throw new RuntimeException("Empty response from KIS API");
+                }
                 
-                for (JsonNode dataNode : output2) {
-                    KisStockInfo stockInfo = objectMapper.treeToValue(dataNode, KisStockInfo.class);
-                    stockInfo.setTicker(ticker);
-                    historicalData.add(stockInfo);
+                String rtCd = result.header("rt_cd", "");
+                if (!"0".equals(rtCd)) {
+                    logger.error("KIS API error - rt_cd: {}, msg_cd: {}, msg1: {}", 
+                        rtCd, result.header("msg_cd", ""), result.header("msg1", ""));
+                    throw new RuntimeException("KIS API error: " + result.header("msg1", rtCd));
                 }
                 
-                logger.info("Parsed {} historical data points from KIS API", historicalData.size());
-            } else {
-                logger.warn("No output2 data in KIS API response");
-            }
-            
-        } catch (Exception e) {
-            logger.error("Error parsing KIS API response", e);
-        }
-        
-        return historicalData;
+                if (!historicalData.isEmpty()) {
+                    logger.info("Parsed {} historical data points from KIS API", historicalData.size());
+                } else {
+                    logger.warn("No output2 data in KIS API response");
+                }
+                
+                // Sort by date (oldest first) for proper chart display
+                historicalData.sort((a, b) -> a.getDate().compareTo(b.getDate()));
+                return historicalData;
+            }).switchIfEmpty(Mono.error(() -> new RuntimeException("Empty response from KIS API")));
+        });
+    }
+    
+    /**
+     * Map one output2 row of the daily price response to KisStockInfo
+     */
+    private KisStockInfo toKisStockInfo(JsonRowStreamReader.JsonRow dataNode, String ticker) {
+        KisStockInfo stockInfo = new KisStockInfo();
+        stockInfo.setDate(dataNode.text("stck_bsop_date", null));
+        stockInfo.setClosePrice(dataNode.text("stck_clpr", null));
+        stockInfo.setOpenPrice(dataNode.text("stck_oprc", null));
+        stockInfo.setHighPrice(dataNode.text("stck_hgpr", null));
+        stockInfo.setLowPrice(dataNode.text("stck_lwpr", null));
+        stockInfo.setVolume(dataNode.text("acml_vol", null));
+        stockInfo.setTradeAmount(dataNode.text("acml_tr_pbmn", null));
+        stockInfo.setChangeCode(dataNode.text("flng_cls_code", null));
+        stockInfo.setPriceChange(dataNode.text("prdy_vrss", null));
+        stockInfo.setChangeSign(dataNode.text("prdy_vrss_sign", null));
+        stockInfo.setChangeRate(dataNode.text("prdy_ctrt", null));
+        stockInfo.setParticipationRate(dataNode.text("prtt_rate", null));
+        stockInfo.setModificationYn(dataNode.text("mod_yn", null));
+        stockInfo.setRevlIssuReas(dataNode.text("revl_issu_reas", null));
+        stockInfo.setTicker(ticker);
+        return stockInfo;
     }
     
     /**
@@ -206,7 +279,7 @@ public class KisApiService {
      */
     public boolean testConnection() {
         try {
-            String token = getAccessToken();
+            String token = kisAccessTokenManager.getAccessToken();
             return token != null && !token.isEmpty();
         } catch (Exception e) {
             logger.error("KIS API connection test failed", e);
@@ -1,14 +1,15 @@
 package com.Stalk.project.api.stock.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.Stalk.project.global.config.KrxApiConfig;
+import com.Stalk.project.global.config.MarketHoursCacheExpiry;
 import com.Stalk.project.api.stock.dto.KrxRankingStock;
 import com.Stalk.project.api.stock.dto.KrxStockInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
@@ -17,19 +18,30 @@ import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.nio.charset.StandardCharsets;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * Service for integrating with KRX Open API to fetch Korean stock market data
@@ -42,18 +54,15 @@ public class KrxApiService {
     
     private final KrxApiConfig krxApiConfig;
     private final WebClient webClient;
-    private final ObjectMapper objectMapper;
-    private final NumberFormat numberFormat;
-    private final DecimalFormat decimalFormat;
+    private final JsonRowStreamReader jsonRowStreamReader = new JsonRowStreamReader();
+    // Concurrent cache misses for the same key share one upstream call
+    private final RequestCoalescer requestCoalescer;
     
     // KRX API endpoint identifiers for different data types  
     private static final String MARKET_DATA_BLD = "dbms/MDC/STAT/standard/MDCSTAT01501";
     private static final String INDIVIDUAL_STOCK_BLD = "dbms/MDC/STAT/standard/MDCSTAT01901"; // Individual stock info
     private static final String HISTORICAL_PRICE_BLD = "dbms/MDC/STAT/standard/MDCSTAT01701"; // Historical daily prices
-    private static final String VOLUME_RANKING_BLD = "dbms/MDC/STAT/standard/MDCSTAT02301";
-    private static final String TRADE_VALUE_RANKING_BLD = "dbms/MDC/STAT/standard/MDCSTAT02401"; 
-    private static final String PRICE_CHANGE_RANKING_BLD = "dbms/MDC/STAT/standard/MDCSTAT02501";
-    private static final String INVESTOR_TRADING_BLD = "dbms/MDC/STAT/standard/MDCSTAT02203";
+    private static final String ETF_LISTING_BLD = "dbms/MDC/STAT/standard/MDCSTAT04601"; // ETF listing (기본정보)
     
     // New KRX API endpoints based on official documentation
     private static final String KOSDAQ_DAILY_TRADING_API = "http://data-dbg.krx.co.kr/svc/apis/sto/ksq_bydd_trd";
@@ -61,15 +70,67 @@ public class KrxApiService {
     // Attempt KOSPI stock trading API (pattern-based, needs verification)
     private static final String KOSPI_DAILY_TRADING_API = "http://data-dbg.krx.co.kr/svc/apis/sto/stk_bydd_trd";
     
+    // Row arrays used by the different KRX response layouts
+    private static final Set<String> ROW_ARRAY_FIELDS = Set.of("OutBlock_1", "output", "block1", "result");
+    private static final Set<String> DAILY_TRADING_ARRAY_FIELDS = Set.of("OutBlock_1");
+    // Initial column capacity for a full-market snapshot (~2,700 listed issues)
+    private static final int SNAPSHOT_INITIAL_CAPACITY = 3000;
+    // Minimum spacing of background reloads per market, e.g. while KRX has not published the new day yet
+    private static final long MIN_SNAPSHOT_REFRESH_INTERVAL_MILLIS = 10_000L;
+    // Daily bar store segment filled from KOSDAQ_DAILY_TRADING_API
+    private static final String DAILY_BAR_SEGMENT = "KSQ";
+    // Days with no rows older than this are stored as non-trading days; newer ones may just not be published yet
+    private static final int DAILY_BAR_PUBLISH_LAG_DAYS = 7;
+    // ETFs returned by the ETF board
+    private static final int ETF_BOARD_SIZE = 100;
+    
     @Autowired
     private org.springframework.cache.CacheManager cacheManager;
     
+    @Autowired
+    private DailyBarStore dailyBarStore;
+    
+    @Autowired
+    private KrxTradingCalendar tradingCalendar;
+    
+    // One daily series per ticker/market; shorter periods are served as views of the widest range fetched
+    private final HistoricalSeriesCache<KrxStockInfo> historicalSeriesCache =
+        new HistoricalSeriesCache<>("historicalPrices", KrxStockInfo::getTradeDate, 500, 60_000L, Duration.ofSeconds(30));
+    
+    // Historical backfill runs on its own threads
+    private final Scheduler backfillScheduler = Schedulers.newBoundedElastic(
+        Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "krx-backfill");
+    
+    // Every KRX call is rate limited per host and queued by priority
+    @Autowired
+    private OutboundCallScheduler outboundCallScheduler;
+    
+    // One circuit per KRX endpoint (bld or API URL); open circuits fail fast and snapshots are served stale
+    private final Map<String, UpstreamCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    
+    @Autowired
+    private MarketSnapshotStore marketSnapshotStore;
+    
+    // Full-market snapshots keyed by KRX market code (STK/KSQ); stale snapshots are served while they reload
+    private final Map<String, MarketSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<String, Long> snapshotLastAccess = new ConcurrentHashMap<>();
+    // KOSPI + KOSDAQ merge over the current snapshot pair, rebuilt when either snapshot is replaced
+    private volatile CombinedMarketRanking combinedRanking;
+    // ETF/ETN membership from the latest KRX ETF listing, and the ETF board ranked over the snapshot pair
+    private volatile EtfMembership etfMembership;
+    private volatile CombinedMarketRanking etfBoard;
+    private final Set<String> refreshingSnapshots = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> lastSnapshotRefresh = new ConcurrentHashMap<>();
+    
+    @Autowired
+    @Qualifier("stockRefreshExecutor")
+    private Executor stockRefreshExecutor;
+    private final SymbolDictionary symbolDictionary = new SymbolDictionary();
+    
     @Autowired
     public KrxApiService(KrxApiConfig krxApiConfig) {
         this.krxApiConfig = krxApiConfig;
-        this.objectMapper = new ObjectMapper();
-        this.numberFormat = NumberFormat.getInstance(Locale.KOREA);
-        this.decimalFormat = new DecimalFormat("#,##0.00");
+        this.requestCoalescer = new RequestCoalescer(Duration.ofSeconds(krxApiConfig.getCoalesceTimeoutSeconds()));
         
         // Configure WebClient with proper settings for KRX API
         ExchangeStrategies strategies = ExchangeStrategies.builder()
@@ -87,16 +148,34 @@ public class KrxApiService {
                 .build();
     }
     
+    /**
+     * Freshness of the market snapshot behind a response
+     * @param stale true when the data is not the latest KRX data, e.g. restored from disk or served while KRX is down
+     */
+    public record SnapshotStatus(String market, String tradingDate, long loadedAt, boolean stale) {
+    }
+    
+    /**
+     * Serve the last known good snapshots from disk until KRX answers
+     */
+    @PostConstruct
+    public void restoreSnapshots() {
+        for (String krxMarketCode : List.of("STK", "KSQ")) {
+            MarketSnapshot restored = marketSnapshotStore.load(krxMarketCode);
+            if (restored != null && restored.size() > 0) {
+                snapshots.putIfAbsent(krxMarketCode, restored);
+            }
+        }
+    }
+    
     /**
      * Fetch KOSPI volume ranking (거래량 순위)
      * @param limit Number of stocks to return (default: 50)
      * @return List of KrxRankingStock sorted by volume
      */
-    @Cacheable(value = "kospiVolumeRanking", key = "#limit")
     public List<KrxRankingStock> getKospiVolumeRanking(int limit) {
-        logger.info("Fetching KOSPI volume ranking, limit: {} (with caching)", limit);
-        // Use MARKET_DATA_BLD since ranking BLDs may have different field structures
-        return fetchRankingData("STK", MARKET_DATA_BLD, "ACC_TRDVOL", limit);
+        logger.debug("Serving KOSPI volume ranking from snapshot, limit: {}", limit);
+        return getMarketSnapshot("STK").top(MarketSnapshot.SortKey.VOLUME, limit);
     }
     
     /**
@@ -104,11 +183,9 @@ public class KrxApiService {
      * @param limit Number of stocks to return (default: 50)
      * @return List of KrxRankingStock sorted by trade value
      */
-    @Cacheable(value = "kospiTradeValueRanking", key = "#limit")
     public List<KrxRankingStock> getKospiTradeValueRanking(int limit) {
-        logger.info("Fetching KOSPI trade value ranking, limit: {} (with caching)", limit);
-        // Use MARKET_DATA_BLD since ranking BLDs may have different field structures
-        return fetchRankingData("STK", MARKET_DATA_BLD, "ACC_TRDVAL", limit);
+        logger.debug("Serving KOSPI trade value ranking from snapshot, limit: {}", limit);
+        return getMarketSnapshot("STK").top(MarketSnapshot.SortKey.TRADE_VALUE, limit);
     }
     
     /**
@@ -116,11 +193,9 @@ public class KrxApiService {
      * @param limit Number of stocks to return (default: 50)
      * @return List of KrxRankingStock sorted by price increase rate
      */
-    @Cacheable(value = "kospiPriceIncreaseRanking", key = "#limit")
     public List<KrxRankingStock> getKospiPriceIncreaseRanking(int limit) {
-        logger.info("Fetching KOSPI price increase ranking, limit: {} (with caching)", limit);
-        // Use MARKET_DATA_BLD since ranking BLDs may have different field structures
-        return fetchRankingData("STK", MARKET_DATA_BLD, "FLUC_RT", limit);
+        logger.debug("Serving KOSPI price increase ranking from snapshot, limit: {}", limit);
+        return getMarketSnapshot("STK").top(MarketSnapshot.SortKey.CHANGE_RATE_DESC, limit);
     }
     
     /**
@@ -129,9 +204,8 @@ public class KrxApiService {
      * @return List of KrxRankingStock sorted by price decrease rate
      */
     public List<KrxRankingStock> getKospiPriceDecreaseRanking(int limit) {
-        logger.info("Fetching KOSPI price decrease ranking, limit: {}", limit);
-        // Use MARKET_DATA_BLD since ranking BLDs may have different field structures
-        return fetchRankingData("STK", MARKET_DATA_BLD, "FLUC_RT_DESC", limit);
+        logger.debug("Serving KOSPI price decrease ranking from snapshot, limit: {}", limit);
+        return getMarketSnapshot("STK").top(MarketSnapshot.SortKey.CHANGE_RATE_ASC, limit);
     }
     
     /**
@@ -140,12 +214,8 @@ public class KrxApiService {
      * @return List of KrxRankingStock sorted by market capitalization
      */
     public List<KrxRankingStock> getKospiMarketCapRanking(int limit) {
-        logger.info("Fetching KOSPI market cap ranking, limit: {}", limit);
-        // Market cap doesn't have a specific BLD, so we use MARKET_DATA_BLD and sort by MKTCAP
-        // Fetch all available data and then limit after sorting
-        List<KrxRankingStock> allStocks = fetchRankingData("STK", MARKET_DATA_BLD, "MKTCAP", 500);
-        // Return only the requested limit
-        return allStocks.size() > limit ? allStocks.subList(0, limit) : allStocks;
+        logger.debug("Serving KOSPI market cap ranking from snapshot, limit: {}", limit);
+        return getMarketSnapshot("STK").top(MarketSnapshot.SortKey.MARKET_CAP, limit);
     }
     
     /**
@@ -154,9 +224,8 @@ public class KrxApiService {
      * @return List of KrxRankingStock sorted by volume
      */
     public List<KrxRankingStock> getKosdaqVolumeRanking(int limit) {
-        logger.info("Fetching KOSDAQ volume ranking, limit: {}", limit);
-        // Use MARKET_DATA_BLD since ranking BLDs may have different field structures
-        return fetchRankingData("KSQ", MARKET_DATA_BLD, "ACC_TRDVOL", limit);
+        logger.debug("Serving KOSDAQ volume ranking from snapshot, limit: {}", limit);
+        return getMarketSnapshot("KSQ").top(MarketSnapshot.SortKey.VOLUME, limit);
     }
     
     /**
@@ -165,9 +234,8 @@ public class KrxApiService {
      * @return List of KrxRankingStock sorted by trade value
      */
     public List<KrxRankingStock> getKosdaqTradeValueRanking(int limit) {
-        logger.info("Fetching KOSDAQ trade value ranking, limit: {}", limit);
-        // Use MARKET_DATA_BLD since ranking BLDs may have different field structures
-        return fetchRankingData("KSQ", MARKET_DATA_BLD, "ACC_TRDVAL", limit);
+        logger.debug("Serving KOSDAQ trade value ranking from snapshot, limit: {}", limit);
+        return getMarketSnapshot("KSQ").top(MarketSnapshot.SortKey.TRADE_VALUE, limit);
     }
     
     /**
@@ -176,9 +244,8 @@ public class KrxApiService {
      * @return List of KrxRankingStock sorted by price increase rate
      */
     public List<KrxRankingStock> getKosdaqPriceIncreaseRanking(int limit) {
-        logger.info("Fetching KOSDAQ price increase ranking, limit: {}", limit);
-        // Use MARKET_DATA_BLD since ranking BLDs may have different field structures
-        return fetchRankingData("KSQ", MARKET_DATA_BLD, "FLUC_RT", limit);
+        logger.debug("Serving KOSDAQ price increase ranking from snapshot, limit: {}", limit);
+        return getMarketSnapshot("KSQ").top(MarketSnapshot.SortKey.CHANGE_RATE_DESC, limit);
     }
     
     /**
@@ -187,9 +254,8 @@ public class KrxApiService {
      * @return List of KrxRankingStock sorted by price decrease rate
      */
     public List<KrxRankingStock> getKosdaqPriceDecreaseRanking(int limit) {
-        logger.info("Fetching KOSDAQ price decrease ranking, limit: {}", limit);
-        // Use MARKET_DATA_BLD since ranking BLDs may have different field structures
-        return fetchRankingData("KSQ", MARKET_DATA_BLD, "FLUC_RT_DESC", limit);
+        logger.debug("Serving KOSDAQ price decrease ranking from snapshot, limit: {}", limit);
+        return getMarketSnapshot("KSQ").top(MarketSnapshot.SortKey.CHANGE_RATE_ASC, limit);
     }
     
     /**
@@ -198,16 +264,245 @@ public class KrxApiService {
      * @return List of KrxRankingStock sorted by market capitalization
      */
     public List<KrxRankingStock> getKosdaqMarketCapRanking(int limit) {
-        logger.info("Fetching KOSDAQ market cap ranking, limit: {}", limit);
-        // Market cap doesn't have a specific BLD, so we use MARKET_DATA_BLD and sort by MKTCAP
-        // Fetch all available data and then limit after sorting
-        List<KrxRankingStock> allStocks = fetchRankingData("KSQ", MARKET_DATA_BLD, "MKTCAP", 500);
-        // Return only the requested limit
-        return allStocks.size() > limit ? allStocks.subList(0, limit) : allStocks;
+        logger.debug("Serving KOSDAQ market cap ranking from snapshot, limit: {}", limit);
+        return getMarketSnapshot("KSQ").top(MarketSnapshot.SortKey.MARKET_CAP, limit);
+    }
+    
+    /**
+     * Get the full-market snapshot for the current trading date.
+     * The snapshot is downloaded once per market and trading date; concurrent callers
+     * wait for the single in-progress load instead of issuing their own upstream call.
+     * @param market Market type (KOSPI/KOSDAQ or STK/KSQ)
+     * @return MarketSnapshot for the last trading date
+     */
+    public MarketSnapshot getMarketSnapshot(String market) {
+        String krxMarketCode = convertToKrxMarketCode(market);
+        snapshotLastAccess.put(krxMarketCode, System.currentTimeMillis());
+        
+        MarketSnapshot snapshot = snapshots.get(krxMarketCode);
+        if (snapshot != null) {
+            // Stale-while-revalidate: keep serving the current snapshot while a newer one loads
+            if (isSnapshotStale(snapshot, getLastTradingDate(), 0)) {
+                refreshSnapshotAsync(krxMarketCode);
+            }
+            return snapshot;
+        }
+        
+        // Cold start: only the first caller loads the snapshot, concurrent callers wait for the same load
+        return refreshSnapshot(krxMarketCode, OutboundCallScheduler.Priority.INTERACTIVE);
+    }
+    
+    /**
+     * Snapshot already in memory, without loading or refreshing it
+     * @return snapshot, or null if the market has not been loaded yet
+     */
+    public MarketSnapshot peekMarketSnapshot(String market) {
+        return snapshots.get(convertToKrxMarketCode(market));
+    }
+    
+    /**
+     * Snapshot in memory for pollers that must never wait on KRX. Counts as a read like
+     * {@link #getMarketSnapshot(String)}: a missing or stale snapshot is loaded in the background.
+     * @return snapshot, or null until the market has been loaded
+     */
+    public MarketSnapshot getLoadedMarketSnapshot(String market) {
+        String krxMarketCode = convertToKrxMarketCode(market);
+        snapshotLastAccess.put(krxMarketCode, System.currentTimeMillis());
+        
+        MarketSnapshot snapshot = snapshots.get(krxMarketCode);
+        if (snapshot == null || isSnapshotStale(snapshot, getLastTradingDate(), 0)) {
+            refreshSnapshotAsync(krxMarketCode);
+        }
+        return snapshot;
     }
     
     /**
-     * Fetch individual stock information with 5-minute caching
+     * Non-blocking variant of {@link #getMarketSnapshot(String)} for reactive controllers.
+     * A snapshot in memory is returned right away; only the cold-start load, which runs once per
+     * market and process, is moved off the caller's thread onto the bounded elastic scheduler.
+     */
+    public Mono<MarketSnapshot> getMarketSnapshotAsync(String market) {
+        return Mono.defer(() -> {
+            if (snapshots.containsKey(convertToKrxMarketCode(market))) {
+                return Mono.just(getMarketSnapshot(market));
+            }
+            return Mono.fromCallable(() -> getMarketSnapshot(market)).subscribeOn(Schedulers.boundedElastic());
+        });
+    }
+    
+    /**
+     * Top {@code limit} stocks of a market for the given ranking, see {@link #getMarketSnapshotAsync(String)}
+     */
+    public Mono<List<KrxRankingStock>> getRankingAsync(String market, MarketSnapshot.SortKey sortKey, int limit) {
+        return getMarketSnapshotAsync(market).map(snapshot -> snapshot.top(sortKey, limit));
+    }
+    
+    /**
+     * Top {@code limit} stocks of KOSPI and KOSDAQ together for the given ranking.
+     * A market whose snapshot cannot be loaded is left out; if both fail the result is empty.
+     */
+    public Mono<List<KrxRankingStock>> getCombinedRankingAsync(MarketSnapshot.SortKey sortKey, int limit) {
+        return Mono.zip(snapshotOrEmpty("KOSPI"), snapshotOrEmpty("KOSDAQ"))
+            .map(both -> {
+                MarketSnapshot kospi = both.getT1().orElse(null);
+                MarketSnapshot kosdaq = both.getT2().orElse(null);
+                if (kospi == null || kosdaq == null) {
+                    return kospi != null ? kospi.top(sortKey, limit)
+                        : kosdaq != null ? kosdaq.top(sortKey, limit) : new ArrayList<KrxRankingStock>();
+                }
+                return combinedRankingFor(kospi, kosdaq).top(sortKey, limit);
+            });
+    }
+    
+    private Mono<Optional<MarketSnapshot>> snapshotOrEmpty(String market) {
+        return getMarketSnapshotAsync(market)
+            .map(Optional::of)
+            .onErrorResume(e -> {
+                logger.error("Failed to load {} snapshot for combined ranking: {}", market, e.getMessage());
+                return Mono.just(Optional.empty());
+            });
+    }
+    
+    private CombinedMarketRanking combinedRankingFor(MarketSnapshot kospi, MarketSnapshot kosdaq) {
+        CombinedMarketRanking current = combinedRanking;
+        if (current == null || !current.covers(kospi, kosdaq)) {
+            current = new CombinedMarketRanking(kospi, kosdaq);
+            combinedRanking = current;
+        }
+        return current;
+    }
+    
+    /**
+     * Non-blocking variant of {@link #getIndividualStockInfo(String, String)}. Listed tickers are served
+     * from the market snapshot; the individual endpoint fallback runs on the bounded elastic scheduler.
+     * @return stock info, or empty if the ticker was not found
+     */
+    public Mono<KrxStockInfo> getIndividualStockInfoAsync(String ticker, String market) {
+        return getMarketSnapshotAsync(market)
+            .mapNotNull(snapshot -> snapshot.findByTicker(ticker))
+            .onErrorResume(e -> {
+                logger.warn("Market snapshot unavailable for {}, trying individual endpoint: {}", market, e.getMessage());
+                return Mono.empty();
+            })
+            .switchIfEmpty(Mono.fromCallable(() -> getIndividualStockInfo(ticker, market))
+                .subscribeOn(Schedulers.boundedElastic()));
+    }
+    
+    /**
+     * Refresh snapshots of markets read within the hot-key window that are about to go stale.
+     * Called by {@link MarketSnapshotRefreshScheduler}.
+     */
+    public void refreshHotSnapshots() {
+        long hotSince = System.currentTimeMillis() - krxApiConfig.getHotKeyWindowMinutes() * 60_000L;
+        long leadMillis = krxApiConfig.getRefreshLeadSeconds() * 1000L;
+        String tradingDate = getLastTradingDate();
+        
+        snapshotLastAccess.forEach((krxMarketCode, lastAccess) -> {
+            if (lastAccess < hotSince) {
+                return;
+            }
+            MarketSnapshot snapshot = snapshots.get(krxMarketCode);
+            if (snapshot == null || isSnapshotStale(snapshot, tradingDate, leadMillis)) {
+                refreshSnapshotAsync(krxMarketCode);
+            }
+        });
+    }
+    
+    /**
+     * A snapshot is stale when the trading date moved on, when it is older than the refresh interval
+     * (minus {@code leadMillis}) during a KRX session (holidays excluded), or when it was loaded before the session closed
+     */
+    private boolean isSnapshotStale(MarketSnapshot snapshot, String tradingDate, long leadMillis) {
+        if (!snapshot.getTradingDate().equals(tradingDate)) {
+            return true;
+        }
+        ZonedDateTime now = ZonedDateTime.now(MarketHoursCacheExpiry.KST);
+        if (MarketHoursCacheExpiry.isSessionOpen(now, tradingCalendar::isTradingDay)) {
+            long age = System.currentTimeMillis() - snapshot.getLoadedAt();
+            return age >= krxApiConfig.getSnapshotRefreshSeconds() * 1000L - leadMillis;
+        }
+        // One final refresh after the close picks up the closing prices
+        ZonedDateTime loadedAt = Instant.ofEpochMilli(snapshot.getLoadedAt()).atZone(MarketHoursCacheExpiry.KST);
+        return MarketHoursCacheExpiry.isSessionOpen(loadedAt, tradingCalendar::isTradingDay);
+    }
+    
+    private void refreshSnapshotAsync(String krxMarketCode) {
+        long now = System.currentTimeMillis();
+        Long lastRefresh = lastSnapshotRefresh.get(krxMarketCode);
+        if (lastRefresh != null && now - lastRefresh < MIN_SNAPSHOT_REFRESH_INTERVAL_MILLIS) {
+            return;
+        }
+        if (!refreshingSnapshots.add(krxMarketCode)) {
+            return;
+        }
+        lastSnapshotRefresh.put(krxMarketCode, now);
+        try {
+            stockRefreshExecutor.execute(() -> {
+                try {
+                    refreshSnapshot(krxMarketCode, OutboundCallScheduler.Priority.BACKGROUND);
+                } catch (Exception e) {
+                    logger.warn("Background refresh of {} snapshot failed, keeping the current one: {}", 
+                        krxMarketCode, e.getMessage());
+                } finally {
+                    refreshingSnapshots.remove(krxMarketCode);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshingSnapshots.remove(krxMarketCode);
+            logger.warn("Could not schedule refresh of {} snapshot: {}", krxMarketCode, e.getMessage());
+        }
+    }
+    
+    /**
+     * Load the snapshot for the current trading date and publish it.
+     * An empty load (e.g. before KRX publishes the day's data) does not replace a non-empty snapshot.
+     */
+    private MarketSnapshot refreshSnapshot(String krxMarketCode, OutboundCallScheduler.Priority priority) {
+        return requestCoalescer.execute("snapshot:" + krxMarketCode, () -> {
+            MarketSnapshot loaded = loadMarketSnapshot(krxMarketCode, getLastTradingDate(), priority);
+            MarketSnapshot current = snapshots.get(krxMarketCode);
+            if (loaded.size() == 0 && current != null && current.size() > 0) {
+                logger.warn("Empty {} snapshot for trading date {}, keeping snapshot of {}", 
+                    krxMarketCode, loaded.getTradingDate(), current.getTradingDate());
+                return current;
+            }
+            snapshots.put(krxMarketCode, loaded);
+            if (loaded.size() > 0) {
+                marketSnapshotStore.save(krxMarketCode, loaded);
+            }
+            return loaded;
+        });
+    }
+    
+    /**
+     * Freshness of the snapshot currently served for a market. A snapshot is stale when it was restored
+     * from disk, is not for the last trading date, or the KRX market data circuit is not closed.
+     * @return status, or null if no snapshot has been loaded for the market
+     */
+    public SnapshotStatus getSnapshotStatus(String market) {
+        String krxMarketCode = convertToKrxMarketCode(market);
+        MarketSnapshot snapshot = snapshots.get(krxMarketCode);
+        if (snapshot == null) {
+            return null;
+        }
+        boolean stale = snapshot.isRestored()
+            || !snapshot.getTradingDate().equals(getLastTradingDate())
+            || circuitBreakerFor(MARKET_DATA_BLD).getState() != UpstreamCircuitBreaker.State.CLOSED;
+        return new SnapshotStatus(krxMarketCode, snapshot.getTradingDate(), snapshot.getLoadedAt(), stale);
+    }
+    
+    /**
+     * @return state of every KRX endpoint circuit called so far
+     */
+    public Map<String, String> getCircuitStates() {
+        Map<String, String> states = new HashMap<>();
+        circuitBreakers.forEach((endpoint, breaker) -> states.put(endpoint, breaker.getState().name()));
+        return states;
+    }
+    
+    /**
+     * Fetch individual stock information with market-hours aware caching (see AppConfig)
+     * Served from the market snapshot when the ticker is listed there
      * @param ticker Stock ticker symbol (e.g., "005930" for Samsung Electronics)
      * @param market Market type ("KOSPI" for main market, "KOSDAQ" for growth market)
      * @return KrxStockInfo containing detailed stock information
@@ -219,6 +514,25 @@ public class KrxApiService {
         // Convert user-friendly market names to KRX API codes internally
         String krxMarketCode = convertToKrxMarketCode(market);
         
+        try {
+            KrxStockInfo snapshotInfo = getMarketSnapshot(krxMarketCode).findByTicker(ticker);
+            if (snapshotInfo != null) {
+                return snapshotInfo;
+            }
+            logger.info("Ticker {} not found in {} snapshot, trying individual endpoint", ticker, krxMarketCode);
+        } catch (Exception e) {
+            logger.warn("Market snapshot unavailable for {}, trying individual endpoint: {}", krxMarketCode, e.getMessage());
+        }
+        
+        // Concurrent misses for the same ticker share one upstream call
+        return requestCoalescer.execute("individualStockInfo:" + krxMarketCode + ":" + ticker,
+            () -> fetchIndividualStockInfo(ticker, market, krxMarketCode));
+    }
+    
+    /**
+     * Fetch individual stock information from the individual stock endpoint, falling back to market data
+     */
+    private KrxStockInfo fetchIndividualStockInfo(String ticker, String market, String krxMarketCode) {
         try {
             // Use the individual stock endpoint
             MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
@@ -231,22 +545,17 @@ public class KrxApiService {
             params.add("csvxls_isNo", "false");
             
             logger.info("KRX individual stock request params: {}", params);
-            String response = executeApiCall(params);
-            JsonNode root = objectMapper.readTree(response);
             
-            // Check multiple possible response structures
-            JsonNode stockData = null;
-            if (root.has("OutBlock_1") && root.path("OutBlock_1").isArray() && root.path("OutBlock_1").size() > 0) {
-                stockData = root.path("OutBlock_1").get(0);
-            } else if (root.has("output") && root.path("output").isArray() && root.path("output").size() > 0) {
-                stockData = root.path("output").get(0);
-            } else if (root.has("block1") && root.path("block1").isArray() && root.path("block1").size() > 0) {
-                stockData = root.path("block1").get(0);
-            }
+            // Only the first row is needed, stop reading the response once it is mapped
+            KrxStockInfo[] stockData = new KrxStockInfo[1];
+            streamApiCall(params, ROW_ARRAY_FIELDS, row -> {
+                stockData[0] = mapToKrxStockInfo(row);
+                return false;
+            });
             
-            if (stockData != null) {
+            if (stockData[0] != null) {
                 logger.info("Found stock data for ticker: {}", ticker);
-                return mapToKrxStockInfo(stockData);
+                return stockData[0];
             } else {
                 logger.warn("No stock data found for ticker: {} using individual endpoint, trying market data fallback", ticker);
                 // Fallback to market data endpoint (pass the KRX market code)
@@ -271,125 +580,28 @@ public class KrxApiService {
      * Fetch historical price data using KRX MDCSTAT01701 endpoint
      * This endpoint provides real historical stock price data
      */
-    @Cacheable(value = "historicalPrices", key = "#ticker + '_' + #market + '_' + #periodDays")
     public List<KrxStockInfo> getHistoricalPrices(String ticker, String market, int periodDays) {
         logger.info("=== getHistoricalPrices called ===");
         logger.info("Fetching historical prices for ticker: {}, market: {}, period: {} days", ticker, market, periodDays);
         
-        List<KrxStockInfo> historicalData = new ArrayList<>();
+        LocalDate endDate = LocalDate.now();
+        // If it's before market close, use previous day
+        if (LocalDateTime.now().getHour() < 16) {
+            endDate = endDate.minusDays(1);
+        }
+        // Skip weekends and KRX holidays
+        endDate = tradingCalendar.previousOrSame(endDate);
+        LocalDate startDate = tradingCalendar.previousOrSame(endDate.minusDays(periodDays - 1));
         
         try {
-            LocalDate endDate = LocalDate.now();
-            // If it's before market close, use previous day
-            if (LocalDateTime.now().getHour() < 16) {
-                endDate = endDate.minusDays(1);
-            }
-            // Skip weekends
-            while (endDate.getDayOfWeek().getValue() > 5) {
-                endDate = endDate.minusDays(1);
-            }
-            
-            LocalDate startDate = endDate.minusDays(periodDays - 1);
-            // Skip weekends for start date too
-            while (startDate.getDayOfWeek().getValue() > 5) {
-                startDate = startDate.minusDays(1);
-            }
-            
-            String startDateStr = startDate.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-            String endDateStr = endDate.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-            
-            logger.info("Date range: {} to {} ({} days)", startDateStr, endDateStr, periodDays);
-            
-            // Prepare parameters for MDCSTAT01701 endpoint
-            MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-            params.add("bld", HISTORICAL_PRICE_BLD);
-            params.add("locale", "ko_KR");
-            params.add("isuCd", ticker); // Stock code
-            params.add("mktId", convertToKrxMarketCode(market)); // Add market ID
-            params.add("strtDd", startDateStr); // Start date
-            params.add("endDd", endDateStr); // End date
-            params.add("adjStkPrc_check", "Y"); // Include adjusted price
-            params.add("adjStkPrc", "2"); // Adjustment type
-            params.add("share", "1");
-            params.add("money", "1");
-            params.add("csvxls_isNo", "false");
-            
-            logger.info("Requesting historical data from {} to {} for ticker {}", startDateStr, endDateStr, ticker);
-            
-            String response = executeApiCall(params);
-            JsonNode root = objectMapper.readTree(response);
-            
-            // Log response structure for debugging
-            logger.info("Response has OutBlock_1: {}, has output: {}", 
-                root.has("OutBlock_1"), root.has("output"));
-            
-            // Parse the response - try multiple possible response structures
-            JsonNode dataArray = null;
-            if (root.has("output") && root.path("output").isArray()) {
-                dataArray = root.path("output");
-                logger.info("Using 'output' field with {} items", dataArray.size());
-            } else if (root.has("OutBlock_1") && root.path("OutBlock_1").isArray()) {
-                dataArray = root.path("OutBlock_1");
-                logger.info("Using 'OutBlock_1' field with {} items", dataArray.size());
-            } else if (root.has("result") && root.path("result").isArray()) {
-                dataArray = root.path("result");
-                logger.info("Using 'result' field with {} items", dataArray.size());
-            } else if (root.has("block1") && root.path("block1").isArray()) {
-                dataArray = root.path("block1");
-                logger.info("Using 'block1' field with {} items", dataArray.size());
-            } else {
-                // Log available fields for debugging
-                Iterator<String> fieldNames = root.fieldNames();
-                List<String> fields = new ArrayList<>();
-                while (fieldNames.hasNext()) {
-                    fields.add(fieldNames.next());
-                }
-                logger.warn("No array field found. Available fields: {}", fields);
-                
-                // Log a sample of the response for debugging
-                String responseSnippet = response.substring(0, Math.min(response.length(), 500));
-                logger.info("Response snippet: {}", responseSnippet);
-            }
-            
-            if (dataArray != null && dataArray.isArray() && dataArray.size() > 0) {
-                logger.info("Found {} historical data points", dataArray.size());
-                
-                for (JsonNode dayData : dataArray) {
-                    KrxStockInfo priceInfo = new KrxStockInfo();
-                    
-                    // Map the fields from the response - check multiple possible field names
-                    priceInfo.setTicker(ticker);
-                    priceInfo.setName(dayData.path("ISU_ABBRV").asText(dayData.path("ISU_NM").asText("")));
-                    
-                    // Trade date might be in different fields
-                    String tradeDate = dayData.path("TRD_DD").asText("");
-                    if (tradeDate.isEmpty()) {
-                        tradeDate = dayData.path("BAS_DD").asText("");
-                    }
-                    priceInfo.setTradeDate(tradeDate);
-                    
-                    priceInfo.setOpenPrice(dayData.path("TDD_OPNPRC").asText(dayData.path("OPNPRC").asText("0"))); // Opening price
-                    priceInfo.setHighPrice(dayData.path("TDD_HGPRC").asText(dayData.path("HGPRC").asText("0"))); // High price
-                    priceInfo.setLowPrice(dayData.path("TDD_LWPRC").asText(dayData.path("LWPRC").asText("0"))); // Low price
-                    priceInfo.setClosePrice(dayData.path("TDD_CLSPRC").asText(dayData.path("CLSPRC").asText("0"))); // Closing price
-                    priceInfo.setVolume(dayData.path("ACC_TRDVOL").asText(dayData.path("TRDVOL").asText("0"))); // Trading volume
-                    priceInfo.setTradeValue(dayData.path("ACC_TRDVAL").asText(dayData.path("TRDVAL").asText("0"))); // Trading value
-                    priceInfo.setPriceChange(dayData.path("CMPPREVDD_PRC").asText(dayData.path("PRDYPRC").asText("0"))); // Price change
-                    priceInfo.setChangeRate(dayData.path("FLUC_RT").asText(dayData.path("FLUCRT").asText("0"))); // Change rate
-                    
-                    historicalData.add(priceInfo);
-                }
-                
-                logger.info("Successfully fetched {} historical data points for ticker {}", 
-                    historicalData.size(), ticker);
-            } else {
-                logger.warn("No historical data found in KRX response for ticker: {}, period: {} days", ticker, periodDays);
-                // Return empty list - no mock data
-            }
+            // Shorter periods are views of the widest range fetched so far for this ticker
+            return historicalSeriesCache.get(ticker + "_" + market, startDate, endDate,
+                (from, to) -> fetchHistoricalPrices(ticker, market, from, to));
             
         } catch (Exception e) {
             logger.error("Failed to fetch historical prices for ticker: {}", ticker, e);
             // On error, try to return at least current data
+            List<KrxStockInfo> historicalData = new ArrayList<>();
             try {
                 KrxStockInfo currentInfo = getIndividualStockInfo(ticker, market);
                 if (currentInfo != null) {
@@ -399,40 +611,127 @@ public class KrxApiService {
             } catch (Exception ex) {
                 logger.error("Failed to fetch even current data", ex);
             }
+            return historicalData;
+        }
+    }
+    
+    /**
+     * Fetch daily prices for an inclusive date range from the MDCSTAT01701 endpoint
+     * @throws RuntimeException if the KRX call fails
+     */
+    private List<KrxStockInfo> fetchHistoricalPrices(String ticker, String market, LocalDate startDate, LocalDate endDate) {
+        List<KrxStockInfo> historicalData = new ArrayList<>();
+        
+        String startDateStr = startDate.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+        String endDateStr = endDate.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+        
+        // Prepare parameters for MDCSTAT01701 endpoint
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("bld", HISTORICAL_PRICE_BLD);
+        params.add("locale", "ko_KR");
+        params.add("isuCd", ticker); // Stock code
+        params.add("mktId", convertToKrxMarketCode(market)); // Add market ID
+        params.add("strtDd", startDateStr); // Start date
+        params.add("endDd", endDateStr); // End date
+        params.add("adjStkPrc_check", "Y"); // Include adjusted price
+        params.add("adjStkPrc", "2"); // Adjustment type
+        params.add("share", "1");
+        params.add("money", "1");
+        params.add("csvxls_isNo", "false");
+        
+        logger.info("Requesting historical data from {} to {} for ticker {}", startDateStr, endDateStr, ticker);
+        
+        // Parse the response - rows may come in any of the known array fields
+        JsonRowStreamReader.Result result = streamApiCall(params, ROW_ARRAY_FIELDS, dayData -> {
+            KrxStockInfo priceInfo = new KrxStockInfo();
+            
+            // Map the fields from the response - check multiple possible field names
+            priceInfo.setTicker(ticker);
+            priceInfo.setName(dayData.text("ISU_ABBRV", dayData.text("ISU_NM", "")));
+            
+            // Trade date might be in different fields
+            String tradeDate = dayData.text("TRD_DD", "");
+            if (tradeDate.isEmpty()) {
+                tradeDate = dayData.text("BAS_DD", "");
+            }
+            // Normalize "yyyy/MM/dd" to yyyyMMdd so the series can be sliced by date
+            priceInfo.setTradeDate(tradeDate.replace("/", "").replace("-", ""));
+            
+            priceInfo.setOpenPrice(dayData.text("TDD_OPNPRC", dayData.text("OPNPRC", "0"))); // Opening price
+            priceInfo.setHighPrice(dayData.text("TDD_HGPRC", dayData.text("HGPRC", "0"))); // High price
+            priceInfo.setLowPrice(dayData.text("TDD_LWPRC", dayData.text("LWPRC", "0"))); // Low price
+            priceInfo.setClosePrice(dayData.text("TDD_CLSPRC", dayData.text("CLSPRC", "0"))); // Closing price
+            priceInfo.setVolume(dayData.text("ACC_TRDVOL", dayData.text("TRDVOL", "0"))); // Trading volume
+            priceInfo.setTradeValue(dayData.text("ACC_TRDVAL", dayData.text("TRDVAL", "0"))); // Trading value
+            priceInfo.setPriceChange(dayData.text("CMPPREVDD_PRC", dayData.text("PRDYPRC", "0"))); // Price change
+            priceInfo.setChangeRate(dayData.text("FLUC_RT", dayData.text("FLUCRT", "0"))); // Change rate
+            
+            historicalData.add(priceInfo);
+            return true;
+        });
+        
+        if (result.getArrayField() == null) {
+            // Log available fields for debugging
+            logger.warn("No array field found. Available fields: {}", result.getTopLevelFields());
         }
         
+        if (!historicalData.isEmpty()) {
+            logger.info("Using '{}' field with {} items", result.getArrayField(), result.getRowCount());
+            logger.info("Successfully fetched {} historical data points for ticker {}", 
+                historicalData.size(), ticker);
+        } else {
+            logger.warn("No historical data found in KRX response for ticker: {}, range: {} ~ {}", ticker, startDateStr, endDateStr);
+            // Return empty list - no mock data
+        }
+        
+        // Oldest first, matching the cached series order
+        historicalData.sort((x, y) -> x.getTradeDate().compareTo(y.getTradeDate()));
         return historicalData;
     }
     
     /**
-     * Fallback method to get individual stock info from market data
+     * Fetch the ISIN of every listed ETF
+     * @return ISIN keyed by short ticker code
      */
-    private KrxStockInfo getIndividualStockInfoFromMarketData(String ticker, String market) {
+    public Map<String, String> getEtfIsins() {
         try {
-            MultiValueMap<String, String> params = createBaseParams(market, MARKET_DATA_BLD);
-            
-            String response = executeApiCall(params);
-            JsonNode root = objectMapper.readTree(response);
-            JsonNode blocks = root.path("OutBlock_1");
+            MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+            params.add("bld", ETF_LISTING_BLD);
+            params.add("locale", "ko_KR");
+            params.add("share", "1");
+            params.add("csvxls_isNo", "false");
             
-            if (blocks.isArray() && blocks.size() > 0) {
-                logger.info("Found {} stock entries in market data for ticker: {}", blocks.size(), ticker);
-                
-                // Look for the specific ticker in the response
-                for (JsonNode stockEntry : blocks) {
-                    String responseTicker = stockEntry.path("ISU_SRT_CD").asText("");
-                    if (ticker.equals(responseTicker)) {
-                        logger.info("Found matching ticker {} in market data", ticker);
-                        return mapToKrxStockInfo(stockEntry);
-                    }
+            Map<String, String> etfIsins = new HashMap<>();
+            // Only used to rebuild the ticker directory, so it queues behind interactive calls
+            streamApiCall(params, ROW_ARRAY_FIELDS, OutboundCallScheduler.Priority.BACKGROUND, row -> {
+                String ticker = row.text("ISU_SRT_CD", "");
+                if (!ticker.isEmpty()) {
+                    etfIsins.put(symbolDictionary.intern(ticker), symbolDictionary.intern(row.text("ISU_CD", "")));
                 }
-                
-                logger.error("Ticker {} not found in market data response", ticker);
-                return null;
-            } else {
-                logger.warn("No stock data found in market data for ticker: {} in market: {}", ticker, market);
-                return null;
+                return true;
+            });
+            logger.info("Loaded {} ETF listings", etfIsins.size());
+            if (!etfIsins.isEmpty()) {
+                etfMembership = EtfMembership.of(etfIsins.keySet());
             }
+            return etfIsins;
+            
+        } catch (Exception e) {
+            logger.error("Failed to fetch ETF listing", e);
+            throw new RuntimeException("Failed to fetch ETF listing: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Fallback method to get individual stock info from market data
+     */
+    private KrxStockInfo getIndividualStockInfoFromMarketData(String ticker, String market) {
+        try {
+            KrxStockInfo stockInfo = getMarketSnapshot(market).findByTicker(ticker);
+            if (stockInfo == null) {
+                logger.error("Ticker {} not found in market data for market: {}", ticker, market);
+            }
+            return stockInfo;
         } catch (Exception e) {
             logger.error("Failed to fetch stock from market data for ticker: {}", ticker, e);
             return null;
@@ -440,75 +739,39 @@ public class KrxApiService {
     }
     
     /**
-     * Generic method to fetch ranking data from KRX API
+     * Download the full market table from KRX and build a snapshot with precomputed sort orders
      */
-    private List<KrxRankingStock> fetchRankingData(String market, String bld, String sortField, int limit) {
-        List<KrxRankingStock> rankings = new ArrayList<>();
-        
+    private MarketSnapshot loadMarketSnapshot(String market, String tradingDate, OutboundCallScheduler.Priority priority) {
         try {
-            MultiValueMap<String, String> params = createBaseParams(market, bld);
-            
-            String response = executeApiCall(params);
-            JsonNode root = objectMapper.readTree(response);
-            
-            // Log the structure to understand the response
-            logger.info("Response structure - has OutBlock_1: {}, has block1: {}, has output: {}", 
-                root.has("OutBlock_1"), root.has("block1"), root.has("output"));
+            MultiValueMap<String, String> params = createBaseParams(market, MARKET_DATA_BLD);
+            params.set("trdDd", tradingDate);
             
-            // Try different possible response structures
-            JsonNode blocks = null;
-            if (root.has("OutBlock_1")) {
-                blocks = root.path("OutBlock_1");
-            } else if (root.has("block1")) {
-                blocks = root.path("block1");
-            } else if (root.has("output")) {
-                blocks = root.path("output");
-            } else if (root.isArray()) {
-                blocks = root;
-            }
+            // Rows are appended to the snapshot columns as they are parsed from the response stream
+            MarketSnapshot.Builder builder = MarketSnapshot.builder(market, tradingDate, SNAPSHOT_INITIAL_CAPACITY);
+            JsonRowStreamReader.Result result = streamApiCall(params, ROW_ARRAY_FIELDS, priority, stock -> {
+                appendSnapshotRow(builder, stock);
+                return true;
+            });
             
-            if (blocks != null && blocks.isArray() && blocks.size() > 0) {
-                logger.info("Found {} stocks in response for market: {}", blocks.size(), market);
-                
-                // Convert to list for sorting using wrapper class
-                List<StockDataWrapper> allStocks = new ArrayList<>();
-                
-                for (JsonNode stock : blocks) {
-                    StockDataWrapper wrapper = createStockDataWrapper(stock);
-                    if (wrapper != null) {
-                        allStocks.add(wrapper);
-                    }
-                }
-                
-                logger.info("Created {} valid stock wrappers from {} total", allStocks.size(), blocks.size());
-                
-                // Sort based on sortField
-                sortWrappedStocksByField(allStocks, sortField);
-                
-                // Take only the requested limit and convert to KrxRankingStock
-                int actualLimit = Math.min(limit, allStocks.size());
-                for (int i = 0; i < actualLimit; i++) {
-                    StockDataWrapper wrapper = allStocks.get(i);
-                    KrxRankingStock stock = wrapper.toKrxRankingStock(i + 1);
-                    rankings.add(stock);
-                }
-                
-                logger.info("Successfully fetched {} ranking stocks for market: {}, sorted by: {}", 
-                    rankings.size(), market, sortField);
+            if (result.getRowCount() > 0) {
+                logger.info("Added {} valid stock rows from {} total in '{}' for market: {}", 
+                    builder.size(), result.getRowCount(), result.getArrayField(), market);
             } else {
-                logger.warn("No ranking data found for market: {}, bld: {}. Response keys: {}", 
-                    market, bld, root.fieldNames());
+                logger.warn("No market data found for market: {}, trading date: {}. Response keys: {}", 
+                    market, tradingDate, result.getTopLevelFields());
             }
             
+            MarketSnapshot snapshot = builder.build();
+            logger.info("Loaded market snapshot for market: {}, trading date: {} with {} stocks", 
+                market, tradingDate, snapshot.size());
+            return snapshot;
+            
         } catch (Exception e) {
-            logger.error("Failed to fetch ranking data for market: {}, bld: {}", market, bld, e);
+            logger.error("Failed to load market snapshot for market: {}, trading date: {}", market, tradingDate, e);
             throw new RuntimeException("Failed to fetch ranking data: " + e.getMessage(), e);
         }
-        
-        return rankings;
     }
     
-    
     /**
      * Create base parameters for KRX API requests
      */
@@ -525,58 +788,54 @@ public class KrxApiService {
     }
     
     /**
-     * Get the most recent trading date (excludes weekends)
+     * Get the most recent trading date (excludes weekends and KRX holidays, see KrxTradingCalendar)
      */
     public String getLastTradingDate() {
-        LocalDate date = LocalDate.now();
-        
-        // Go back to the most recent weekday (Monday-Friday)
-        while (date.getDayOfWeek().getValue() > 5) { // Saturday=6, Sunday=7
-            date = date.minusDays(1);
-        }
-        
-        // For early morning hours before market open (9 AM), use previous trading day
-        LocalDateTime now = LocalDateTime.now();
-        if (now.getHour() < 9) {
-            date = date.minusDays(1);
-            // Ensure it's still a weekday
-            while (date.getDayOfWeek().getValue() > 5) {
-                date = date.minusDays(1);
-            }
-        }
-        
-        String tradingDate = date.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        logger.info("Using trading date: {}", tradingDate);
-        return tradingDate;
+        return tradingCalendar.lastTradingDate();
     }
     
     /**
-     * Execute API call to KRX with proper error handling
+     * Execute an interactive API call to KRX and stream the row array of the response into the handler
      */
-    private String executeApiCall(MultiValueMap<String, String> params) {
+    private JsonRowStreamReader.Result streamApiCall(MultiValueMap<String, String> params, Set<String> arrayFields,
+                                                     JsonRowStreamReader.RowHandler handler) {
+        return streamApiCall(params, arrayFields, OutboundCallScheduler.Priority.INTERACTIVE, handler);
+    }
+    
+    /**
+     * Execute API call to KRX and stream the row array of the response into the handler
+     * without buffering the body as a String or JSON tree
+     */
+    private JsonRowStreamReader.Result streamApiCall(MultiValueMap<String, String> params, Set<String> arrayFields,
+                                                     OutboundCallScheduler.Priority priority,
+                                                     JsonRowStreamReader.RowHandler handler) {
         try {
             logger.info("Making KRX API call with params: {}", params);
             
-            String response = webClient.post()
+            Flux<DataBuffer> body = webClient.post()
                     .uri("")
                     .contentType(MediaType.APPLICATION_FORM_URLENCODED)
                     .acceptCharset(StandardCharsets.UTF_8)
                     .header("Origin", "http://data.krx.co.kr")
                     .body(Mono.just(params), MultiValueMap.class)
                     .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
+                    .bodyToFlux(DataBuffer.class);
+            
+            JsonRowStreamReader.Result result = circuitBreakerFor(params.getFirst("bld")).guard(
+                () -> outboundCallScheduler.schedule(krxApiConfig.getBaseUrl(), priority,
+                    () -> jsonRowStreamReader.read(body, arrayFields, handler).timeout(requestTimeout()))).block();
             
-            if (response == null || response.trim().isEmpty()) {
+            if (result == null || result.isEmpty()) {
                 logger.error("Empty response from KRX API");
                 throw new RuntimeException("Empty response from KRX API");
             }
             
-            logger.info("Received response from KRX API, length: {}", response.length());
-            // Log first 500 characters of response for debugging
-            logger.debug("Response preview: {}", response.substring(0, Math.min(response.length(), 500)));
-            return response;
+            logger.info("Streamed {} rows from KRX API response{}", result.getRowCount(),
+                result.isStoppedEarly() ? " (stopped early)" : "");
+            return result;
             
+        } catch (OutboundCallScheduler.ThrottledException | UpstreamCircuitBreaker.CircuitOpenException e) {
+            throw e;
         } catch (WebClientResponseException e) {
             logger.error("WebClient error calling KRX API: Status={}, Body={}", 
                 e.getStatusCode(), e.getResponseBodyAsString());
@@ -590,23 +849,23 @@ public class KrxApiService {
     /**
      * Map KRX API response to KrxStockInfo DTO
      */
-    private KrxStockInfo mapToKrxStockInfo(JsonNode stockData) {
+    private KrxStockInfo mapToKrxStockInfo(JsonRowStreamReader.JsonRow stockData) {
         KrxStockInfo stockInfo = new KrxStockInfo();
         
-        stockInfo.setTicker(stockData.path("ISU_SRT_CD").asText(""));
-        stockInfo.setName(stockData.path("ISU_ABBRV").asText(""));
-        stockInfo.setClosePrice(stockData.path("TDD_CLSPRC").asText("0"));
-        stockInfo.setPriceChange(stockData.path("CMPPREVDD_PRC").asText("0"));
-        stockInfo.setChangeRate(stockData.path("FLUC_RT").asText("0"));
-        stockInfo.setVolume(stockData.path("ACC_TRDVOL").asText("0"));
-        stockInfo.setTradeValue(stockData.path("ACC_TRDVAL").asText("0"));
-        stockInfo.setMarketCap(stockData.path("MKTCAP").asText("0"));
-        stockInfo.setListedShares(stockData.path("LIST_SHRS").asText("0"));
+        stockInfo.setTicker(stockData.text("ISU_SRT_CD", ""));
+        stockInfo.setName(stockData.text("ISU_ABBRV", ""));
+        stockInfo.setClosePrice(stockData.text("TDD_CLSPRC", "0"));
+        stockInfo.setPriceChange(stockData.text("CMPPREVDD_PRC", "0"));
+        stockInfo.setChangeRate(stockData.text("FLUC_RT", "0"));
+        stockInfo.setVolume(stockData.text("ACC_TRDVOL", "0"));
+        stockInfo.setTradeValue(stockData.text("ACC_TRDVAL", "0"));
+        stockInfo.setMarketCap(stockData.text("MKTCAP", "0"));
+        stockInfo.setListedShares(stockData.text("LIST_SHRS", "0"));
         
         // Add missing OHLC price fields
-        stockInfo.setOpenPrice(stockData.path("TDD_OPNPRC").asText("0"));
-        stockInfo.setHighPrice(stockData.path("TDD_HGPRC").asText("0"));
-        stockInfo.setLowPrice(stockData.path("TDD_LWPRC").asText("0"));
+        stockInfo.setOpenPrice(stockData.text("TDD_OPNPRC", "0"));
+        stockInfo.setHighPrice(stockData.text("TDD_HGPRC", "0"));
+        stockInfo.setLowPrice(stockData.text("TDD_LWPRC", "0"));
         
         return stockInfo;
     }
@@ -629,34 +888,6 @@ public class KrxApiService {
         }
     }
     
-    /**
-     * Format large numbers for display using Korean units (억/만)
-     */
-    private String formatLargeNumber(String value) {
-        if (value == null || value.trim().isEmpty() || "-".equals(value.trim())) {
-            return "0";
-        }
-        
-        try {
-            long number = Long.parseLong(value.replace(",", "").trim());
-            
-            if (number >= 100_000_000L) { // 억 (100 million)
-                double eok = number / 100_000_000.0;
-                if (eok >= 10000) { // 조 (1 trillion = 10,000 억)
-                    return decimalFormat.format(eok / 10000.0) + "조";
-                }
-                return decimalFormat.format(eok) + "억";
-            } else if (number >= 10_000L) { // 만 (10 thousand)
-                return decimalFormat.format(number / 10_000.0) + "만";
-            } else {
-                return numberFormat.format(number);
-            }
-        } catch (NumberFormatException e) {
-            logger.debug("Failed to format large number: {}", value);
-            return value;
-        }
-    }
-    
     /**
      * Convert user-friendly market names to KRX API codes
      * @param market User-friendly market name (KOSPI, KOSDAQ)
@@ -693,20 +924,11 @@ public class KrxApiService {
             MultiValueMap<String, String> testParams = createBaseParams("STK", MARKET_DATA_BLD);
             logger.info("Test params: {}", testParams);
             
-            String response = executeApiCall(testParams);
-            logger.info("Test response received, length: {}", response.length());
-            
-            JsonNode root = objectMapper.readTree(response);
-            
-            // Log all top-level fields for debugging
-            Iterator<String> fieldNames = root.fieldNames();
-            List<String> fields = new ArrayList<>();
-            while (fieldNames.hasNext()) {
-                fields.add(fieldNames.next());
-            }
-            logger.info("Response fields: {}", fields);
+            // One row is enough; the rest of the market table is not read
+            JsonRowStreamReader.Result result = streamApiCall(testParams, ROW_ARRAY_FIELDS, row -> false);
+            logger.info("Response fields: {}", result.getTopLevelFields());
             
-            boolean hasData = root.path("OutBlock_1").isArray() && root.path("OutBlock_1").size() > 0;
+            boolean hasData = result.getRowCount() > 0;
             
             if (hasData) {
                 logger.info("KRX API connection test successful");
@@ -724,57 +946,12 @@ public class KrxApiService {
     
     /**
      * Fetch ETF daily trading information (ETF 일별매매정보)
-     * Fetches from both KOSPI and KOSDAQ markets and filters ETFs
+     * ETFs and ETNs of both markets ranked by volume, sliced from the precomputed ETF board
      * @return List of ETF trading data
      */
     public List<KrxRankingStock> getETFDailyTradingInfo() {
-        logger.info("Fetching ETF daily trading information from KRX API");
-        
         try {
-            List<KrxRankingStock> etfList = new ArrayList<>();
-            
-            // Log the attempt to fetch data
-            logger.info("Attempting to fetch KOSPI stocks for ETF filtering...");
-            List<KrxRankingStock> kospiStocks = fetchRankingData("STK", MARKET_DATA_BLD, "ACC_TRDVOL", 100);
-            logger.info("Fetched {} KOSPI stocks", kospiStocks.size());
-            
-            logger.info("Attempting to fetch KOSDAQ stocks for ETF filtering...");
-            List<KrxRankingStock> kosdaqStocks = fetchRankingData("KSQ", MARKET_DATA_BLD, "ACC_TRDVOL", 100);
-            logger.info("Fetched {} KOSDAQ stocks", kosdaqStocks.size());
-            
-            // Filter ETFs from KOSPI
-            for (KrxRankingStock stock : kospiStocks) {
-                if (isETF(stock)) {
-                    logger.debug("Found ETF in KOSPI: {} ({})", stock.getName(), stock.getTicker());
-                    etfList.add(stock);
-                }
-            }
-            
-            // Filter ETFs from KOSDAQ
-            for (KrxRankingStock stock : kosdaqStocks) {
-                if (isETF(stock)) {
-                    logger.debug("Found ETF in KOSDAQ: {} ({})", stock.getName(), stock.getTicker());
-                    etfList.add(stock);
-                }
-            }
-            
-            // Sort by volume
-            etfList.sort((a, b) -> {
-                double volA = parseVolumeString(a.getVolume());
-                double volB = parseVolumeString(b.getVolume());
-                return Double.compare(volB, volA);
-            });
-            
-            // Re-rank ETFs
-            for (int i = 0; i < etfList.size(); i++) {
-                etfList.get(i).setRank(i + 1);
-            }
-            
-            logger.info("Found {} ETFs from KRX API (KOSPI: {}, KOSDAQ: {})", 
-                etfList.size(), 
-                kospiStocks.stream().filter(this::isETF).count(),
-                kosdaqStocks.stream().filter(this::isETF).count());
-            return etfList;
+            return etfBoardTop(getMarketSnapshot("KOSPI"), getMarketSnapshot("KOSDAQ"));
             
         } catch (Exception e) {
             logger.error("Failed to fetch ETF daily trading information: {}", e.getMessage(), e);
@@ -784,81 +961,47 @@ public class KrxApiService {
     }
     
     /**
-     * Check if a stock is an ETF based on name patterns
+     * Non-blocking variant of {@link #getETFDailyTradingInfo()}, see {@link #getMarketSnapshotAsync(String)}
      */
-    private boolean isETF(KrxRankingStock stock) {
-        if (stock == null || stock.getName() == null) return false;
-        
-        String name = stock.getName().toUpperCase();
-        
-        // Log for debugging
-        if (name.contains("KODEX") || name.contains("TIGER") || name.contains("ETF")) {
-            logger.debug("Checking potential ETF: {}", stock.getName());
-        }
-        
-        // ETFs in Korea typically have these patterns in the name
-        // Most Korean ETFs have specific prefixes or contain "ETF"
-        boolean isEtf = name.contains("ETF") || 
-               name.endsWith("ETN") ||
-               name.startsWith("KODEX") ||
-               name.startsWith("TIGER") ||
-               name.startsWith("KINDEX") ||
-               name.startsWith("ARIRANG") ||
-               name.startsWith("HANARO") ||
-               name.startsWith("KOSEF") ||
-               name.startsWith("ACE ") ||
-               name.startsWith("SOL ") ||
-               name.startsWith("KBSTAR") ||
-               name.startsWith("SMART") ||
-               name.startsWith("FOCUS") ||
-               name.startsWith("MASTER") ||
-               name.contains("인버스") ||  // Inverse ETFs
-               name.contains("레버리지");   // Leveraged ETFs
-               
-        if (isEtf) {
-            logger.info("Identified ETF: {}", stock.getName());
-        }
-        
-        return isEtf;
+    public Mono<List<KrxRankingStock>> getETFDailyTradingInfoAsync() {
+        return Mono.zip(getMarketSnapshotAsync("KOSPI"), getMarketSnapshotAsync("KOSDAQ"))
+            .map(both -> etfBoardTop(both.getT1(), both.getT2()))
+            .onErrorResume(e -> {
+                logger.error("Failed to fetch ETF daily trading information: {}", e.getMessage(), e);
+                return Mono.just(new ArrayList<KrxRankingStock>());
+            });
+    }
+    
+    private List<KrxRankingStock> etfBoardTop(MarketSnapshot kospi, MarketSnapshot kosdaq) {
+        List<KrxRankingStock> etfList = etfBoardFor(kospi, kosdaq).top(MarketSnapshot.SortKey.VOLUME, ETF_BOARD_SIZE);
+        logger.debug("Serving {} ETFs from the {} ETF board", etfList.size(), kospi.getTradingDate());
+        return etfList;
     }
     
     /**
-     * Parse volume string to numeric value for sorting
+     * ETF board over the current snapshot pair and ETF membership, rebuilt when either is replaced
      */
-    private double parseVolumeString(String volumeStr) {
-        if (volumeStr == null || volumeStr.isEmpty()) return 0;
-        
-        // Remove commas and any non-numeric suffixes
-        String cleaned = volumeStr.replaceAll(",", "");
-        
-        // Handle Korean suffixes
-        if (cleaned.endsWith("조")) {
-            return Double.parseDouble(cleaned.substring(0, cleaned.length() - 1)) * 1_000_000_000_000L;
-        } else if (cleaned.endsWith("억")) {
-            return Double.parseDouble(cleaned.substring(0, cleaned.length() - 1)) * 100_000_000L;
-        } else if (cleaned.endsWith("만")) {
-            return Double.parseDouble(cleaned.substring(0, cleaned.length() - 1)) * 10_000L;
-        }
-        // Also handle English suffixes for backward compatibility
-        else if (cleaned.endsWith("T") || cleaned.endsWith("t")) {
-            return Double.parseDouble(cleaned.substring(0, cleaned.length() - 1)) * 1_000_000_000_000L;
-        } else if (cleaned.endsWith("B") || cleaned.endsWith("b")) {
-            return Double.parseDouble(cleaned.substring(0, cleaned.length() - 1)) * 1_000_000_000L;
-        } else if (cleaned.endsWith("M") || cleaned.endsWith("m")) {
-            return Double.parseDouble(cleaned.substring(0, cleaned.length() - 1)) * 1_000_000L;
-        } else if (cleaned.endsWith("K") || cleaned.endsWith("k")) {
-            return Double.parseDouble(cleaned.substring(0, cleaned.length() - 1)) * 1_000L;
-        }
-        
-        try {
-            return Double.parseDouble(cleaned);
-        } catch (NumberFormatException e) {
-            logger.warn("Could not parse volume string: {}", volumeStr);
-            return 0;
+    private CombinedMarketRanking etfBoardFor(MarketSnapshot kospi, MarketSnapshot kosdaq) {
+        EtfMembership membership = etfMembership();
+        CombinedMarketRanking current = etfBoard;
+        if (current == null || !current.covers(kospi, kosdaq, membership)) {
+            current = new CombinedMarketRanking(kospi, kosdaq, membership);
+            etfBoard = current;
+            logger.info("ETF board rebuilt for {} from {}", kospi.getTradingDate(),
+                membership.isListed() ? membership.size() + " listed ETFs" : "the name heuristic");
         }
+        return current;
+    }
+    
+    /**
+     * Membership from the last ETF listing load, or the name heuristic until the first one completes.
+     * The listing is only loaded by the ticker directory build in the background, never on a request.
+     */
+    private EtfMembership etfMembership() {
+        EtfMembership current = etfMembership;
+        return current != null ? current : EtfMembership.BY_NAME;
     }
     
-
     /**
      * Clear all caches
      */
@@ -873,6 +1016,9 @@ public class KrxApiService {
                         logger.info("Cleared cache: {}", cacheName);
                     }
                 });
+                historicalSeriesCache.clear();
+                // Snapshots keep being served and are reloaded in the background instead of going cold
+                snapshots.keySet().forEach(this::refreshSnapshotAsync);
                 logger.info("All KRX API caches cleared successfully");
             } else {
                 logger.warn("CacheManager not available, cannot clear caches");
@@ -883,141 +1029,94 @@ public class KrxApiService {
     }
     
     /**
-     * Create a wrapper for stock data that preserves raw numeric values for sorting
+     * Append one KRX market data row to the snapshot columns, keeping raw numeric values for sorting
      */
-    private StockDataWrapper createStockDataWrapper(JsonNode stockData) {
+    private void appendSnapshotRow(MarketSnapshot.Builder builder, JsonRowStreamReader.JsonRow stockData) {
         try {
-            String ticker = stockData.path("ISU_SRT_CD").asText("");
-            String name = stockData.path("ISU_ABBRV").asText("");
+            String ticker = stockData.text("ISU_SRT_CD", "");
+            String name = stockData.text("ISU_ABBRV", "");
             
             if (ticker.isEmpty() || name.isEmpty()) {
                 logger.debug("Skipping stock with empty ticker or name");
-                return null;
+                return;
             }
             
-            double price = parseDouble(stockData.path("TDD_CLSPRC").asText("0"));
-            double change = parseDouble(stockData.path("CMPPREVDD_PRC").asText("0"));
-            double changeRate = parseDouble(stockData.path("FLUC_RT").asText("0"));
-            
-            // Keep raw numeric values for sorting
-            double volumeRaw = parseDouble(stockData.path("ACC_TRDVOL").asText("0"));
-            double tradeValueRaw = parseDouble(stockData.path("ACC_TRDVAL").asText("0"));
+            long price = parseKrxLong(stockData.text("TDD_CLSPRC", "0"));
+            long volume = parseKrxLong(stockData.text("ACC_TRDVOL", "0"));
+            long tradeValue = parseKrxLong(stockData.text("ACC_TRDVAL", "0"));
             
             // If trade value is 0 or missing, calculate it from volume * price
             // This is common when using MARKET_DATA_BLD which might not include ACC_TRDVAL
-            if (tradeValueRaw == 0.0 && volumeRaw > 0 && price > 0) {
-                tradeValueRaw = volumeRaw * price;
-                logger.debug("Calculated trade value: {} = {} * {} for {}", tradeValueRaw, volumeRaw, price, name);
+            if (tradeValue == 0 && volume > 0 && price > 0) {
+                tradeValue = volume * price;
             }
             
-            double marketCapRaw = parseDouble(stockData.path("MKTCAP").asText("0"));
+            builder.add(
+                symbolDictionary.intern(ticker),
+                symbolDictionary.intern(name),
+                symbolDictionary.intern(stockData.text("ISU_CD", "")),
+                price,
+                parseKrxLong(stockData.text("CMPPREVDD_PRC", "0")),
+                parseDouble(stockData.text("FLUC_RT", "0")),
+                volume,
+                tradeValue,
+                parseKrxLong(stockData.text("MKTCAP", "0")),
+                parseKrxLong(stockData.text("TDD_OPNPRC", "0")),
+                parseKrxLong(stockData.text("TDD_HGPRC", "0")),
+                parseKrxLong(stockData.text("TDD_LWPRC", "0")),
+                parseKrxLong(stockData.text("LIST_SHRS", "0"))
+            );
             
-            return new StockDataWrapper(ticker, name, price, change, changeRate, 
-                                      volumeRaw, tradeValueRaw, marketCapRaw);
-                                      
         } catch (Exception e) {
-            logger.error("Error creating stock data wrapper", e);
-            return null;
+            logger.error("Error adding stock row to market snapshot", e);
         }
     }
     
     /**
-     * Sort wrapped stocks by the specified field
+     * Parse a KRX comma-grouped integer ("-1,234") without allocating a cleaned copy.
+     * Any fractional part is truncated; "-" or empty values are treated as 0.
      */
-    private void sortWrappedStocksByField(List<StockDataWrapper> stocks, String sortField) {
-        switch (sortField) {
-            case "ACC_TRDVOL":
-                stocks.sort((a, b) -> Double.compare(b.volumeRaw, a.volumeRaw));
-                break;
-            case "ACC_TRDVAL":
-                stocks.sort((a, b) -> Double.compare(b.tradeValueRaw, a.tradeValueRaw));
-                break;
-            case "FLUC_RT":
-                // Sort by change rate descending (highest positive changes first)
-                stocks.sort((a, b) -> Double.compare(b.changeRate, a.changeRate));
-                break;
-            case "FLUC_RT_DESC":
-                // Sort by change rate ascending (lowest negative changes first)
-                stocks.sort((a, b) -> Double.compare(a.changeRate, b.changeRate));
-                break;
-            case "MKTCAP":
-                // Sort by market capitalization descending (highest first)
-                stocks.sort((a, b) -> Double.compare(b.marketCapRaw, a.marketCapRaw));
-                break;
-            default:
-                logger.warn("Unknown sort field: {}", sortField);
-                break;
-        }
-    }
-    
-    /**
-     * Inner class to wrap stock data with raw numeric values for sorting
-     */
-    private static class StockDataWrapper {
-        final String ticker;
-        final String name;
-        final double price;
-        final double change;
-        final double changeRate;
-        final double volumeRaw;
-        final double tradeValueRaw;
-        final double marketCapRaw;
-        
-        StockDataWrapper(String ticker, String name, double price, double change, double changeRate,
-                        double volumeRaw, double tradeValueRaw, double marketCapRaw) {
-            this.ticker = ticker;
-            this.name = name;
-            this.price = price;
-            this.change = change;
-            this.changeRate = changeRate;
-            this.volumeRaw = volumeRaw;
-            this.tradeValueRaw = tradeValueRaw;
-            this.marketCapRaw = marketCapRaw;
-        }
-        
-        KrxRankingStock toKrxRankingStock(int rank) {
-            return new KrxRankingStock(
-                rank, ticker, name, price, change, changeRate,
-                formatLargeNumberStatic(volumeRaw),
-                formatLargeNumberStatic(marketCapRaw),
-                formatLargeNumberStatic(tradeValueRaw)
-            );
+    static long parseKrxLong(String value) {
+        if (value == null) {
+            return 0L;
         }
-        
-        private static String formatLargeNumberStatic(double number) {
-            DecimalFormat df = new DecimalFormat("#,##0.00");
-            NumberFormat nf = NumberFormat.getInstance(Locale.KOREA);
-            
-            if (number >= 100_000_000L) { // 억 (100 million)
-                double eok = number / 100_000_000.0;
-                if (eok >= 10000) { // 조 (1 trillion = 10,000 억)
-                    return df.format(eok / 10000.0) + "조";
-                }
-                return df.format(eok) + "억";
-            } else if (number >= 10_000L) { // 만 (10 thousand)
-                return df.format(number / 10_000.0) + "만";
-            } else {
-                return nf.format((long)number);
+        long result = 0L;
+        boolean negative = false;
+        boolean digits = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                result = result * 10 + (c - '0');
+                digits = true;
+            } else if (c == '-' && !digits) {
+                negative = true;
+            } else if (c == '.') {
+                break;
             }
+            // commas, '+' and whitespace are skipped
         }
+        return negative ? -result : result;
     }
     
     /**
      * Fetch historical stock prices using the official KRX API
      * Calls the API multiple times for different dates to build historical data
      */
-    @Cacheable(value = "realHistoricalPrices", key = "#ticker + '_' + #market + '_' + #periodDays")
     public List<KrxStockInfo> getRealHistoricalPrices(String ticker, String market, int periodDays) {
+        return getRealHistoricalPricesAsync(ticker, market, periodDays).block();
+    }
+    
+    /**
+     * Non-blocking variant of {@link #getRealHistoricalPrices(String, String, int)}. Missing days are
+     * backfilled and the series is read from the daily bar store on the backfill scheduler, so no
+     * caller thread is held while KRX responds.
+     */
+    public Mono<List<KrxStockInfo>> getRealHistoricalPricesAsync(String ticker, String market, int periodDays) {
         logger.info("=== STARTING HISTORICAL DATA FETCH ===");
         logger.info("Fetching real historical prices for ticker: {}, market: {}, period: {} days", ticker, market, periodDays);
         
-        List<KrxStockInfo> historicalData = new ArrayList<>();
-        LocalDate endDate = LocalDate.now();
-        
-        // Skip weekends for end date
-        while (endDate.getDayOfWeek().getValue() > 5) {
-            endDate = endDate.minusDays(1);
-        }
+        // Skip weekends and KRX holidays for end date
+        LocalDate endDate = tradingCalendar.previousOrSame(LocalDate.now());
         
         LocalDate startDate = endDate.minusDays(periodDays);
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
@@ -1030,63 +1129,42 @@ public class KrxApiService {
             .defaultHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
             .build();
         
-        LocalDate currentDate = startDate;
-        while (!currentDate.isAfter(endDate) && historicalData.size() < periodDays) {
-            // Skip weekends
-            if (currentDate.getDayOfWeek().getValue() <= 5) {
-                try {
-                    String dateStr = currentDate.format(formatter);
-                    logger.debug("Fetching data for date: {}", dateStr);
-                    
-                    // Use KOSDAQ API for all stocks - it may contain both KOSPI and KOSDAQ stocks
-                    String apiEndpoint = KOSDAQ_DAILY_TRADING_API;
-                    String requestBody = String.format("{\"basDd\":\"%s\"}", dateStr);
-                    
-                    logger.debug("Calling {} for date {} with market {}", apiEndpoint, dateStr, market);
-                    
-                    String response = krxWebClient.post()
-                        .uri(apiEndpoint)
-                        .bodyValue(requestBody)
-                        .retrieve()
-                        .bodyToMono(String.class)
-                        .block();
-                    
-                    if (response != null) {
-                        logger.debug("Raw API response: {}", response.substring(0, Math.min(response.length(), 500)));
-                        JsonNode root = objectMapper.readTree(response);
-                        JsonNode outBlock = root.path("OutBlock_1");
-                        
-                        logger.debug("OutBlock_1 found: {}, is array: {}, size: {}", 
-                            outBlock != null, outBlock.isArray(), outBlock.size());
-                        
-                        if (outBlock.isArray() && outBlock.size() > 0) {
-                            logger.debug("Searching for ticker {} in {} results", ticker, outBlock.size());
-                            // Find the specific stock in the response
-                            for (JsonNode stockNode : outBlock) {
-                                String stockCode = stockNode.path("ISU_CD").asText("");
-                                logger.debug("Checking stock code: {} vs target: {}", stockCode, ticker);
-                                if (ticker.equals(stockCode)) {
-                                    KrxStockInfo stockInfo = parseKrxStockFromDaily(stockNode);
-                                    if (stockInfo != null) {
-                                        historicalData.add(stockInfo);
-                                        logger.info("Added data point for {} on {} - price: {}", ticker, dateStr, stockInfo.getClosePrice());
-                                    }
-                                    break;
-                                }
-                            }
-                        } else {
-                            logger.warn("No data in OutBlock_1 for date {}", dateStr);
-                        }
+        // Trading days in the period, oldest first; holidays are never requested
+        List<LocalDate> tradingDays = tradingCalendar.tradingDaysBetween(startDate, endDate);
+        
+        // Store lookups touch the disk, so they run on the backfill scheduler as well
+        return Mono.fromCallable(() -> {
+                // Download the days missing from the local store concurrently; each day is stored for the whole market
+                List<LocalDate> missingDays = new ArrayList<>();
+                for (LocalDate date : tradingDays) {
+                    if (!dailyBarStore.hasDay(DAILY_BAR_SEGMENT, date.format(formatter))) {
+                        missingDays.add(date);
                     }
-                    
-                    // Add delay to prevent rate limiting
-                    Thread.sleep(100);
-                    
-                } catch (Exception e) {
-                    logger.warn("Failed to fetch data for date {}: {}", currentDate, e.getMessage());
                 }
+                return missingDays;
+            })
+            .subscribeOn(backfillScheduler)
+            .flatMap(missingDays -> missingDays.isEmpty() ? Mono.just(0L) : backfillDailyBars(krxWebClient, missingDays))
+            .publishOn(backfillScheduler)
+            .map(storedDays -> readHistoricalSeries(ticker, tradingDays, periodDays));
+    }
+    
+    /**
+     * Assemble the series of one ticker from the daily bar store in date order
+     */
+    private List<KrxStockInfo> readHistoricalSeries(String ticker, List<LocalDate> tradingDays, int periodDays) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
+        List<KrxStockInfo> historicalData = new ArrayList<>();
+        for (LocalDate date : tradingDays) {
+            if (historicalData.size() >= periodDays) {
+                break;
+            }
+            String dateStr = date.format(formatter);
+            KrxStockInfo stockInfo = dailyBarStore.readBar(DAILY_BAR_SEGMENT, dateStr, ticker);
+            if (stockInfo != null) {
+                historicalData.add(stockInfo);
+                logger.debug("Added data point for {} on {} - price: {}", ticker, dateStr, stockInfo.getClosePrice());
             }
-            currentDate = currentDate.plusDays(1);
         }
         
         logger.info("=== HISTORICAL DATA FETCH COMPLETE ===");
@@ -1103,42 +1181,117 @@ public class KrxApiService {
     }
     
     /**
-     * Parse KrxStockInfo from KOSDAQ daily trading API response
+     * Download and store the given trading days with bounded parallelism on the backfill scheduler.
+     * Requests are queued as backfill behind interactive calls and failed days are retried with jittered backoff;
+     * a day that still fails is logged and left out of the store so the next request retries it.
+     * @return number of days stored, once all of them completed; nothing blocks while they download
      */
-    private KrxStockInfo parseKrxStockFromDaily(JsonNode stockNode) {
-        try {
-            KrxStockInfo stockInfo = new KrxStockInfo();
-            stockInfo.setTicker(stockNode.path("ISU_CD").asText(""));
-            stockInfo.setName(stockNode.path("ISU_NM").asText(""));
-            stockInfo.setClosePrice(stockNode.path("TDD_CLSPRC").asText("0"));
-            stockInfo.setPriceChange(stockNode.path("CMPPREVDD_PRC").asText("0"));
-            stockInfo.setChangeRate(stockNode.path("FLUC_RT").asText("0"));
-            stockInfo.setOpenPrice(stockNode.path("TDD_OPNPRC").asText("0"));
-            stockInfo.setHighPrice(stockNode.path("TDD_HGPRC").asText("0"));
-            stockInfo.setLowPrice(stockNode.path("TDD_LWPRC").asText("0"));
-            stockInfo.setVolume(stockNode.path("ACC_TRDVOL").asText("0"));
-            stockInfo.setTradeValue(stockNode.path("ACC_TRDVAL").asText("0"));
-            stockInfo.setMarketCap(stockNode.path("MKTCAP").asText("0"));
-            stockInfo.setTradeDate(stockNode.path("BAS_DD").asText(""));
-            return stockInfo;
-        } catch (Exception e) {
-            logger.error("Error parsing stock data from daily API", e);
-            return null;
-        }
+    private Mono<Long> backfillDailyBars(WebClient krxWebClient, List<LocalDate> days) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
+        int parallelism = Math.max(1, krxApiConfig.getBackfillParallelism());
+        long startTime = System.currentTimeMillis();
+        
+        logger.info("Backfilling {} trading days from KRX with parallelism {}", days.size(), parallelism);
+        
+        return Flux.fromIterable(days)
+            .flatMap(date -> {
+                String dateStr = date.format(formatter);
+                return circuitBreakerFor(KOSDAQ_DAILY_TRADING_API).guard(
+                        () -> outboundCallScheduler.schedule(KOSDAQ_DAILY_TRADING_API, OutboundCallScheduler.Priority.BACKFILL,
+                            () -> storeDailyBars(krxWebClient, date, dateStr)))
+                    .retryWhen(Retry.backoff(krxApiConfig.getBackfillMaxRetries(), Duration.ofMillis(300))
+                        .jitter(0.5)
+                        .filter(this::isRetryableUpstreamError))
+                    .thenReturn(date)
+                    .onErrorResume(e -> {
+                        logger.warn("Failed to fetch data for date {}: {}", dateStr, e.getMessage());
+                        return Mono.empty();
+                    });
+            }, parallelism)
+            .subscribeOn(backfillScheduler)
+            .count()
+            .doOnNext(storedDays -> logger.info("Backfilled {}/{} trading days in {} ms", storedDays, days.size(), 
+                System.currentTimeMillis() - startTime));
     }
-
+    
+    /**
+     * Download the full KOSDAQ daily trading table for one date and persist it in the daily bar store
+     */
+    private Mono<Void> storeDailyBars(WebClient krxWebClient, LocalDate tradingDate, String dateStr) {
+        // Use KOSDAQ API for all stocks - it may contain both KOSPI and KOSDAQ stocks
+        String requestBody = String.format("{\"basDd\":\"%s\"}", dateStr);
+        logger.debug("Calling {} for date {}", KOSDAQ_DAILY_TRADING_API, dateStr);
+        
+        Flux<DataBuffer> body = krxWebClient.post()
+            .uri(KOSDAQ_DAILY_TRADING_API)
+            .bodyValue(requestBody)
+            .retrieve()
+            .bodyToFlux(DataBuffer.class);
+        
+        DailyBarStore.DayBuilder day = DailyBarStore.dayBuilder();
+        return jsonRowStreamReader.read(body, DAILY_TRADING_ARRAY_FIELDS, stockNode -> {
+                String stockCode = stockNode.text("ISU_CD", "");
+                if (!stockCode.isEmpty()) {
+                    day.add(
+                        stockCode,
+                        stockNode.text("ISU_NM", ""),
+                        parseKrxLong(stockNode.text("TDD_CLSPRC", "0")),
+                        parseKrxLong(stockNode.text("CMPPREVDD_PRC", "0")),
+                        parseDouble(stockNode.text("FLUC_RT", "0")),
+                        parseKrxLong(stockNode.text("TDD_OPNPRC", "0")),
+                        parseKrxLong(stockNode.text("TDD_HGPRC", "0")),
+                        parseKrxLong(stockNode.text("TDD_LWPRC", "0")),
+                        parseKrxLong(stockNode.text("ACC_TRDVOL", "0")),
+                        parseKrxLong(stockNode.text("ACC_TRDVAL", "0")),
+                        parseKrxLong(stockNode.text("MKTCAP", "0"))
+                    );
+                }
+                return true;
+            })
+            .timeout(requestTimeout())
+            // File writes stay off the HTTP client's event loop
+            .publishOn(backfillScheduler)
+            .doOnNext(result -> {
+                if (day.size() > 0 || tradingDate.isBefore(LocalDate.now().minusDays(DAILY_BAR_PUBLISH_LAG_DAYS))) {
+                    dailyBarStore.writeDay(DAILY_BAR_SEGMENT, dateStr, day);
+                } else {
+                    logger.warn("No data in OutBlock_1 for date {}", dateStr);
+                }
+            })
+            .then();
+    }
+    
     /**
-     * Helper method to parse numeric strings with commas
+     * Retry transport errors, timeouts, 429 and 5xx responses; other 4xx responses will not succeed on retry,
+     * a call throttled by the outbound scheduler has already waited its full budget and an open circuit
+     * rejects retries as well. The same errors count as failures for the endpoint circuit.
      */
-    private long parseNumber(String value) {
-        if (value == null || value.isEmpty()) {
-            return 0;
+    private boolean isRetryableUpstreamError(Throwable e) {
+        if (e instanceof OutboundCallScheduler.ThrottledException 
+                || e instanceof UpstreamCircuitBreaker.CircuitOpenException) {
+            return false;
         }
-        try {
-            return Long.parseLong(value.replaceAll(",", ""));
-        } catch (NumberFormatException e) {
-            logger.warn("Failed to parse number: {}", value);
-            return 0;
+        if (e instanceof WebClientResponseException) {
+            WebClientResponseException responseException = (WebClientResponseException) e;
+            return responseException.getStatusCode().is5xxServerError() 
+                || responseException.getStatusCode().value() == 429;
         }
+        return true;
+    }
+    
+    private UpstreamCircuitBreaker circuitBreakerFor(String endpoint) {
+        String key = endpoint != null ? endpoint : "default";
+        return circuitBreakers.computeIfAbsent(key, k -> new UpstreamCircuitBreaker("KRX " + k,
+            krxApiConfig.getCircuitFailureThreshold(), Duration.ofSeconds(krxApiConfig.getCircuitOpenSeconds()),
+            this::isRetryableUpstreamError));
+    }
+    
+    private Duration requestTimeout() {
+        return Duration.ofSeconds(krxApiConfig.getRequestTimeoutSeconds());
+    }
+    
+    @PreDestroy
+    public void shutdownBackfillScheduler() {
+        backfillScheduler.dispose();
     }
 }
\ No newline at end of file
@@ -0,0 +1,417 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.global.config.MarketHoursCacheExpiry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * KRX trading calendar (weekdays minus exchange holidays).
+ * Holidays are read from a local file (falling back to the bundled krx-holidays.txt) and refreshed
+ * from KRX; from them a bitmap of trading days plus a prefix index is built for a window of years,
+ * so "is trading day", "previous/next N trading days" and trading-day counts are O(1) lookups.
+ * Dates outside the window fall back to the weekday rule.
+ */
+@Component
+public class KrxTradingCalendar {
+
+    private static final Logger logger = LoggerFactory.getLogger(KrxTradingCalendar.class);
+
+    private static final DateTimeFormatter BASIC_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String BUNDLED_HOLIDAYS = "krx-holidays.txt";
+    private static final Set<String> HOLIDAY_ARRAY_FIELDS = Set.of("block1", "OutBlock_1", "output");
+    // KRX publishes the previous day's data from the session open
+    private static final LocalTime SESSION_OPEN = LocalTime.of(9, 0);
+    private static final int YEARS_BACK = 6;
+    private static final int YEARS_AHEAD = 1;
+
+    @Value("${krx.calendar.holiday-file:./data/krx-holidays.txt}")
+    private String holidayFile;
+
+    @Value("${krx.calendar.holiday-url:http://open.krx.co.kr/contents/OPN/99/OPN99000001.jspx}")
+    private String holidayUrl;
+
+    @Value("${krx.calendar.holiday-bld:MKD/01/0110/01100305/mkd01100305_01}")
+    private String holidayBld;
+
+    @Autowired
+    private OutboundCallScheduler outboundCallScheduler;
+
+    private final Set<LocalDate> holidays = new ConcurrentSkipListSet<>();
+    private final JsonRowStreamReader jsonRowStreamReader = new JsonRowStreamReader();
+    private volatile TradingDays tradingDays = TradingDays.build(LocalDate.now().getYear() - YEARS_BACK,
+        LocalDate.now().getYear() + YEARS_AHEAD, Set.of());
+
+    // Last trading date string, reused until the next session open
+    private volatile String lastTradingDate;
+    private volatile long lastTradingDateValidUntil;
+
+    @PostConstruct
+    public void init() {
+        loadLocalHolidays();
+        rebuild();
+    }
+
+    /**
+     * Refresh the holiday list of the current and next year from KRX and persist it locally
+     */
+    @Scheduled(cron = "${krx.calendar.refresh-cron:0 0 6 * * *}", zone = "Asia/Seoul")
+    public void refreshFromKrx() {
+        int year = LocalDate.now(MarketHoursCacheExpiry.KST).getYear();
+        boolean changed = false;
+        for (int y = year; y <= year + YEARS_AHEAD; y++) {
+            try {
+                List<LocalDate> fetched = fetchHolidaysFromKrx(y);
+                if (!fetched.isEmpty()) {
+                    changed |= holidays.addAll(fetched);
+                    logger.info("Loaded {} KRX holidays for {}", fetched.size(), y);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to refresh KRX holidays for {}, keeping local list: {}", y, e.getMessage());
+            }
+        }
+        if (changed) {
+            rebuild();
+            saveLocalHolidays();
+        }
+    }
+
+    public boolean isTradingDay(LocalDate date) {
+        return tradingDays.isTradingDay(date);
+    }
+
+    /**
+     * Most recent trading day on or before the given date
+     */
+    public LocalDate previousOrSame(LocalDate date) {
+        return tradingDays.previousOrSame(date);
+    }
+
+    /**
+     * The trading day {@code n} trading days before {@code date} (n = 0 is previousOrSame)
+     */
+    public LocalDate minusTradingDays(LocalDate date, int n) {
+        return tradingDays.minusTradingDays(date, n);
+    }
+
+    /**
+     * First trading day after the given date
+     */
+    public LocalDate next(LocalDate date) {
+        return tradingDays.next(date);
+    }
+
+    /**
+     * Number of trading days in the inclusive range
+     */
+    public int countTradingDays(LocalDate from, LocalDate to) {
+        return tradingDays.count(from, to);
+    }
+
+    /**
+     * Trading days in the inclusive range, oldest first
+     */
+    public List<LocalDate> tradingDaysBetween(LocalDate from, LocalDate to) {
+        List<LocalDate> days = new ArrayList<>(Math.max(0, tradingDays.count(from, to)));
+        for (LocalDate date = tradingDays.nextOrSame(from); !date.isAfter(to); date = tradingDays.next(date)) {
+            days.add(date);
+        }
+        return days;
+    }
+
+    /**
+     * Trading date (yyyyMMdd) whose data KRX currently serves: today from the session open,
+     * otherwise the previous trading day. The value is reused until the next session open.
+     */
+    public String lastTradingDate() {
+        long now = System.currentTimeMillis();
+        String cached = lastTradingDate;
+        if (cached != null && now < lastTradingDateValidUntil) {
+            return cached;
+        }
+
+        ZonedDateTime kst = ZonedDateTime.now(MarketHoursCacheExpiry.KST);
+        LocalDate today = kst.toLocalDate();
+        LocalDate tradingDate;
+        ZonedDateTime validUntil;
+        if (isTradingDay(today) && !kst.toLocalTime().isBefore(SESSION_OPEN)) {
+            tradingDate = today;
+            validUntil = next(today).atTime(SESSION_OPEN).atZone(MarketHoursCacheExpiry.KST);
+        } else {
+            tradingDate = previousOrSame(today.minusDays(1));
+            LocalDate nextSessionDay = kst.toLocalTime().isBefore(SESSION_OPEN) && isTradingDay(today) ? today : next(today);
+            validUntil = nextSessionDay.atTime(SESSION_OPEN).atZone(MarketHoursCacheExpiry.KST);
+        }
+
+        cached = tradingDate.format(BASIC_DATE);
+        lastTradingDate = cached;
+        lastTradingDateValidUntil = validUntil.toInstant().toEpochMilli();
+        logger.info("Using trading date: {}", cached);
+        return cached;
+    }
+
+    private void rebuild() {
+        int year = LocalDate.now().getYear();
+        tradingDays = TradingDays.build(year - YEARS_BACK, year + YEARS_AHEAD, holidays);
+        lastTradingDate = null;
+        logger.info("KRX trading calendar built for {}-{} with {} holidays",
+            year - YEARS_BACK, year + YEARS_AHEAD, holidays.size());
+    }
+
+    private void loadLocalHolidays() {
+        Path file = Paths.get(holidayFile).toAbsolutePath().normalize();
+        try {
+            if (Files.exists(file)) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    readHolidays(in);
+                }
+                logger.info("Loaded {} KRX holidays from {}", holidays.size(), file);
+                return;
+            }
+            ClassPathResource bundled = new ClassPathResource(BUNDLED_HOLIDAYS);
+            if (bundled.exists()) {
+                try (InputStream in = bundled.getInputStream()) {
+                    readHolidays(in);
+                }
+                logger.info("Loaded {} KRX holidays from bundled {}", holidays.size(), BUNDLED_HOLIDAYS);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to load KRX holiday list, only weekends will be skipped: {}", e.getMessage());
+        }
+    }
+
+    private void readHolidays(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            LocalDate date = parseDate(line);
+            if (date != null) {
+                holidays.add(date);
+            }
+        }
+    }
+
+    private void saveLocalHolidays() {
+        Path file = Paths.get(holidayFile).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(file.getParent());
+            StringBuilder content = new StringBuilder("# KRX holidays (yyyyMMdd), refreshed from KRX\n");
+            for (LocalDate date : new TreeSet<>(holidays)) {
+                content.append(date.format(BASIC_DATE)).append('\n');
+            }
+            Path temp = Files.createTempFile(file.getParent(), "krx-holidays", ".tmp");
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to save KRX holiday list to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private List<LocalDate> fetchHolidaysFromKrx(int year) {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("bld", holidayBld);
+        params.add("search_bas_yy", String.valueOf(year));
+        params.add("gridTp", "KRX");
+        params.add("pagePath", "/contents/MKD/01/0110/01100305/MKD01100305.jsp");
+
+        Flux<DataBuffer> body = WebClient.create()
+            .post()
+            .uri(holidayUrl)
+            .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+            .header(HttpHeaders.USER_AGENT, "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
+            .body(BodyInserters.fromFormData(params))
+            .retrieve()
+            .bodyToFlux(DataBuffer.class);
+
+        List<LocalDate> fetched = new ArrayList<>();
+        outboundCallScheduler.schedule(holidayUrl, OutboundCallScheduler.Priority.BACKGROUND,
+            () -> jsonRowStreamReader.read(body, HOLIDAY_ARRAY_FIELDS, row -> {
+                LocalDate date = parseDate(row.text("calnd_dd", ""));
+                if (date != null && date.getYear() == year) {
+                    fetched.add(date);
+                }
+                return true;
+            })).block(Duration.ofSeconds(40));
+        return fetched;
+    }
+
+    /**
+     * Parse yyyyMMdd, yyyy-MM-dd or yyyy/MM/dd; comments and blank lines give null
+     */
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return null;
+        }
+        String digits = trimmed.replace("-", "").replace("/", "").replace(".", "");
+        if (digits.length() < 8) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(digits.substring(0, 8), BASIC_DATE);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static boolean isWeekday(LocalDate date) {
+        DayOfWeek day = date.getDayOfWeek();
+        return day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY;
+    }
+
+    /**
+     * Immutable bitmap of trading days for [firstYear, lastYear] with a prefix index:
+     * ordinalAtOrBefore[d] is the index in tradingEpochDays of the last trading day on or before day d
+     */
+    private static final class TradingDays {
+        private final long baseEpochDay;
+        private final long endEpochDay;
+        private final BitSet trading;
+        private final int[] ordinalAtOrBefore;
+        private final long[] tradingEpochDays;
+
+        private TradingDays(long baseEpochDay, long endEpochDay, BitSet trading, int[] ordinalAtOrBefore,
+                            long[] tradingEpochDays) {
+            this.baseEpochDay = baseEpochDay;
+            this.endEpochDay = endEpochDay;
+            this.trading = trading;
+            this.ordinalAtOrBefore = ordinalAtOrBefore;
+            this.tradingEpochDays = tradingEpochDays;
+        }
+
+        static TradingDays build(int firstYear, int lastYear, Set<LocalDate> holidays) {
+            long base = LocalDate.of(firstYear, 1, 1).toEpochDay();
+            long end = LocalDate.of(lastYear, 12, 31).toEpochDay();
+            int days = (int) (end - base + 1);
+
+            BitSet trading = new BitSet(days);
+            int[] ordinalAtOrBefore = new int[days];
+            long[] tradingEpochDays = new long[days];
+            int count = 0;
+            for (int i = 0; i < days; i++) {
+                LocalDate date = LocalDate.ofEpochDay(base + i);
+                if (isWeekday(date) && !holidays.contains(date)) {
+                    trading.set(i);
+                    tradingEpochDays[count++] = base + i;
+                }
+                ordinalAtOrBefore[i] = count - 1;
+            }
+            return new TradingDays(base, end, trading, ordinalAtOrBefore, Arrays.copyOf(tradingEpochDays, count));
+        }
+
+        boolean isTradingDay(LocalDate date) {
+            long day = date.toEpochDay();
+            if (!inRange(day)) {
+                return isWeekday(date);
+            }
+            return trading.get((int) (day - baseEpochDay));
+        }
+
+        LocalDate previousOrSame(LocalDate date) {
+            return minusTradingDays(date, 0);
+        }
+
+        LocalDate minusTradingDays(LocalDate date, int n) {
+            long day = date.toEpochDay();
+            if (inRange(day)) {
+                int ordinal = ordinalAtOrBefore[(int) (day - baseEpochDay)] - n;
+                if (ordinal >= 0) {
+                    return LocalDate.ofEpochDay(tradingEpochDays[ordinal]);
+                }
+            }
+            // Outside the window: weekday rule
+            LocalDate result = date;
+            while (!isWeekday(result)) {
+                result = result.minusDays(1);
+            }
+            for (int i = 0; i < n; i++) {
+                result = result.minusDays(1);
+                while (!isWeekday(result)) {
+                    result = result.minusDays(1);
+                }
+            }
+            return result;
+        }
+
+        LocalDate next(LocalDate date) {
+            return nextOrSame(date.plusDays(1));
+        }
+
+        LocalDate nextOrSame(LocalDate date) {
+            long day = date.toEpochDay();
+            if (inRange(day)) {
+                int index = trading.nextSetBit((int) (day - baseEpochDay));
+                if (index >= 0) {
+                    return LocalDate.ofEpochDay(baseEpochDay + index);
+                }
+            }
+            LocalDate result = date;
+            while (!isWeekday(result)) {
+                result = result.plusDays(1);
+            }
+            return result;
+        }
+
+        int count(LocalDate from, LocalDate to) {
+            if (to.isBefore(from)) {
+                return 0;
+            }
+            long fromDay = from.toEpochDay();
+            long toDay = to.toEpochDay();
+            if (inRange(fromDay) && inRange(toDay)) {
+                int before = fromDay == baseEpochDay ? -1 : ordinalAtOrBefore[(int) (fromDay - 1 - baseEpochDay)];
+                return ordinalAtOrBefore[(int) (toDay - baseEpochDay)] - before;
+            }
+            int count = 0;
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                if (isTradingDay(date)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private boolean inRange(long epochDay) {
+            return epochDay >= baseEpochDay && epochDay <= endEpochDay;
+        }
+    }
+}
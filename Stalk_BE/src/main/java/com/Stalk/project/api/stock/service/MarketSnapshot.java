@@ -0,0 +1,419 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.api.stock.dto.KrxRankingStock;
+import com.Stalk.project.api.stock.dto.KrxStockInfo;
+import com.Stalk.project.api.stock.dto.StockQuote;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * Full-market data for one market (STK/KSQ) and trading date, loaded once from KRX.
+ * Values are kept column-wise in parallel primitive arrays and sort orders for every
+ * ranking type are computed at load time, so each ranking or quote lookup is a slice
+ * of the snapshot and DTOs are only created for the rows actually returned.
+ */
+public class MarketSnapshot {
+
+    /**
+     * Ranking orders precomputed for every snapshot
+     */
+    public enum SortKey {
+        VOLUME,
+        TRADE_VALUE,
+        CHANGE_RATE_DESC,
+        CHANGE_RATE_ASC,
+        MARKET_CAP
+    }
+
+    private final String market;
+    private final String tradingDate;
+    private final long loadedAt;
+    // Read back from the local snapshot store rather than loaded from KRX by this process
+    private final boolean restored;
+    private final int size;
+
+    // Column store, one entry per listed issue
+    private final String[] tickers;
+    private final String[] names;
+    private final String[] isins;
+    private final long[] prices;
+    private final long[] changes;
+    private final double[] changeRates;
+    private final long[] volumes;
+    private final long[] tradeValues;
+    private final long[] marketCaps;
+    private final long[] openPrices;
+    private final long[] highPrices;
+    private final long[] lowPrices;
+    private final long[] listedShares;
+
+    private final Map<String, Integer> tickerIndex;
+    private final int[][] orders = new int[SortKey.values().length][];
+
+    private MarketSnapshot(Builder builder) {
+        this.market = builder.market;
+        this.tradingDate = builder.tradingDate;
+        this.restored = builder.restoredLoadedAt > 0;
+        this.loadedAt = restored ? builder.restoredLoadedAt : System.currentTimeMillis();
+        this.size = builder.size;
+
+        this.tickers = Arrays.copyOf(builder.tickers, size);
+        this.names = Arrays.copyOf(builder.names, size);
+        this.isins = Arrays.copyOf(builder.isins, size);
+        this.prices = Arrays.copyOf(builder.prices, size);
+        this.changes = Arrays.copyOf(builder.changes, size);
+        this.changeRates = Arrays.copyOf(builder.changeRates, size);
+        this.volumes = Arrays.copyOf(builder.volumes, size);
+        this.tradeValues = Arrays.copyOf(builder.tradeValues, size);
+        this.marketCaps = Arrays.copyOf(builder.marketCaps, size);
+        this.openPrices = Arrays.copyOf(builder.openPrices, size);
+        this.highPrices = Arrays.copyOf(builder.highPrices, size);
+        this.lowPrices = Arrays.copyOf(builder.lowPrices, size);
+        this.listedShares = Arrays.copyOf(builder.listedShares, size);
+
+        this.tickerIndex = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            tickerIndex.putIfAbsent(tickers[i], i);
+        }
+
+        orders[SortKey.VOLUME.ordinal()] = sortedIndex((a, b) -> Long.compare(volumes[b], volumes[a]));
+        orders[SortKey.TRADE_VALUE.ordinal()] = sortedIndex((a, b) -> Long.compare(tradeValues[b], tradeValues[a]));
+        orders[SortKey.CHANGE_RATE_DESC.ordinal()] = sortedIndex((a, b) -> Double.compare(changeRates[b], changeRates[a]));
+        orders[SortKey.CHANGE_RATE_ASC.ordinal()] = sortedIndex((a, b) -> Double.compare(changeRates[a], changeRates[b]));
+        orders[SortKey.MARKET_CAP.ordinal()] = sortedIndex((a, b) -> Long.compare(marketCaps[b], marketCaps[a]));
+    }
+
+    public static Builder builder(String market, String tradingDate, int expectedSize) {
+        return new Builder(market, tradingDate, expectedSize);
+    }
+
+    /**
+     * Top {@code limit} stocks for the given ranking, ranked from 1.
+     * New DTOs are created on every call because callers re-rank them in place.
+     */
+    public List<KrxRankingStock> top(SortKey sortKey, int limit) {
+        int[] order = orders[sortKey.ordinal()];
+        int actualLimit = Math.max(0, Math.min(limit, order.length));
+
+        List<KrxRankingStock> rankings = new ArrayList<>(actualLimit);
+        for (int i = 0; i < actualLimit; i++) {
+            rankings.add(toKrxRankingStock(order[i], i + 1));
+        }
+        return rankings;
+    }
+
+    /**
+     * Precomputed order of the ranking; must not be modified. Used by {@link CombinedMarketRanking}.
+     */
+    int[] order(SortKey sortKey) {
+        return orders[sortKey.ordinal()];
+    }
+
+    /**
+     * Rows of the ranking whose ticker and name pass the filter, still in ranking order
+     */
+    int[] order(SortKey sortKey, BiPredicate<String, String> issueFilter) {
+        int[] order = orders[sortKey.ordinal()];
+        int[] filtered = new int[order.length];
+        int count = 0;
+        for (int row : order) {
+            if (issueFilter.test(tickers[row], names[row])) {
+                filtered[count++] = row;
+            }
+        }
+        return Arrays.copyOf(filtered, count);
+    }
+
+    KrxRankingStock rankingRow(int row, int rank) {
+        return toKrxRankingStock(row, rank);
+    }
+
+    /**
+     * Compare rows of two snapshots by the ranking, negative if {@code rowA} of {@code a} ranks first
+     */
+    static int compareRows(SortKey sortKey, MarketSnapshot a, int rowA, MarketSnapshot b, int rowB) {
+        switch (sortKey) {
+            case VOLUME:
+                return Long.compare(b.volumes[rowB], a.volumes[rowA]);
+            case TRADE_VALUE:
+                return Long.compare(b.tradeValues[rowB], a.tradeValues[rowA]);
+            case CHANGE_RATE_DESC:
+                return Double.compare(b.changeRates[rowB], a.changeRates[rowA]);
+            case CHANGE_RATE_ASC:
+                return Double.compare(a.changeRates[rowA], b.changeRates[rowB]);
+            default:
+                return Long.compare(b.marketCaps[rowB], a.marketCaps[rowA]);
+        }
+    }
+
+    /**
+     * Look up a single stock quote by its short ticker code
+     * @return quote, or null if the ticker is not listed in this market
+     */
+    public KrxStockInfo findByTicker(String ticker) {
+        Integer row = tickerIndex.get(ticker);
+        return row != null ? toKrxStockInfo(row) : null;
+    }
+
+    public boolean contains(String ticker) {
+        return tickerIndex.containsKey(ticker);
+    }
+
+    /**
+     * Typed quote with the raw values, for in-process callers
+     * @return quote, or null if the ticker is not listed in this market
+     */
+    public StockQuote quote(String ticker) {
+        Integer row = tickerIndex.get(ticker);
+        if (row == null) {
+            return null;
+        }
+        return new StockQuote(
+            tickers[row], names[row], "KSQ".equals(market) ? "KOSDAQ" : "KOSPI", tradingDate,
+            prices[row], changes[row], changeRates[row], volumes[row], tradeValues[row], marketCaps[row],
+            openPrices[row], highPrices[row], lowPrices[row]
+        );
+    }
+
+    /**
+     * Visit every listed issue of this market in KRX response order
+     */
+    public void forEachIssue(IssueConsumer consumer) {
+        for (int row = 0; row < size; row++) {
+            consumer.accept(tickers[row], isins[row], names[row]);
+        }
+    }
+
+    public String getMarket() {
+        return market;
+    }
+
+    public String getTradingDate() {
+        return tradingDate;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    public boolean isRestored() {
+        return restored;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Write all columns; the sort orders are rebuilt by {@link #readFrom(DataInputStream)}
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeUTF(market);
+        out.writeUTF(tradingDate);
+        out.writeLong(loadedAt);
+        out.writeInt(size);
+        for (int row = 0; row < size; row++) {
+            out.writeUTF(tickers[row]);
+            out.writeUTF(names[row]);
+            out.writeUTF(isins[row] != null ? isins[row] : "");
+            out.writeLong(prices[row]);
+            out.writeLong(changes[row]);
+            out.writeDouble(changeRates[row]);
+            out.writeLong(volumes[row]);
+            out.writeLong(tradeValues[row]);
+            out.writeLong(marketCaps[row]);
+            out.writeLong(openPrices[row]);
+            out.writeLong(highPrices[row]);
+            out.writeLong(lowPrices[row]);
+            out.writeLong(listedShares[row]);
+        }
+    }
+
+    /**
+     * Read a snapshot written by {@link #writeTo(DataOutputStream)}; it keeps its original load time
+     */
+    public static MarketSnapshot readFrom(DataInputStream in) throws IOException {
+        String market = in.readUTF();
+        String tradingDate = in.readUTF();
+        long loadedAt = in.readLong();
+        int size = in.readInt();
+        Builder builder = new Builder(market, tradingDate, size);
+        builder.restoredLoadedAt = loadedAt;
+        for (int row = 0; row < size; row++) {
+            builder.add(in.readUTF(), in.readUTF(), in.readUTF(),
+                in.readLong(), in.readLong(), in.readDouble(), in.readLong(), in.readLong(), in.readLong(),
+                in.readLong(), in.readLong(), in.readLong(), in.readLong());
+        }
+        return builder.build();
+    }
+
+    private KrxRankingStock toKrxRankingStock(int row, int rank) {
+        return new KrxRankingStock(
+            rank, tickers[row], names[row], prices[row], changes[row], changeRates[row],
+            volumes[row], marketCaps[row], tradeValues[row]
+        );
+    }
+
+    /**
+     * Rebuild the KRX-style quote (comma grouped strings) from the raw values
+     */
+    private KrxStockInfo toKrxStockInfo(int row) {
+        KrxStockInfo stockInfo = new KrxStockInfo();
+        stockInfo.setTicker(tickers[row]);
+        stockInfo.setName(names[row]);
+        stockInfo.setClosePrice(formatGrouped(prices[row]));
+        stockInfo.setPriceChange(formatGrouped(changes[row]));
+        stockInfo.setChangeRate(String.format(Locale.US, "%.2f", changeRates[row]));
+        stockInfo.setVolume(formatGrouped(volumes[row]));
+        stockInfo.setTradeValue(formatGrouped(tradeValues[row]));
+        stockInfo.setMarketCap(formatGrouped(marketCaps[row]));
+        stockInfo.setListedShares(formatGrouped(listedShares[row]));
+        stockInfo.setOpenPrice(formatGrouped(openPrices[row]));
+        stockInfo.setHighPrice(formatGrouped(highPrices[row]));
+        stockInfo.setLowPrice(formatGrouped(lowPrices[row]));
+        return stockInfo;
+    }
+
+    private static String formatGrouped(long number) {
+        return String.format(Locale.US, "%,d", number);
+    }
+
+    /**
+     * Stable merge sort of row numbers, so ties keep KRX response order
+     */
+    private int[] sortedIndex(RowComparator comparator) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        int[] buffer = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int lo = 0; lo < size - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, size);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    buffer[k++] = comparator.compare(order[j], order[i]) < 0 ? order[j++] : order[i++];
+                }
+                while (i < mid) {
+                    buffer[k++] = order[i++];
+                }
+                while (j < hi) {
+                    buffer[k++] = order[j++];
+                }
+                System.arraycopy(buffer, lo, order, lo, hi - lo);
+            }
+        }
+        return order;
+    }
+
+    @FunctionalInterface
+    private interface RowComparator {
+        int compare(int rowA, int rowB);
+    }
+
+    @FunctionalInterface
+    public interface IssueConsumer {
+        void accept(String ticker, String isin, String name);
+    }
+
+    /**
+     * Appends rows straight from the KRX response into growable column arrays
+     */
+    public static class Builder {
+        private final String market;
+        private final String tradingDate;
+        private long restoredLoadedAt;
+        private int size;
+
+        private String[] tickers;
+        private String[] names;
+        private String[] isins;
+        private long[] prices;
+        private long[] changes;
+        private double[] changeRates;
+        private long[] volumes;
+        private long[] tradeValues;
+        private long[] marketCaps;
+        private long[] openPrices;
+        private long[] highPrices;
+        private long[] lowPrices;
+        private long[] listedShares;
+
+        private Builder(String market, String tradingDate, int expectedSize) {
+            this.market = market;
+            this.tradingDate = tradingDate;
+            int capacity = Math.max(expectedSize, 16);
+            this.tickers = new String[capacity];
+            this.names = new String[capacity];
+            this.isins = new String[capacity];
+            this.prices = new long[capacity];
+            this.changes = new long[capacity];
+            this.changeRates = new double[capacity];
+            this.volumes = new long[capacity];
+            this.tradeValues = new long[capacity];
+            this.marketCaps = new long[capacity];
+            this.openPrices = new long[capacity];
+            this.highPrices = new long[capacity];
+            this.lowPrices = new long[capacity];
+            this.listedShares = new long[capacity];
+        }
+
+        public Builder add(String ticker, String name, String isin, long price, long change, double changeRate,
+                           long volume, long tradeValue, long marketCap,
+                           long openPrice, long highPrice, long lowPrice, long listedShareCount) {
+            if (size == tickers.length) {
+                grow();
+            }
+            tickers[size] = ticker;
+            names[size] = name;
+            isins[size] = isin;
+            prices[size] = price;
+            changes[size] = change;
+            changeRates[size] = changeRate;
+            volumes[size] = volume;
+            tradeValues[size] = tradeValue;
+            marketCaps[size] = marketCap;
+            openPrices[size] = openPrice;
+            highPrices[size] = highPrice;
+            lowPrices[size] = lowPrice;
+            listedShares[size] = listedShareCount;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public MarketSnapshot build() {
+            return new MarketSnapshot(this);
+        }
+
+        private void grow() {
+            int capacity = tickers.length * 2;
+            tickers = Arrays.copyOf(tickers, capacity);
+            names = Arrays.copyOf(names, capacity);
+            isins = Arrays.copyOf(isins, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            changes = Arrays.copyOf(changes, capacity);
+            changeRates = Arrays.copyOf(changeRates, capacity);
+            volumes = Arrays.copyOf(volumes, capacity);
+            tradeValues = Arrays.copyOf(tradeValues, capacity);
+            marketCaps = Arrays.copyOf(marketCaps, capacity);
+            openPrices = Arrays.copyOf(openPrices, capacity);
+            highPrices = Arrays.copyOf(highPrices, capacity);
+            lowPrices = Arrays.copyOf(lowPrices, capacity);
+            listedShares = Arrays.copyOf(listedShares, capacity);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.Stalk.project.api.stock.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background refresher for the market snapshots behind the ranking and quote endpoints.
+ * Markets read recently are reloaded shortly before they go stale, so user requests are
+ * served from memory instead of waiting for KRX. The refresh cadence follows the trading
+ * session (see {@link KrxApiService#refreshHotSnapshots()}).
+ */
+@Component
+public class MarketSnapshotRefreshScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketSnapshotRefreshScheduler.class);
+
+    @Autowired
+    private KrxApiService krxApiService;
+
+    @Scheduled(fixedDelayString = "${krx.api.refresh-check-millis:10000}", initialDelayString = "${krx.api.refresh-check-millis:10000}")
+    public void refreshHotSnapshots() {
+        try {
+            krxApiService.refreshHotSnapshots();
+        } catch (Exception e) {
+            logger.warn("Scheduled snapshot refresh check failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.Stalk.project.api.stock.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Local copy of the last market snapshot successfully loaded from KRX, one file per market.
+ * Restored at startup so rankings and quotes can be served (marked stale) while KRX is unavailable.
+ */
+@Service
+public class MarketSnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketSnapshotStore.class);
+
+    private static final int FILE_MAGIC = 0x4B534E50; // "KSNP"
+    private static final int FILE_VERSION = 1;
+
+    @Value("${krx.snapshot-store.dir:./data/krx-snapshots}")
+    private String storeDir;
+
+    /**
+     * @return last saved snapshot of the market, or null if there is none or it cannot be read
+     */
+    public MarketSnapshot load(String krxMarketCode) {
+        Path file = snapshotFile(krxMarketCode);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                logger.warn("Ignoring market snapshot file {} with unknown format", file);
+                return null;
+            }
+            MarketSnapshot snapshot = MarketSnapshot.readFrom(in);
+            logger.info("Restored {} snapshot of {} ({} issues) from {}",
+                krxMarketCode, snapshot.getTradingDate(), snapshot.size(), file);
+            return snapshot;
+        } catch (IOException e) {
+            logger.warn("Failed to read market snapshot file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Replace the saved snapshot of the market; write errors are logged and otherwise ignored
+     */
+    public void save(String krxMarketCode, MarketSnapshot snapshot) {
+        Path target = snapshotFile(krxMarketCode);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), krxMarketCode, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                snapshot.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Saved {} snapshot of {} to {}", krxMarketCode, snapshot.getTradingDate(), target);
+        } catch (IOException e) {
+            logger.warn("Failed to save market snapshot {}: {}", target, e.getMessage());
+        }
+    }
+
+    private Path snapshotFile(String krxMarketCode) {
+        return Paths.get(storeDir).toAbsolutePath().resolve(krxMarketCode + ".bin");
+    }
+}
@@ -0,0 +1,286 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.global.config.KisApiConfig;
+import com.Stalk.project.global.config.KrxApiConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import jakarta.annotation.PreDestroy;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single gate for outbound calls to KRX and KIS.
+ * Every upstream host has a token bucket and a queue of waiting calls ordered by priority, so an
+ * interactive request is sent before queued snapshot refreshes and history backfill. A call that
+ * cannot get a permit within the maximum wait of its priority fails with {@link ThrottledException}
+ * instead of queueing without bound. KIS hosts use the kis.api rate, all other hosts the krx.api rate.
+ * Queue depth per host and sent/throttled calls per host and priority are published as metrics.
+ */
+@Component
+public class OutboundCallScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundCallScheduler.class);
+
+    private static final String UNKNOWN_HOST = "unknown";
+
+    /**
+     * Order in which queued calls are sent; earlier constants go first
+     */
+    public enum Priority {
+        // A user is waiting for the response
+        INTERACTIVE,
+        // Snapshot refreshes, listing warm-up and other work that keeps caches current
+        BACKGROUND,
+        // Bulk history downloads
+        BACKFILL
+    }
+
+    /**
+     * Thrown when a call waited longer than its priority allows for a permit
+     */
+    public static class ThrottledException extends RuntimeException {
+        public ThrottledException(String message) {
+            super(message);
+        }
+    }
+
+    private final KrxApiConfig krxApiConfig;
+    private final KisApiConfig kisApiConfig;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, HostLane> lanes = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    // Releases queued calls when their host's bucket refills
+    private final Scheduler drainScheduler = Schedulers.newSingle("outbound-scheduler", true);
+    private final String kisHost;
+    private final String kisTokenHost;
+
+    @Value("${outbound.max-wait.interactive-millis:5000}")
+    private long interactiveMaxWaitMillis;
+
+    @Value("${outbound.max-wait.background-millis:30000}")
+    private long backgroundMaxWaitMillis;
+
+    @Value("${outbound.max-wait.backfill-millis:120000}")
+    private long backfillMaxWaitMillis;
+
+    @Autowired
+    public OutboundCallScheduler(KrxApiConfig krxApiConfig,
+                                 KisApiConfig kisApiConfig,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${kis.api.token-base-url:${kis.api.base-url}}") String kisTokenBaseUrl) {
+        this.krxApiConfig = krxApiConfig;
+        this.kisApiConfig = kisApiConfig;
+        this.meterRegistry = meterRegistry;
+        this.kisHost = hostOf(kisApiConfig.getBaseUrl());
+        this.kisTokenHost = hostOf(kisTokenBaseUrl);
+    }
+
+    /**
+     * Subscribe to the call once the host of {@code url} grants a permit.
+     * The supplier is invoked again on every resubscription (e.g. retries), and each attempt takes a permit.
+     * @param url absolute URL or base URL of the upstream
+     */
+    public <T> Mono<T> schedule(String url, Priority priority, Supplier<Mono<T>> call) {
+        return acquire(url, priority).then(Mono.defer(call));
+    }
+
+    /**
+     * Completes once the host of {@code url} grants a permit, or fails with {@link ThrottledException}
+     * after the maximum wait of the priority
+     */
+    public Mono<Void> acquire(String url, Priority priority) {
+        return Mono.defer(() -> {
+            HostLane lane = laneFor(hostOf(url));
+            Duration maxWait = maxWait(priority);
+            return Mono.<Void>create(sink -> {
+                    Waiter waiter = new Waiter(priority, sequence.incrementAndGet(), sink);
+                    sink.onCancel(() -> lane.remove(waiter));
+                    lane.enqueue(waiter);
+                })
+                .timeout(maxWait, Mono.defer(() -> {
+                    lane.throttledCounter(priority).increment();
+                    logger.warn("Outbound {} call to {} throttled after waiting {} ms", priority, lane.host,
+                        maxWait.toMillis());
+                    return Mono.error(new ThrottledException("Outbound call to " + lane.host
+                        + " throttled after waiting " + maxWait.toMillis() + " ms"));
+                }));
+        });
+    }
+
+    /**
+     * @return calls waiting for a permit to the host of {@code url}
+     */
+    public int queueDepth(String url) {
+        HostLane lane = lanes.get(hostOf(url));
+        return lane != null ? lane.depth() : 0;
+    }
+
+    @PreDestroy
+    public void shutdownDrainScheduler() {
+        drainScheduler.dispose();
+    }
+
+    private HostLane laneFor(String host) {
+        return lanes.computeIfAbsent(host, h -> {
+            boolean kis = h.equals(kisHost) || h.equals(kisTokenHost);
+            double permitsPerSecond = kis ? kisApiConfig.getRequestsPerSecond() : krxApiConfig.getRequestsPerSecond();
+            int burst = kis ? kisApiConfig.getHistoryParallelism() : krxApiConfig.getRequestBurst();
+            logger.info("Outbound rate for {}: {} calls/s, burst {}", h, permitsPerSecond, burst);
+            return new HostLane(h, permitsPerSecond, burst);
+        });
+    }
+
+    private Duration maxWait(Priority priority) {
+        switch (priority) {
+            case INTERACTIVE:
+                return Duration.ofMillis(interactiveMaxWaitMillis);
+            case BACKGROUND:
+                return Duration.ofMillis(backgroundMaxWaitMillis);
+            default:
+                return Duration.ofMillis(backfillMaxWaitMillis);
+        }
+    }
+
+    private static String hostOf(String url) {
+        if (url == null || url.isBlank()) {
+            return UNKNOWN_HOST;
+        }
+        try {
+            String host = URI.create(url.trim()).getHost();
+            return host != null ? host : UNKNOWN_HOST;
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN_HOST;
+        }
+    }
+
+    private static final class Waiter {
+        private static final Comparator<Waiter> ORDER =
+            Comparator.<Waiter>comparingInt(w -> w.priority.ordinal()).thenComparingLong(w -> w.sequence);
+
+        private final Priority priority;
+        private final long sequence;
+        private final MonoSink<Void> sink;
+
+        private Waiter(Priority priority, long sequence, MonoSink<Void> sink) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * Token bucket and priority queue of one upstream host
+     */
+    private final class HostLane {
+        private final String host;
+        private final double permitsPerSecond;
+        private final double burst;
+        private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(Waiter.ORDER);
+        private final Map<Priority, Counter> callCounters = new ConcurrentHashMap<>();
+        private final Map<Priority, Counter> throttledCounters = new ConcurrentHashMap<>();
+        private double tokens;
+        private long lastRefillNanos;
+        private boolean drainScheduled;
+
+        private HostLane(String host, double permitsPerSecond, int burst) {
+            if (permitsPerSecond <= 0) {
+                throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+            }
+            this.host = host;
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = Math.max(1, burst);
+            this.tokens = this.burst;
+            this.lastRefillNanos = System.nanoTime();
+            Gauge.builder("outbound.queue.depth", this, HostLane::depth)
+                .description("Outbound calls waiting for a rate limit permit")
+                .tag("host", host)
+                .register(meterRegistry);
+        }
+
+        private void enqueue(Waiter waiter) {
+            List<Waiter> granted;
+            synchronized (this) {
+                waiters.add(waiter);
+                granted = drain();
+            }
+            release(granted);
+        }
+
+        private synchronized void remove(Waiter waiter) {
+            waiters.remove(waiter);
+        }
+
+        private synchronized int depth() {
+            return waiters.size();
+        }
+
+        /**
+         * Hand out available tokens in queue order and schedule the next drain while calls are left.
+         * Must hold the lane lock; the granted calls are released after the lock is dropped.
+         */
+        private List<Waiter> drain() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefillNanos) * permitsPerSecond / 1_000_000_000.0);
+            lastRefillNanos = now;
+
+            List<Waiter> granted = new ArrayList<>();
+            while (tokens >= 1 && !waiters.isEmpty()) {
+                tokens -= 1;
+                granted.add(waiters.poll());
+            }
+            if (!waiters.isEmpty() && !drainScheduled) {
+                drainScheduled = true;
+                long waitNanos = (long) Math.ceil((1 - tokens) / permitsPerSecond * 1_000_000_000.0);
+                drainScheduler.schedule(this::scheduledDrain, waitNanos, TimeUnit.NANOSECONDS);
+            }
+            return granted;
+        }
+
+        private void scheduledDrain() {
+            List<Waiter> granted;
+            synchronized (this) {
+                drainScheduled = false;
+                granted = drain();
+            }
+            release(granted);
+        }
+
+        private void release(List<Waiter> granted) {
+            for (Waiter waiter : granted) {
+                callCounters.computeIfAbsent(waiter.priority, p -> counter("outbound.calls", p)).increment();
+                waiter.sink.success();
+            }
+        }
+
+        private Counter throttledCounter(Priority priority) {
+            return throttledCounters.computeIfAbsent(priority, p -> counter("outbound.throttled", p));
+        }
+
+        private Counter counter(String name, Priority priority) {
+            return Counter.builder(name)
+                .tag("host", host)
+                .tag("priority", priority.name().toLowerCase())
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.api.stock.dto.KrxRankingStock;
+import com.Stalk.project.api.stock.dto.StockQuote;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live quote and ranking board streams shared by all subscribers.
+ * Each distinct ticker or board that has at least one subscriber is one topic; a single poller
+ * reads every topic from the market snapshots and pushes only what changed since the last poll
+ * to all of its subscribers. Topics are reference counted: when the last subscriber leaves the
+ * topic is dropped and no longer polled, so upstream load grows with distinct topics, not viewers.
+ *
+ * Topics are named {@code ticker:<ticker>} and {@code board:<market>:<sortKey>}, e.g.
+ * {@code ticker:005930} or {@code board:KOSPI:VOLUME}.
+ */
+@Service
+public class QuoteStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuoteStreamService.class);
+
+    private static final String TICKER_PREFIX = "ticker:";
+    private static final String BOARD_PREFIX = "board:";
+
+    /**
+     * Receives the JSON messages of the topics it subscribed to.
+     * Implementations must not block and must tolerate being called from the poller thread.
+     */
+    public interface Subscriber {
+        String getId();
+
+        /**
+         * @return false once the connection is closed; checked after subscribing, since the close
+         * callback may run concurrently on another thread
+         */
+        boolean isOpen();
+
+        void send(String message);
+    }
+
+    @Autowired
+    private StockQuoteService stockQuoteService;
+
+    @Autowired
+    private KrxApiService krxApiService;
+
+    @Autowired
+    private TickerMarketResolver tickerMarketResolver;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${quote-stream.board-size:50}")
+    private int boardSize;
+
+    @Value("${quote-stream.max-topics-per-subscriber:100}")
+    private int maxTopicsPerSubscriber;
+
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+    // Topics of each subscriber, to drop all of them when it disconnects
+    private final Map<String, Set<String>> subscriptions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("quote.stream.topics", topics, Map::size)
+            .description("Tickers and ranking boards polled for stream subscribers")
+            .register(meterRegistry);
+        Gauge.builder("quote.stream.subscribers", subscriptions, Map::size)
+            .description("Connected quote stream subscribers")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return topic of a ticker, e.g. {@code ticker:005930}
+     * @throws IllegalArgumentException if the ticker is not listed on KOSPI or KOSDAQ
+     */
+    public String tickerTopic(String ticker) {
+        String trimmed = ticker == null ? "" : ticker.trim();
+        if (trimmed.isEmpty() || tickerMarketResolver.marketOf(trimmed) == null) {
+            throw new IllegalArgumentException("Unknown ticker: " + ticker);
+        }
+        return TICKER_PREFIX + trimmed;
+    }
+
+    /**
+     * @param board {@code <market>:<sortKey>}, e.g. {@code KOSPI:VOLUME} or {@code KOSDAQ:CHANGE_RATE_DESC}
+     * @return topic of the ranking board
+     * @throws IllegalArgumentException if the market or sort key is unknown
+     */
+    public String boardTopic(String board) {
+        String[] parts = board == null ? new String[0] : board.trim().toUpperCase().split(":");
+        if (parts.length != 2 || !("KOSPI".equals(parts[0]) || "KOSDAQ".equals(parts[0]))) {
+            throw new IllegalArgumentException("Unknown board: " + board);
+        }
+        try {
+            MarketSnapshot.SortKey.valueOf(parts[1]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown board: " + board);
+        }
+        return BOARD_PREFIX + parts[0] + ":" + parts[1];
+    }
+
+    /**
+     * Add the subscriber to a topic, starting to poll the topic if it is new.
+     * The last published state of the topic, if any, is sent to the subscriber right away.
+     * @throws IllegalStateException if the subscriber already has the maximum number of topics
+     */
+    public void subscribe(Subscriber subscriber, String topicName) {
+        Set<String> own = subscriptions.computeIfAbsent(subscriber.getId(), id -> ConcurrentHashMap.newKeySet());
+        if (!own.contains(topicName) && own.size() >= maxTopicsPerSubscriber) {
+            throw new IllegalStateException("At most " + maxTopicsPerSubscriber + " subscriptions per connection");
+        }
+        own.add(topicName);
+        Topic topic = topics.compute(topicName, (name, existing) -> {
+            Topic t = existing != null ? existing : new Topic(name);
+            t.subscribers.put(subscriber.getId(), subscriber);
+            return t;
+        });
+        if (!subscriber.isOpen()) {
+            // Closed while subscribing: its unsubscribeAll may have run before this topic was added
+            unsubscribeAll(subscriber);
+            return;
+        }
+        String current = topic.fullMessage();
+        if (current != null) {
+            subscriber.send(current);
+        }
+    }
+
+    /**
+     * Remove the subscriber from a topic; the topic stops being polled when nobody is left
+     */
+    public void unsubscribe(Subscriber subscriber, String topicName) {
+        Set<String> own = subscriptions.get(subscriber.getId());
+        if (own != null) {
+            own.remove(topicName);
+        }
+        release(subscriber.getId(), topicName);
+    }
+
+    /**
+     * Remove the subscriber from all of its topics, e.g. when its connection closes
+     */
+    public void unsubscribeAll(Subscriber subscriber) {
+        Set<String> own = subscriptions.remove(subscriber.getId());
+        if (own != null) {
+            for (String topicName : own) {
+                release(subscriber.getId(), topicName);
+            }
+        }
+    }
+
+    private void release(String subscriberId, String topicName) {
+        topics.computeIfPresent(topicName, (name, topic) -> {
+            topic.subscribers.remove(subscriberId);
+            if (topic.subscribers.isEmpty()) {
+                logger.debug("Stopped streaming {}, no subscribers left", name);
+                return null;
+            }
+            return topic;
+        });
+    }
+
+    /**
+     * Poll every subscribed topic once and push changes. Ticker quotes are resolved in one batch.
+     * Only snapshots already in memory are read, so a cold or failing KRX load never holds the
+     * scheduler thread; topics of a market that is still loading are pushed on a later poll.
+     */
+    @Scheduled(fixedDelayString = "${quote-stream.poll-millis:2000}", initialDelayString = "${quote-stream.poll-millis:2000}")
+    public void poll() {
+        if (topics.isEmpty()) {
+            return;
+        }
+        List<Topic> tickerTopics = new ArrayList<>();
+        List<String> tickers = new ArrayList<>();
+        for (Topic topic : topics.values()) {
+            if (topic.name.startsWith(TICKER_PREFIX)) {
+                tickerTopics.add(topic);
+                tickers.add(topic.name.substring(TICKER_PREFIX.length()));
+            } else {
+                pollBoard(topic);
+            }
+        }
+        if (!tickers.isEmpty()) {
+            pollTickers(tickerTopics, tickers);
+        }
+    }
+
+    private void pollTickers(List<Topic> tickerTopics, List<String> tickers) {
+        Map<String, StockQuote> quotes = new HashMap<>();
+        try {
+            for (StockQuote quote : stockQuoteService.getLoadedQuotes(tickers)) {
+                quotes.put(quote.ticker(), quote);
+            }
+        } catch (Exception e) {
+            logger.warn("Quote stream poll failed: {}", e.getMessage());
+            return;
+        }
+        for (Topic topic : tickerTopics) {
+            StockQuote quote = quotes.get(topic.name.substring(TICKER_PREFIX.length()));
+            if (quote == null || quote.equals(topic.lastQuote)) {
+                continue;
+            }
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("type", "quote");
+            message.put("topic", topic.name);
+            message.put("data", quote);
+            String json = toJson(message);
+            if (json != null) {
+                topic.lastQuote = quote;
+                topic.lastMessage = json;
+                topic.broadcast(json);
+            }
+        }
+    }
+
+    private void pollBoard(Topic topic) {
+        String[] parts = topic.name.substring(BOARD_PREFIX.length()).split(":");
+        MarketSnapshot snapshot = krxApiService.getLoadedMarketSnapshot(parts[0]);
+        if (snapshot == null) {
+            return;
+        }
+        List<KrxRankingStock> rows = snapshot.top(MarketSnapshot.SortKey.valueOf(parts[1]), boardSize);
+
+        List<String> rowJson = new ArrayList<>(rows.size());
+        for (KrxRankingStock row : rows) {
+            String json = toJson(row);
+            if (json == null) {
+                return;
+            }
+            rowJson.add(json);
+        }
+
+        // Rows are patched by rank; a row is sent when the stock or its figures at that rank changed
+        List<String> previous = topic.lastRows;
+        List<KrxRankingStock> changed = new ArrayList<>();
+        for (int i = 0; i < rowJson.size(); i++) {
+            if (i >= previous.size() || !previous.get(i).equals(rowJson.get(i))) {
+                changed.add(rows.get(i));
+            }
+        }
+        if (changed.isEmpty() && previous.size() == rowJson.size()) {
+            return;
+        }
+
+        String full = boardMessage(topic.name, rows, rows.size(), true);
+        String delta = boardMessage(topic.name, changed, rows.size(), false);
+        if (full == null || delta == null) {
+            return;
+        }
+        topic.lastRows = rowJson;
+        topic.lastMessage = full;
+        topic.broadcast(previous.isEmpty() ? full : delta);
+    }
+
+    private String boardMessage(String topicName, List<KrxRankingStock> rows, int size, boolean full) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", "board");
+        message.put("topic", topicName);
+        message.put("full", full);
+        message.put("size", size);
+        message.put("rows", rows);
+        return toJson(message);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            logger.warn("Failed to serialize quote stream message: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * One streamed ticker or board with its subscribers and last published state
+     */
+    private static final class Topic {
+        private final String name;
+        private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+        // Complete state sent to new subscribers; null until the first poll
+        private volatile String lastMessage;
+        private volatile StockQuote lastQuote;
+        private volatile List<String> lastRows = List.of();
+
+        private Topic(String name) {
+            this.name = name;
+        }
+
+        private String fullMessage() {
+            return lastMessage;
+        }
+
+        private void broadcast(String message) {
+            for (Subscriber subscriber : subscribers.values()) {
+                subscriber.send(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.Stalk.project.api.stock.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports whether stock search is warm, i.e. served from a loaded listing, as the "warm" detail.
+ * Always UP: this contributor is part of the default health group, and a cold search (KRX down, no
+ * listing file) must not take the whole application out of the load balancer.
+ */
+@Component("stockListing")
+public class StockListingHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private StockListingService stockListingService;
+
+    @Override
+    public Health health() {
+        return Health.up()
+            .withDetail("warm", stockListingService.isWarm())
+            .withDetail("stocks", stockListingService.getStockCount())
+            .withDetail("source", stockListingService.getListingSource())
+            .withDetail("loadedAt", stockListingService.getListingLoadedAt())
+            .withDetail("refreshing", stockListingService.isRefreshing())
+            .build();
+    }
+}
@@ -4,146 +4,143 @@ import com.Stalk.project.api.stock.dto.KrxRankingStock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class StockListingService {
 
     private static final Logger logger = LoggerFactory.getLogger(StockListingService.class);
     
+    private static final int SNAPSHOT_MAGIC = 0x4B4C5354; // "KLST"
+    private static final int SNAPSHOT_VERSION = 1;
+    
     // In-memory cache for fast searching
     private final Map<String, StockListing> stockCache = new ConcurrentHashMap<>();
     
+    // Autocomplete index over stockCache, rebuilt after every load
+    private volatile StockSearchIndex searchIndex = StockSearchIndex.empty();
+    
+    // Where the current listing came from ("none", "disk" or "krx") and when it was loaded
+    private volatile String listingSource = "none";
+    private volatile long listingLoadedAt;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    
     @Autowired(required = false)
     private KrxApiService krxApiService;
     
+    @Value("${krx.stock-listing.file:./data/krx-stock-listing.bin}")
+    private String snapshotFile;
+    
+    /**
+     * Serve search from the last persisted listing right away; the KRX refresh runs after startup
+     */
     @PostConstruct
     private void init() {
-        // Log the initialization status
         logger.info("StockListingService initializing...");
-        
-        // Load from KRX API
-        if (krxApiService != null) {
-            logger.info("Attempting to load stocks from KRX API...");
-            try {
-                loadFromKrxApi();
-                logger.info("StockListingService initialized with {} stocks in cache", stockCache.size());
-            } catch (Exception e) {
-                logger.error("Failed to load stocks from KRX API: {}", e.getMessage());
-                logger.error("Stock cache will be empty - search will not work");
-            }
-        } else {
-            logger.warn("KrxApiService is not available, stock cache will be empty");
+        loadFromSnapshotFile();
+    }
+    
+    /**
+     * Refresh the listing from KRX in the background once the application is ready,
+     * so startup never waits on KRX
+     */
+    @Async("warmUpExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (krxApiService == null) {
+            logger.warn("KrxApiService is not available, stock listing stays at {} stocks from {}",
+                       stockCache.size(), listingSource);
+            return;
         }
+        refreshStockList();
     }
     
-    private void loadFromKrxApi() {
-        try {
-            logger.info("Loading stock listings from KRX API...");
-            
-            // Try to load more stocks by fetching larger volume rankings
-            // This is a temporary solution until we can fetch all stocks
-            int fetchLimit = 1000; // Increase from 200 to 1000
-            
-            // Fetch KOSPI stocks
-            logger.info("Fetching KOSPI stocks with limit: {}", fetchLimit);
-            List<KrxRankingStock> kospiStocks = krxApiService.getKospiVolumeRanking(fetchLimit);
-            for (KrxRankingStock stock : kospiStocks) {
-                StockListing listing = new StockListing(stock.getTicker(), stock.getName(), "KOSPI");
-                stockCache.put(stock.getTicker(), listing);
-            }
-            logger.info("Loaded {} KOSPI stocks", kospiStocks.size());
-            
-            // Fetch KOSDAQ stocks
-            logger.info("Fetching KOSDAQ stocks with limit: {}", fetchLimit);
-            List<KrxRankingStock> kosdaqStocks = krxApiService.getKosdaqVolumeRanking(fetchLimit);
-            for (KrxRankingStock stock : kosdaqStocks) {
-                StockListing listing = new StockListing(stock.getTicker(), stock.getName(), "KOSDAQ");
-                stockCache.put(stock.getTicker(), listing);
-            }
-            logger.info("Loaded {} KOSDAQ stocks", kosdaqStocks.size());
-            
-            // Also try to fetch from other ranking types to get more stocks
-            try {
-                // Get stocks from price increase ranking (might include different stocks)
-                List<KrxRankingStock> kospiRising = krxApiService.getKospiPriceIncreaseRanking(500);
-                for (KrxRankingStock stock : kospiRising) {
-                    if (!stockCache.containsKey(stock.getTicker())) {
-                        StockListing listing = new StockListing(stock.getTicker(), stock.getName(), "KOSPI");
-                        stockCache.put(stock.getTicker(), listing);
-                    }
-                }
-                
-                List<KrxRankingStock> kosdaqRising = krxApiService.getKosdaqPriceIncreaseRanking(500);
-                for (KrxRankingStock stock : kosdaqRising) {
-                    if (!stockCache.containsKey(stock.getTicker())) {
-                        StockListing listing = new StockListing(stock.getTicker(), stock.getName(), "KOSDAQ");
-                        stockCache.put(stock.getTicker(), listing);
-                    }
-                }
-                
-                // Get stocks from price decrease ranking
-                List<KrxRankingStock> kospiFalling = krxApiService.getKospiPriceDecreaseRanking(500);
-                for (KrxRankingStock stock : kospiFalling) {
-                    if (!stockCache.containsKey(stock.getTicker())) {
-                        StockListing listing = new StockListing(stock.getTicker(), stock.getName(), "KOSPI");
-                        stockCache.put(stock.getTicker(), listing);
-                    }
-                }
-                
-                List<KrxRankingStock> kosdaqFalling = krxApiService.getKosdaqPriceDecreaseRanking(500);
-                for (KrxRankingStock stock : kosdaqFalling) {
-                    if (!stockCache.containsKey(stock.getTicker())) {
-                        StockListing listing = new StockListing(stock.getTicker(), stock.getName(), "KOSDAQ");
-                        stockCache.put(stock.getTicker(), listing);
-                    }
-                }
-            } catch (Exception e) {
-                logger.warn("Failed to load additional stocks from other ranking types: {}", e.getMessage());
-            }
-            
-            logger.info("Loaded total {} stocks from KRX API", stockCache.size());
-        } catch (Exception e) {
-            logger.error("Failed to load stocks from KRX API - application will continue with empty stock listings cache", e);
-            // Don't rethrow - allow application to start even if KRX API fails
-            // Stock cache will remain empty
+    /**
+     * Load the complete listing of both markets from the KRX full-market snapshots
+     * @return listings keyed by ticker, empty if KRX returned nothing
+     */
+    private Map<String, StockListing> loadFromKrxApi() {
+        Map<String, StockListing> listings = new HashMap<>();
+        addMarket(listings, "STK", "KOSPI");
+        addMarket(listings, "KSQ", "KOSDAQ");
+        logger.info("Loaded total {} stocks from KRX API", listings.size());
+        return listings;
+    }
+    
+    private void addMarket(Map<String, StockListing> listings, String marketCode, String marketName) {
+        MarketSnapshot snapshot = krxApiService.getMarketSnapshot(marketCode);
+        // Every listed issue, ordered by trading volume
+        for (KrxRankingStock stock : snapshot.top(MarketSnapshot.SortKey.VOLUME, snapshot.size())) {
+            listings.putIfAbsent(stock.getTicker(),
+                new StockListing(stock.getTicker(), stock.getName(), marketName, stock.getRank()));
         }
+        logger.info("Loaded {} {} stocks", snapshot.size(), marketName);
     }
     
     public List<StockListing> searchStocks(String query) {
         if (query == null || query.trim().isEmpty()) {
             return new ArrayList<>(stockCache.values());
         }
-        
-        String lowerQuery = query.toLowerCase().trim();
-        List<StockListing> results = new ArrayList<>();
-        
-        for (StockListing stock : stockCache.values()) {
-            if (stock.getTicker().equals(query) || 
-                stock.getTicker().contains(query) ||
-                stock.getCompanyName().toLowerCase().contains(lowerQuery)) {
-                results.add(stock);
-            }
-        }
-        
-        return results;
+        return searchStocks(query, StockSearchIndex.MAX_RESULTS);
+    }
+    
+    /**
+     * Top matches by ticker, name or name initials (chosung), most traded first
+     * @param limit page size, capped at {@link StockSearchIndex#MAX_RESULTS}
+     */
+    public List<StockListing> searchStocks(String query, int limit) {
+        return searchIndex.search(query, limit);
     }
     
     public Optional<StockListing> getByTicker(String ticker) {
         return Optional.ofNullable(stockCache.get(ticker));
     }
     
+    /**
+     * Reload the listing from KRX and persist it. The current listing keeps serving until the
+     * new one is complete, and is kept if KRX fails or returns nothing.
+     */
     public void refreshStockList() {
-        logger.info("Refreshing stock list...");
-        stockCache.clear();
-        if (krxApiService != null) {
-            loadFromKrxApi();
-        } else {
+        if (krxApiService == null) {
             logger.warn("Cannot refresh stock list - KrxApiService is not available");
+            return;
+        }
+        if (!refreshing.compareAndSet(false, true)) {
+            logger.info("Stock list refresh already in progress");
+            return;
+        }
+        try {
+            logger.info("Refreshing stock list...");
+            Map<String, StockListing> listings = loadFromKrxApi();
+            if (listings.isEmpty()) {
+                logger.warn("KRX returned no stocks, keeping {} stocks from {}", stockCache.size(), listingSource);
+                return;
+            }
+            replaceListing(listings.values(), "krx");
+            saveSnapshotFile(listings.values());
+        } catch (Exception e) {
+            logger.error("Failed to refresh stock list from KRX API, keeping {} stocks from {}: {}",
+                        stockCache.size(), listingSource, e.getMessage());
+        } finally {
+            refreshing.set(false);
         }
     }
     
@@ -151,19 +148,118 @@ public class StockListingService {
         return stockCache.size();
     }
     
+    /**
+     * Whether search is served from a loaded listing (from disk or KRX)
+     */
+    public boolean isWarm() {
+        return !stockCache.isEmpty();
+    }
+    
+    public boolean isRefreshing() {
+        return refreshing.get();
+    }
+    
+    public String getListingSource() {
+        return listingSource;
+    }
+    
+    public long getListingLoadedAt() {
+        return listingLoadedAt;
+    }
+    
+    private void replaceListing(Collection<StockListing> listings, String source) {
+        Set<String> tickers = new HashSet<>();
+        for (StockListing listing : listings) {
+            stockCache.put(listing.getTicker(), listing);
+            tickers.add(listing.getTicker());
+        }
+        // Delisted tickers are dropped only after the new listing is in place
+        stockCache.keySet().retainAll(tickers);
+        rebuildSearchIndex();
+        listingSource = source;
+        listingLoadedAt = System.currentTimeMillis();
+    }
+    
+    private void rebuildSearchIndex() {
+        long start = System.currentTimeMillis();
+        searchIndex = StockSearchIndex.build(stockCache.values());
+        logger.info("Built stock search index over {} stocks in {} ms",
+                   searchIndex.size(), System.currentTimeMillis() - start);
+    }
+    
+    private void loadFromSnapshotFile() {
+        Path file = Paths.get(snapshotFile);
+        if (!Files.exists(file)) {
+            logger.info("No stock listing snapshot at {}, search stays empty until KRX loads", file);
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                logger.warn("Ignoring unreadable stock listing snapshot: {}", file);
+                return;
+            }
+            long savedAt = in.readLong();
+            int count = in.readInt();
+            List<StockListing> listings = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                listings.add(new StockListing(in.readUTF(), in.readUTF(), in.readUTF(), in.readInt()));
+            }
+            replaceListing(listings, "disk");
+            listingLoadedAt = savedAt;
+            logger.info("Loaded {} stocks from listing snapshot {} saved at {}", count, file, new Date(savedAt));
+        } catch (IOException e) {
+            logger.warn("Failed to read stock listing snapshot {}: {}", file, e.getMessage());
+        }
+    }
+    
+    /**
+     * Persist the listing; written to a temp file and moved into place so a crash never leaves a partial file
+     */
+    private void saveSnapshotFile(Collection<StockListing> listings) {
+        Path target = Paths.get(snapshotFile).toAbsolutePath();
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), "krx-stock-listing", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(listings.size());
+                for (StockListing listing : listings) {
+                    out.writeUTF(listing.getTicker());
+                    out.writeUTF(listing.getCompanyName());
+                    out.writeUTF(listing.getMarket());
+                    out.writeInt(listing.getVolumeRank());
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved {} stocks to listing snapshot {}", listings.size(), target);
+        } catch (IOException e) {
+            logger.warn("Failed to save stock listing snapshot {}: {}", target, e.getMessage());
+        }
+    }
+    
     public static class StockListing {
         private final String ticker;
         private final String companyName;
         private final String market;
+        // Trading volume rank used to order search results; lower is more popular
+        private final int volumeRank;
         
         public StockListing(String ticker, String companyName, String market) {
+            this(ticker, companyName, market, Integer.MAX_VALUE);
+        }
+        
+        public StockListing(String ticker, String companyName, String market, int volumeRank) {
             this.ticker = ticker;
             this.companyName = companyName;
             this.market = market;
+            this.volumeRank = volumeRank;
         }
         
         public String getTicker() { return ticker; }
         public String getCompanyName() { return companyName; }
         public String getMarket() { return market; }
+        public int getVolumeRank() { return volumeRank; }
     }
-}
\ No newline at end of file
+}
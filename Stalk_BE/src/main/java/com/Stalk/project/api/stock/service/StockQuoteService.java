@@ -0,0 +1,131 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.api.stock.dto.StockQuote;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Batch quote lookup for in-process callers such as watchlists.
+ * All tickers are resolved in one pass against the cached KOSPI and KOSDAQ snapshots, so a
+ * watchlist costs one in-memory lookup per ticker instead of an HTTP call per ticker and market.
+ * The market of each ticker comes from {@link TickerMarketResolver}, so only its own snapshot is read.
+ */
+@Service
+public class StockQuoteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockQuoteService.class);
+
+    @Autowired
+    private KrxApiService krxApiService;
+
+    @Autowired
+    private TickerMarketResolver tickerMarketResolver;
+
+    /**
+     * Quotes for the given tickers in request order; duplicates are returned once and
+     * tickers not listed in either market are left out
+     */
+    public List<StockQuote> getQuotes(Collection<String> tickers) {
+        return findQuotes(tickers, this::loadSnapshot);
+    }
+
+    /**
+     * Non-blocking variant of {@link #getQuotes(Collection)}: the snapshots of the markets involved are
+     * read through {@link KrxApiService#getMarketSnapshotAsync(String)}, so a cold load holds no thread
+     */
+    public Mono<List<StockQuote>> getQuotesAsync(Collection<String> tickers) {
+        Set<String> markets = new LinkedHashSet<>();
+        for (String ticker : requestedTickers(tickers)) {
+            String market = tickerMarketResolver.marketOf(ticker);
+            if (market != null) {
+                markets.add(market);
+            }
+        }
+        return Flux.fromIterable(markets)
+            .flatMap(market -> krxApiService.getMarketSnapshotAsync(market)
+                .map(snapshot -> Map.entry(market, snapshot))
+                .onErrorResume(e -> {
+                    // One unavailable market should not fail quotes from the other
+                    logger.warn("Market snapshot {} unavailable for quotes: {}", market, e.getMessage());
+                    return Mono.empty();
+                }))
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+            .map(snapshots -> findQuotes(tickers, snapshots::get));
+    }
+
+    /**
+     * Like {@link #getQuotes(Collection)}, but only reads snapshots already in memory, for pollers that
+     * must not wait on KRX. Tickers of a market that has not been loaded yet are left out.
+     */
+    public List<StockQuote> getLoadedQuotes(Collection<String> tickers) {
+        return findQuotes(tickers, krxApiService::getLoadedMarketSnapshot);
+    }
+
+    /**
+     * @return quote, or null if the ticker is not listed in either market
+     */
+    public StockQuote getQuote(String ticker) {
+        return ticker == null ? null : findQuote(new HashMap<>(), ticker.trim(), this::loadSnapshot);
+    }
+
+    private List<StockQuote> findQuotes(Collection<String> tickers, Function<String, MarketSnapshot> snapshotOf) {
+        Set<String> requested = requestedTickers(tickers);
+        if (requested.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, MarketSnapshot> snapshots = new HashMap<>();
+        List<StockQuote> quotes = new ArrayList<>(requested.size());
+        for (String ticker : requested) {
+            StockQuote quote = findQuote(snapshots, ticker, snapshotOf);
+            if (quote != null) {
+                quotes.add(quote);
+            }
+        }
+        logger.debug("Resolved {} of {} requested quotes", quotes.size(), requested.size());
+        return quotes;
+    }
+
+    private static Set<String> requestedTickers(Collection<String> tickers) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String ticker : tickers) {
+            if (ticker != null && !ticker.isBlank()) {
+                requested.add(ticker.trim());
+            }
+        }
+        return requested;
+    }
+
+    private StockQuote findQuote(Map<String, MarketSnapshot> snapshots, String ticker,
+                                 Function<String, MarketSnapshot> snapshotOf) {
+        String market = tickerMarketResolver.marketOf(ticker);
+        if (market == null) {
+            return null;
+        }
+        MarketSnapshot snapshot = snapshots.computeIfAbsent(market, snapshotOf);
+        return snapshot != null ? snapshot.quote(ticker) : null;
+    }
+
+    private MarketSnapshot loadSnapshot(String market) {
+        try {
+            return krxApiService.getMarketSnapshot(market);
+        } catch (Exception e) {
+            // One unavailable market should not fail quotes from the other
+            logger.warn("Market snapshot {} unavailable for quotes: {}", market, e.getMessage());
+            return null;
+        }
+    }
+}
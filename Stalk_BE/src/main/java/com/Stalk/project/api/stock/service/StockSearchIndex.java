@@ -0,0 +1,300 @@
+package com.Stalk.project.api.stock.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable autocomplete index over ticker codes and company names.
+ * Every ticker, lower-cased name (spaces removed) and the Korean initial consonants (chosung) of the
+ * name are inserted into a prefix trie and a suffix trie. Each trie node stores the ids of its
+ * most popular matches, so a query is one walk down each trie plus a copy of at most
+ * {@link #MAX_RESULTS} listings; matches are never collected or sorted per request.
+ * Prefix matches rank before substring matches, and within each group by trading volume rank.
+ */
+public final class StockSearchIndex {
+
+    /**
+     * Number of matches kept per trie node, i.e. the largest page a search can return
+     */
+    public static final int MAX_RESULTS = 20;
+
+    private static final char HANGUL_FIRST = '가';
+    private static final char HANGUL_LAST = '힣';
+    private static final int SYLLABLES_PER_INITIAL = 21 * 28;
+    private static final char[] CHOSUNG = {
+        'ㄱ', 'ㄲ', 'ㄴ', 'ㄷ', 'ㄸ', 'ㄹ', 'ㅁ', 'ㅂ', 'ㅃ', 'ㅅ',
+        'ㅆ', 'ㅇ', 'ㅈ', 'ㅉ', 'ㅊ', 'ㅋ', 'ㅌ', 'ㅍ', 'ㅎ'
+    };
+
+    private static final StockSearchIndex EMPTY = build(Collections.emptyList());
+
+    // Listings ordered by popularity; a listing's id is its position here
+    private final StockListingService.StockListing[] stocks;
+    private final Trie prefixTrie;
+    private final Trie substringTrie;
+
+    private StockSearchIndex(StockListingService.StockListing[] stocks, Trie prefixTrie, Trie substringTrie) {
+        this.stocks = stocks;
+        this.prefixTrie = prefixTrie;
+        this.substringTrie = substringTrie;
+    }
+
+    public static StockSearchIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Build the index; listings with a lower volume rank are returned first among equal matches
+     */
+    public static StockSearchIndex build(Collection<StockListingService.StockListing> listings) {
+        List<StockListingService.StockListing> ordered = new ArrayList<>(listings);
+        ordered.sort(Comparator.comparingInt(StockListingService.StockListing::getVolumeRank)
+            .thenComparing(StockListingService.StockListing::getTicker));
+
+        TrieBuilder prefixes = new TrieBuilder();
+        TrieBuilder substrings = new TrieBuilder();
+        for (int id = 0; id < ordered.size(); id++) {
+            StockListingService.StockListing stock = ordered.get(id);
+            for (String key : keysOf(stock)) {
+                prefixes.insert(key, 0, id);
+                for (int start = 0; start < key.length(); start++) {
+                    substrings.insert(key, start, id);
+                }
+            }
+        }
+
+        return new StockSearchIndex(
+            ordered.toArray(new StockListingService.StockListing[0]),
+            prefixes.freeze(),
+            substrings.freeze());
+    }
+
+    /**
+     * Top {@code limit} listings matching the query by ticker, name or name initials.
+     * Whitespace and case in the query are ignored; "ㅅㅅㅈㅈ" matches 삼성전자.
+     */
+    public List<StockListingService.StockListing> search(String query, int limit) {
+        int pageSize = Math.max(0, Math.min(limit, MAX_RESULTS));
+        if (query == null || pageSize == 0) {
+            return Collections.emptyList();
+        }
+
+        List<StockListingService.StockListing> results = new ArrayList<>(pageSize);
+        collect(prefixTrie, query, results, pageSize);
+        collect(substringTrie, query, results, pageSize);
+        return results;
+    }
+
+    public int size() {
+        return stocks.length;
+    }
+
+    /**
+     * Initial consonants of the Hangul syllables in {@code text}; other characters are kept as-is
+     */
+    static String chosung(String text) {
+        StringBuilder initials = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= HANGUL_FIRST && c <= HANGUL_LAST) {
+                initials.append(CHOSUNG[(c - HANGUL_FIRST) / SYLLABLES_PER_INITIAL]);
+            } else {
+                initials.append(c);
+            }
+        }
+        return initials.toString();
+    }
+
+    private static List<String> keysOf(StockListingService.StockListing stock) {
+        List<String> keys = new ArrayList<>(3);
+        String ticker = normalize(stock.getTicker());
+        if (!ticker.isEmpty()) {
+            keys.add(ticker);
+        }
+        String name = normalize(stock.getCompanyName());
+        if (!name.isEmpty()) {
+            keys.add(name);
+            String initials = chosung(name);
+            if (!initials.equals(name)) {
+                keys.add(initials);
+            }
+        }
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    private void collect(Trie trie, String query, List<StockListingService.StockListing> results, int pageSize) {
+        int node = trie.find(query);
+        if (node < 0) {
+            return;
+        }
+        for (int i = trie.topStart[node]; i < trie.topStart[node + 1] && results.size() < pageSize; i++) {
+            StockListingService.StockListing stock = stocks[trie.topIds[i]];
+            if (!containsInstance(results, stock)) {
+                results.add(stock);
+            }
+        }
+    }
+
+    private static boolean containsInstance(List<StockListingService.StockListing> results,
+                                            StockListingService.StockListing stock) {
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == stock) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Trie frozen into flat arrays: the edges of node n are edgeChars/edgeTargets[edgeStart[n] .. edgeStart[n+1]),
+     * sorted by character, and its best matches are topIds[topStart[n] .. topStart[n+1]), most popular first
+     */
+    private static final class Trie {
+        private final int[] edgeStart;
+        private final char[] edgeChars;
+        private final int[] edgeTargets;
+        private final int[] topStart;
+        private final int[] topIds;
+
+        private Trie(int[] edgeStart, char[] edgeChars, int[] edgeTargets, int[] topStart, int[] topIds) {
+            this.edgeStart = edgeStart;
+            this.edgeChars = edgeChars;
+            this.edgeTargets = edgeTargets;
+            this.topStart = topStart;
+            this.topIds = topIds;
+        }
+
+        /**
+         * Node reached by the normalized query, without building the normalized string
+         * @return node id, or -1 if nothing matches or the query has no searchable characters
+         */
+        private int find(String query) {
+            int node = 0;
+            boolean consumed = false;
+            for (int i = 0; i < query.length(); i++) {
+                char c = query.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    continue;
+                }
+                node = child(node, Character.toLowerCase(c));
+                if (node < 0) {
+                    return -1;
+                }
+                consumed = true;
+            }
+            return consumed ? node : -1;
+        }
+
+        private int child(int node, char c) {
+            int lo = edgeStart[node];
+            int hi = edgeStart[node + 1] - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char edge = edgeChars[mid];
+                if (edge < c) {
+                    lo = mid + 1;
+                } else if (edge > c) {
+                    hi = mid - 1;
+                } else {
+                    return edgeTargets[mid];
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class TrieBuilder {
+        private final Node root = new Node();
+        private int nodeCount = 1;
+        private int edgeCount;
+        private int topCount;
+
+        /**
+         * Insert key[start..] for listing {@code id}; ids must be inserted in popularity order
+         */
+        private void insert(String key, int start, int id) {
+            Node node = root;
+            for (int i = start; i < key.length(); i++) {
+                Node next = node.children.get(key.charAt(i));
+                if (next == null) {
+                    next = new Node();
+                    node.children.put(key.charAt(i), next);
+                    nodeCount++;
+                    edgeCount++;
+                }
+                node = next;
+                if (node.addTop(id)) {
+                    topCount++;
+                }
+            }
+        }
+
+        private Trie freeze() {
+            int[] edgeStart = new int[nodeCount + 1];
+            char[] edgeChars = new char[edgeCount];
+            int[] edgeTargets = new int[edgeCount];
+            int[] topStart = new int[nodeCount + 1];
+            int[] topIds = new int[topCount];
+
+            // Breadth-first numbering keeps each node's edges contiguous
+            List<Node> queue = new ArrayList<>(nodeCount);
+            queue.add(root);
+            int edge = 0;
+            int top = 0;
+            for (int n = 0; n < queue.size(); n++) {
+                Node node = queue.get(n);
+                edgeStart[n] = edge;
+                topStart[n] = top;
+                System.arraycopy(node.top, 0, topIds, top, node.topSize);
+                top += node.topSize;
+                for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+                    edgeChars[edge] = child.getKey();
+                    edgeTargets[edge] = queue.size();
+                    queue.add(child.getValue());
+                    edge++;
+                }
+            }
+            edgeStart[nodeCount] = edge;
+            topStart[nodeCount] = top;
+            return new Trie(edgeStart, edgeChars, edgeTargets, topStart, topIds);
+        }
+    }
+
+    private static final class Node {
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private int[] top = new int[1];
+        private int topSize;
+
+        private boolean addTop(int id) {
+            // A listing's keys are inserted one after another, so a repeat can only be the last id
+            if (topSize == MAX_RESULTS || (topSize > 0 && top[topSize - 1] == id)) {
+                return false;
+            }
+            if (topSize == top.length) {
+                top = Arrays.copyOf(top, Math.min(top.length * 2, MAX_RESULTS));
+            }
+            top[topSize++] = id;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.Stalk.project.api.stock.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances for ticker codes and company names.
+ * Every snapshot refresh parses the same ~2,700 tickers and names again; interning them here
+ * lets all snapshots share one String per symbol instead of keeping a fresh copy per refresh.
+ */
+class SymbolDictionary {
+
+    private final Map<String, String> symbols = new ConcurrentHashMap<>();
+
+    String intern(String value) {
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        String existing = symbols.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    int size() {
+        return symbols.size();
+    }
+}
@@ -0,0 +1,84 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.api.stock.dto.KisStockInfo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Technical indicators of a ticker computed on the server from the cached KIS daily series.
+ * One {@link IndicatorEngine} is kept per ticker, first loaded day and indicator settings, so a repeated
+ * request only processes today's bar again. EMA, RSI and MACD depend on where the series starts, so
+ * requests over different ranges never share an engine and a response does not depend on earlier ones.
+ */
+@Service
+public class TechnicalIndicatorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TechnicalIndicatorService.class);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Autowired
+    private KisApiService kisApiService;
+
+    private final Cache<String, IndicatorEngine> engines = Caffeine.newBuilder()
+        .maximumSize(1_000)
+        .expireAfterAccess(Duration.ofHours(1))
+        .build();
+
+    /**
+     * Indicators over the last {@code periodDays} calendar days. Extra history before the period is
+     * loaded so the first returned values are already warmed up.
+     * @return dates, closes and indicator values, or empty if no price history is available
+     */
+    public Mono<Map<String, Object>> getIndicators(String ticker, int periodDays, IndicatorEngine.Parameters parameters) {
+        // Trading days are about 2/3 of calendar days
+        int warmupDays = parameters.warmupBars() * 3 / 2 + 10;
+        LocalDate today = LocalDate.now();
+        String fromDate = today.minusDays(periodDays).format(DATE_FORMAT);
+        String engineKey = ticker + "|" + today.minusDays(periodDays + warmupDays).format(DATE_FORMAT) + "|" + parameters.key();
+
+        return kisApiService.getHistoricalPricesAsync(ticker, periodDays + warmupDays)
+            .flatMap(bars -> {
+                List<String> dates = new ArrayList<>(bars.size());
+                double[] closes = new double[bars.size()];
+                for (KisStockInfo bar : bars) {
+                    double close = parseClose(bar.getClosePrice());
+                    if (bar.getDate() != null && close > 0) {
+                        closes[dates.size()] = close;
+                        dates.add(bar.getDate());
+                    }
+                }
+                if (dates.isEmpty()) {
+                    return Mono.empty();
+                }
+
+                IndicatorEngine engine = engines.get(engineKey, key -> new IndicatorEngine(parameters));
+                int processed = engine.update(dates, Arrays.copyOf(closes, dates.size()));
+                logger.debug("Indicators for {} ({}): processed {} of {} bars", ticker, parameters.key(), processed, dates.size());
+                return Mono.just(engine.toResponse(fromDate));
+            });
+    }
+
+    private static double parseClose(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value.replace(",", "").trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.Stalk.project.api.stock.service;
+
+import java.util.Arrays;
+
+/**
+ * Immutable ticker lookup table for {@link TickerMarketResolver}.
+ * Tickers are packed into a long (one byte per ASCII character, KRX short codes are 6 characters)
+ * and stored in an open-addressing table next to a flag byte and the ISIN, so a lookup hashes
+ * the ticker in place and allocates nothing.
+ */
+final class TickerDirectory {
+
+    static final byte KOSPI = 1;
+    static final byte KOSDAQ = 2;
+    static final byte ETF = 4;
+    private static final byte MARKET_MASK = KOSPI | KOSDAQ;
+
+    private static final int MAX_TICKER_LENGTH = 8;
+
+    // 0 marks an empty slot; a packed ticker is never 0
+    private final long[] keys;
+    private final byte[] flags;
+    private final String[] isins;
+    private final int mask;
+    private final int size;
+    private final long builtAt;
+
+    private TickerDirectory(Builder builder) {
+        int capacity = Integer.highestOneBit(Math.max(builder.size, 8) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.flags = new byte[capacity];
+        this.isins = new String[capacity];
+        this.mask = capacity - 1;
+        this.builtAt = System.currentTimeMillis();
+
+        int count = 0;
+        for (int i = 0; i < builder.size; i++) {
+            int slot = probe(builder.keys[i]);
+            if (keys[slot] == 0) {
+                keys[slot] = builder.keys[i];
+                count++;
+            }
+            // A later entry for the same ticker (e.g. the ETF listing) adds its flags
+            flags[slot] |= builder.flags[i];
+            if (builder.isins[i] != null && !builder.isins[i].isEmpty()) {
+                isins[slot] = builder.isins[i];
+            }
+        }
+        this.size = count;
+    }
+
+    static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    /**
+     * @return "KOSPI" or "KOSDAQ", or null if the ticker is not listed
+     */
+    String market(String ticker) {
+        int slot = find(ticker);
+        if (slot < 0) {
+            return null;
+        }
+        return (flags[slot] & MARKET_MASK) == KOSDAQ ? "KOSDAQ" : "KOSPI";
+    }
+
+    boolean isEtf(String ticker) {
+        int slot = find(ticker);
+        return slot >= 0 && (flags[slot] & ETF) != 0;
+    }
+
+    String isin(String ticker) {
+        int slot = find(ticker);
+        return slot >= 0 ? isins[slot] : null;
+    }
+
+    boolean contains(String ticker) {
+        return find(ticker) >= 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getBuiltAt() {
+        return builtAt;
+    }
+
+    private int find(String ticker) {
+        long key = pack(ticker);
+        if (key == 0) {
+            return -1;
+        }
+        int slot = probe(key);
+        return keys[slot] == key ? slot : -1;
+    }
+
+    /**
+     * Linear probing; the table is at most half full, so the probe always ends on the key or an empty slot
+     */
+    private int probe(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return ticker packed one ASCII character per byte, or 0 if it cannot be a KRX ticker
+     */
+    static long pack(String ticker) {
+        if (ticker == null || ticker.isEmpty() || ticker.length() > MAX_TICKER_LENGTH) {
+            return 0;
+        }
+        long key = 0;
+        for (int i = 0; i < ticker.length(); i++) {
+            char c = ticker.charAt(i);
+            if (c == 0 || c > 0x7F) {
+                return 0;
+            }
+            key = (key << 8) | c;
+        }
+        return key;
+    }
+
+    static final class Builder {
+        private long[] keys;
+        private byte[] flags;
+        private String[] isins;
+        private int size;
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            this.keys = new long[capacity];
+            this.flags = new byte[capacity];
+            this.isins = new String[capacity];
+        }
+
+        /**
+         * Tickers that cannot be packed are skipped
+         */
+        Builder add(String ticker, String isin, byte flag) {
+            long key = pack(ticker);
+            if (key == 0) {
+                return this;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                flags = Arrays.copyOf(flags, size * 2);
+                isins = Arrays.copyOf(isins, size * 2);
+            }
+            keys[size] = key;
+            flags[size] = flag;
+            isins[size] = isin;
+            size++;
+            return this;
+        }
+
+        int size() {
+            return size;
+        }
+
+        TickerDirectory build() {
+            return new TickerDirectory(this);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.Stalk.project.api.stock.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Authoritative ticker to market/ISIN/ETF resolution.
+ * Built from the KOSPI and KOSDAQ full-market snapshots plus the KRX ETF listing (ETFs trade on
+ * the KOSPI market) and rebuilt every morning, so callers look up the market of a ticker instead
+ * of guessing it and probing the other market after a miss. The first build runs in the background
+ * once the application is ready; lookups never wait for a build and fall back to the snapshots
+ * already in memory until it completes.
+ */
+@Component
+public class TickerMarketResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(TickerMarketResolver.class);
+    // How long an empty directory (KRX unavailable) is used before the next build attempt
+    private static final long EMPTY_RETRY_MILLIS = 60_000L;
+    private static final TickerDirectory NOT_BUILT = TickerDirectory.builder(0).build();
+
+    @Autowired
+    private KrxApiService krxApiService;
+
+    @Autowired
+    @Qualifier("warmUpExecutor")
+    private Executor warmUpExecutor;
+
+    private volatile TickerDirectory directory;
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    /**
+     * Resolved listing of one ticker
+     */
+    public record TickerInfo(String ticker, String isin, String market, boolean etf) {
+    }
+
+    /**
+     * @return "KOSPI" or "KOSDAQ", or null if the ticker is not listed
+     */
+    public String marketOf(String ticker) {
+        TickerDirectory current = directory();
+        return current.size() > 0 ? current.market(ticker) : fallbackMarketOf(ticker);
+    }
+
+    /**
+     * Market of a listed ticker; for unknown tickers the requested market, or KOSPI if none was given
+     */
+    public String marketOf(String ticker, String requestedMarket) {
+        String market = marketOf(ticker);
+        if (market != null) {
+            return market;
+        }
+        return requestedMarket != null && !requestedMarket.isBlank() ? requestedMarket : "KOSPI";
+    }
+
+    /**
+     * @return listing details, or null if the ticker is not listed
+     */
+    public TickerInfo resolve(String ticker) {
+        TickerDirectory current = directory();
+        String market = current.market(ticker);
+        if (market == null) {
+            return null;
+        }
+        return new TickerInfo(ticker, current.isin(ticker), market, current.isEtf(ticker));
+    }
+
+    public boolean isEtf(String ticker) {
+        return directory().isEtf(ticker);
+    }
+
+    public int size() {
+        return directory().size();
+    }
+
+    /**
+     * Rebuild the directory from the latest KRX listing every morning before the session opens.
+     * A failed or empty load keeps the current directory.
+     */
+    @Scheduled(cron = "${krx.ticker-resolver.refresh-cron:0 30 7 * * *}", zone = "Asia/Seoul")
+    public void refresh() {
+        try {
+            TickerDirectory.Builder builder = TickerDirectory.builder(4000);
+            addMarket(builder, "STK", TickerDirectory.KOSPI);
+            addMarket(builder, "KSQ", TickerDirectory.KOSDAQ);
+            if (builder.size() == 0) {
+                logger.warn("KRX returned no listings, keeping the current ticker directory");
+                return;
+            }
+            addEtfs(builder);
+
+            TickerDirectory built = builder.build();
+            directory = built;
+            logger.info("Ticker directory rebuilt with {} tickers", built.size());
+        } catch (Exception e) {
+            logger.error("Failed to rebuild ticker directory: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Build the first directory in the background once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        scheduleBuild();
+    }
+
+    /**
+     * Current directory, or an empty one while it has not been built. A missing directory, or an empty
+     * one older than the retry delay, starts a background build.
+     */
+    private TickerDirectory directory() {
+        TickerDirectory current = directory;
+        if (!isUsable(current)) {
+            scheduleBuild();
+        }
+        return current != null ? current : NOT_BUILT;
+    }
+
+    private void scheduleBuild() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            warmUpExecutor.execute(() -> {
+                try {
+                    refresh();
+                    if (!isUsable(directory)) {
+                        // Remember the failure for a while instead of calling KRX again on every lookup
+                        directory = TickerDirectory.builder(0).build();
+                    }
+                } finally {
+                    building.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            building.set(false);
+            logger.warn("Could not schedule ticker directory build: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Market while the directory is empty, from the snapshots already in memory; nothing is loaded here.
+     * A ticker missing from a loaded market is guessed to be in the other one, KOSPI if neither is loaded.
+     */
+    private String fallbackMarketOf(String ticker) {
+        MarketSnapshot kospi = krxApiService.peekMarketSnapshot("STK");
+        MarketSnapshot kosdaq = krxApiService.peekMarketSnapshot("KSQ");
+        if (kospi != null && kospi.contains(ticker)) {
+            return "KOSPI";
+        }
+        if (kosdaq != null && kosdaq.contains(ticker)) {
+            return "KOSDAQ";
+        }
+        if (kospi != null && kosdaq != null) {
+            return null;
+        }
+        return kospi == null ? "KOSPI" : "KOSDAQ";
+    }
+
+    private boolean isUsable(TickerDirectory current) {
+        return current != null
+            && (current.size() > 0 || System.currentTimeMillis() - current.getBuiltAt() < EMPTY_RETRY_MILLIS);
+    }
+
+    private void addMarket(TickerDirectory.Builder builder, String marketCode, byte marketFlag) {
+        try {
+            krxApiService.getMarketSnapshot(marketCode)
+                .forEachIssue((ticker, isin, name) -> builder.add(ticker, isin, marketFlag));
+        } catch (Exception e) {
+            logger.warn("Market snapshot {} unavailable for ticker directory: {}", marketCode, e.getMessage());
+        }
+    }
+
+    private void addEtfs(TickerDirectory.Builder builder) {
+        try {
+            for (Map.Entry<String, String> etf : krxApiService.getEtfIsins().entrySet()) {
+                builder.add(etf.getKey(), etf.getValue(), TickerDirectory.ETF);
+            }
+        } catch (Exception e) {
+            logger.warn("ETF listing unavailable for ticker directory: {}", e.getMessage());
+        }
+    }
+}
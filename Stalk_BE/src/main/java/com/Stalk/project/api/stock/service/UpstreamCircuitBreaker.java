@@ -0,0 +1,128 @@
+package com.Stalk.project.api.stock.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker for one upstream endpoint.
+ * After {@code failureThreshold} consecutive failures the circuit opens and calls fail fast with
+ * {@link CircuitOpenException} instead of waiting on a slow or unavailable upstream. Once
+ * {@code openDuration} has passed a single probe call is let through (half-open); its outcome
+ * closes the circuit or opens it for another period.
+ */
+public class UpstreamCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamCircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Thrown instead of calling the upstream while the circuit is open
+     */
+    public static class CircuitOpenException extends RuntimeException {
+        public CircuitOpenException(String message) {
+            super(message);
+        }
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    // Errors that say nothing about upstream health (e.g. 4xx responses) do not count as failures
+    private final Predicate<Throwable> recordFailure;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public UpstreamCircuitBreaker(String name, int failureThreshold, Duration openDuration,
+                                  Predicate<Throwable> recordFailure) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openDuration.toMillis();
+        this.recordFailure = recordFailure;
+    }
+
+    /**
+     * Subscribe to the call if the circuit lets it through and record its outcome
+     */
+    public <T> Mono<T> guard(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                return Mono.error(new CircuitOpenException("Circuit for " + name + " is open"));
+            }
+            return Mono.defer(call)
+                .doOnSuccess(value -> onSuccess())
+                .doOnError(this::onError)
+                .doOnCancel(this::onCancel);
+        });
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                logger.info("Circuit for {} half-open, probing upstream", name);
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("Circuit for {} closed, upstream recovered", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    private synchronized void onError(Throwable e) {
+        if (!recordFailure.test(e)) {
+            // The probe did not tell whether the upstream is healthy; let the next call probe again
+            probeInFlight = false;
+            return;
+        }
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            logger.warn("Circuit for {} opened after {} consecutive failures, last: {}",
+                name, consecutiveFailures, e.getMessage());
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            probeInFlight = false;
+        }
+    }
+
+    private synchronized void onCancel() {
+        probeInFlight = false;
+    }
+}
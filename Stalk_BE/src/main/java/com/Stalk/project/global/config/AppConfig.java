@@ -3,12 +3,16 @@ package com.Stalk.project.global.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.Stalk.project.api.stock.service.KrxTradingCalendar;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @EnableCaching
 public class AppConfig {
@@ -21,24 +25,26 @@ public class AppConfig {
         return mapper;
     }
     
+    /**
+     * Caffeine caches with per-cache size limits (W-TinyLFU eviction) and TTLs that follow the
+     * KRX trading session and holiday calendar. Statistics are recorded so actuator exposes cache.gets / cache.evictions.
+     */
     @Bean
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        cacheManager.setCacheNames(java.util.Arrays.asList(
-            "kospiVolumeRanking",
-            "kospiTradeValueRanking", 
-            "kospiPriceIncreaseRanking",
-            "kospiPriceDecreaseRanking",
-            "kosdaqVolumeRanking",
-            "kosdaqTradeValueRanking",
-            "kosdaqPriceIncreaseRanking", 
-            "kosdaqPriceDecreaseRanking",
-            "individualStockInfo",
-            "etfDailyTrading",
-            "historicalPrices",
-            "realHistoricalPrices",
-            "kisHistoricalPrices"
-        ));
+    public CacheManager cacheManager(KrxTradingCalendar tradingCalendar) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Fallback for caches not registered below
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .recordStats());
+        
+        // Quotes change every tick during the session and not at all after the close
+        cacheManager.registerCustomCache("individualStockInfo", Caffeine.newBuilder()
+            .maximumSize(5_000)
+            .expireAfter(new MarketHoursCacheExpiry(Duration.ofSeconds(60), Duration.ofHours(6),
+                tradingCalendar::isTradingDay))
+            .recordStats()
+            .build());
         return cacheManager;
     }
 }
\ No newline at end of file
@@ -18,6 +18,14 @@ public class KisApiConfig {
     // Production URL - change to this if needed
     // @Value("${kis.api.base-url:https://openapivts.koreainvestment.com:29443}")
     
+    // Daily price history is fetched in windows of up to 100 records, several at a time
+    @Value("${kis.api.history-parallelism:4}")
+    private int historyParallelism;
+    
+    // KIS allows about 20 calls per second on real accounts and 2 on the mock server
+    @Value("${kis.api.requests-per-second:5}")
+    private double requestsPerSecond;
+    
     public String getAppKey() {
         return appKey;
     }
@@ -29,4 +37,12 @@ public class KisApiConfig {
     public String getBaseUrl() {
         return baseUrl;
     }
+    
+    public int getHistoryParallelism() {
+        return historyParallelism;
+    }
+    
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
 }
\ No newline at end of file
@@ -9,6 +9,25 @@ public class KrxApiConfig {
     private String key;
     private String baseUrl;
     
+    // Historical backfill against the KRX daily trading API
+    private int backfillParallelism = 4;
+    private double requestsPerSecond = 8.0;
+    private int requestBurst = 4;
+    private int backfillMaxRetries = 3;
+    
+    // How long concurrent callers wait for an in-flight upstream fetch of the same key
+    private int coalesceTimeoutSeconds = 30;
+    
+    // Background refresh of market snapshots during the trading session
+    private int snapshotRefreshSeconds = 60;
+    private int refreshLeadSeconds = 15;
+    private int hotKeyWindowMinutes = 10;
+    
+    // Fail fast instead of blocking request threads while KRX is slow or down
+    private int requestTimeoutSeconds = 10;
+    private int circuitFailureThreshold = 5;
+    private int circuitOpenSeconds = 30;
+    
     public String getKey() {
         return key;
     }
@@ -24,4 +43,92 @@ public class KrxApiConfig {
     public void setBaseUrl(String baseUrl) {
         this.baseUrl = baseUrl;
     }
+    
+    public int getBackfillParallelism() {
+        return backfillParallelism;
+    }
+    
+    public void setBackfillParallelism(int backfillParallelism) {
+        this.backfillParallelism = backfillParallelism;
+    }
+    
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+    
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+    
+    public int getRequestBurst() {
+        return requestBurst;
+    }
+    
+    public void setRequestBurst(int requestBurst) {
+        this.requestBurst = requestBurst;
+    }
+    
+    public int getBackfillMaxRetries() {
+        return backfillMaxRetries;
+    }
+    
+    public void setBackfillMaxRetries(int backfillMaxRetries) {
+        this.backfillMaxRetries = backfillMaxRetries;
+    }
+    
+    public int getCoalesceTimeoutSeconds() {
+        return coalesceTimeoutSeconds;
+    }
+    
+    public void setCoalesceTimeoutSeconds(int coalesceTimeoutSeconds) {
+        this.coalesceTimeoutSeconds = coalesceTimeoutSeconds;
+    }
+    
+    public int getSnapshotRefreshSeconds() {
+        return snapshotRefreshSeconds;
+    }
+    
+    public void setSnapshotRefreshSeconds(int snapshotRefreshSeconds) {
+        this.snapshotRefreshSeconds = snapshotRefreshSeconds;
+    }
+    
+    public int getRefreshLeadSeconds() {
+        return refreshLeadSeconds;
+    }
+    
+    public void setRefreshLeadSeconds(int refreshLeadSeconds) {
+        this.refreshLeadSeconds = refreshLeadSeconds;
+    }
+    
+    public int getHotKeyWindowMinutes() {
+        return hotKeyWindowMinutes;
+    }
+    
+    public void setHotKeyWindowMinutes(int hotKeyWindowMinutes) {
+        this.hotKeyWindowMinutes = hotKeyWindowMinutes;
+    }
+    
+    public int getRequestTimeoutSeconds() {
+        return requestTimeoutSeconds;
+    }
+    
+    public void setRequestTimeoutSeconds(int requestTimeoutSeconds) {
+        this.requestTimeoutSeconds = requestTimeoutSeconds;
+    }
+    
+    public int getCircuitFailureThreshold() {
+        return circuitFailureThreshold;
+    }
+    
+    public void setCircuitFailureThreshold(int circuitFailureThreshold) {
+        this.circuitFailureThreshold = circuitFailureThreshold;
+    }
+    
+    public int getCircuitOpenSeconds() {
+        return circuitOpenSeconds;
+    }
+    
+    public void setCircuitOpenSeconds(int circuitOpenSeconds) {
+        this.circuitOpenSeconds = circuitOpenSeconds;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.Stalk.project.global.config;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.function.Predicate;
+
+/**
+ * Caffeine expiry that follows the KRX trading session (09:00-15:30 KST on trading days).
+ * While the market is open entries live for the short session TTL; after the close, on weekends and
+ * on KRX holidays quotes no longer change, so entries live until the next session opens, capped at
+ * the closed TTL. Without a trading calendar every weekday counts as a trading day.
+ */
+public class MarketHoursCacheExpiry implements Expiry<Object, Object> {
+
+    public static final ZoneId KST = ZoneId.of("Asia/Seoul");
+    private static final LocalTime SESSION_OPEN = LocalTime.of(9, 0);
+    private static final LocalTime SESSION_CLOSE = LocalTime.of(15, 30);
+
+    private final long sessionTtlNanos;
+    private final long closedTtlNanos;
+    private final Predicate<LocalDate> tradingDay;
+
+    public MarketHoursCacheExpiry(Duration sessionTtl, Duration closedTtl) {
+        this(sessionTtl, closedTtl, MarketHoursCacheExpiry::isWeekday);
+    }
+
+    /**
+     * @param tradingDay whether KRX trades on a date, e.g. {@code KrxTradingCalendar::isTradingDay}
+     */
+    public MarketHoursCacheExpiry(Duration sessionTtl, Duration closedTtl, Predicate<LocalDate> tradingDay) {
+        this.sessionTtlNanos = sessionTtl.toNanos();
+        this.closedTtlNanos = Math.max(closedTtl.toNanos(), sessionTtlNanos);
+        this.tradingDay = tradingDay;
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return ttlNanos(ZonedDateTime.now(KST));
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return ttlNanos(ZonedDateTime.now(KST));
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        // Reads do not extend the lifetime of an entry
+        return currentDuration;
+    }
+
+    long ttlNanos(ZonedDateTime now) {
+        if (isSessionOpen(now, tradingDay)) {
+            return sessionTtlNanos;
+        }
+        long untilOpen = Duration.between(now, nextSessionOpen(now, tradingDay)).toNanos();
+        return Math.max(sessionTtlNanos, Math.min(untilOpen, closedTtlNanos));
+    }
+
+    public static boolean isSessionOpen(ZonedDateTime now) {
+        return isSessionOpen(now, MarketHoursCacheExpiry::isWeekday);
+    }
+
+    public static boolean isSessionOpen(ZonedDateTime now, Predicate<LocalDate> tradingDay) {
+        ZonedDateTime kst = now.withZoneSameInstant(KST);
+        if (!tradingDay.test(kst.toLocalDate())) {
+            return false;
+        }
+        LocalTime time = kst.toLocalTime();
+        return !time.isBefore(SESSION_OPEN) && time.isBefore(SESSION_CLOSE);
+    }
+
+    private static ZonedDateTime nextSessionOpen(ZonedDateTime now, Predicate<LocalDate> tradingDay) {
+        ZonedDateTime kst = now.withZoneSameInstant(KST);
+        ZonedDateTime open = kst.with(SESSION_OPEN).withSecond(0).withNano(0);
+        if (!open.isAfter(kst)) {
+            open = open.plusDays(1);
+        }
+        // Bounded so a calendar without trading days cannot loop forever
+        for (int i = 0; i < 31 && !tradingDay.test(open.toLocalDate()); i++) {
+            open = open.plusDays(1);
+        }
+        return open;
+    }
+
+    private static boolean isWeekday(LocalDate date) {
+        DayOfWeek day = date.getDayOfWeek();
+        return day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY;
+    }
+}
@@ -2,6 +2,7 @@ package com.Stalk.project.global.config;
 
 import com.Stalk.project.api.login.service.MyUserDetailsService;
 import com.Stalk.project.global.util.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -136,6 +137,9 @@ public class SecurityConfig {
 
          */
         .authorizeHttpRequests(authz -> authz
+            // 비동기(Mono) 응답의 ASYNC 재디스패치는 최초 요청에서 이미 인가되었으므로 허용
+            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
             // GET 요청에 대해 /uploads/** 경로를 인증 없이 허용
             // 이렇게 해야 브라우저가 이미지 파일을 가져올 수 있음
             .requestMatchers(HttpMethod.GET, "/uploads/**").permitAll()
@@ -191,6 +195,8 @@ public class SecurityConfig {
 
             // KRX
             .requestMatchers(HttpMethod.GET, "/api/krx/**").permitAll()
+            // 실시간 시세 WebSocket (공개 시세만 전달)
+            .requestMatchers(HttpMethod.GET, "/ws/quotes").permitAll()
 
             // 주식 조회
             .requestMatchers(HttpMethod.GET, "/api/products/**").permitAll()
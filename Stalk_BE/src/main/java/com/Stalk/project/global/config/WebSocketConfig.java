@@ -0,0 +1,23 @@
+package com.Stalk.project.global.config;
+
+import com.Stalk.project.api.stock.controller.QuoteStreamHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+  @Autowired
+  private QuoteStreamHandler quoteStreamHandler;
+
+  @Override
+  public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+    // Same origin policy as the REST API CORS configuration
+    registry.addHandler(quoteStreamHandler, "/ws/quotes")
+        .setAllowedOriginPatterns("*");
+  }
+}
@@ -0,0 +1,126 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.api.stock.dto.ChartDataPoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChartDownsamplerTest {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Test
+    void shortSeriesIsReturnedAsIs() {
+        List<ChartDataPoint> points = series(randomCloses(100, 1));
+        assertSame(points, ChartDownsampler.lttb(points, 100));
+        assertSame(points, ChartDownsampler.lttb(points, 500));
+        assertSame(List.<ChartDataPoint>of(), ChartDownsampler.lttb(List.of(), 3));
+    }
+
+    @Test
+    void fewerThanThreePointsIsRejected() {
+        List<ChartDataPoint> points = series(randomCloses(10, 2));
+        assertThrows(IllegalArgumentException.class, () -> ChartDownsampler.lttb(points, 2));
+    }
+
+    @Test
+    void oneOverTheLimitDropsExactlyOnePoint() {
+        for (int maxPoints = 3; maxPoints <= 200; maxPoints++) {
+            List<ChartDataPoint> points = series(randomCloses(maxPoints + 1, maxPoints));
+            List<ChartDataPoint> sampled = ChartDownsampler.lttb(points, maxPoints);
+            assertValidSample(points, sampled, maxPoints);
+        }
+    }
+
+    @Test
+    void threePointsKeepTheFarthestFromTheEndpointLine() {
+        Random random = new Random(3);
+        for (int run = 0; run < 200; run++) {
+            List<ChartDataPoint> points = series(randomCloses(4 + random.nextInt(300), run));
+            List<ChartDataPoint> sampled = ChartDownsampler.lttb(points, 3);
+            assertValidSample(points, sampled, 3);
+
+            // With one bucket the next-bucket average is the last point, so the middle point is the
+            // one farthest from the line through the first and last points
+            int last = points.size() - 1;
+            double firstClose = points.get(0).close();
+            double lastClose = points.get(last).close();
+            double largest = -1;
+            for (int i = 1; i < last; i++) {
+                largest = Math.max(largest, Math.abs(last * (points.get(i).close() - firstClose) - i * (lastClose - firstClose)));
+            }
+            int middle = points.indexOf(sampled.get(1));
+            double area = Math.abs(last * (points.get(middle).close() - firstClose) - middle * (lastClose - firstClose));
+            assertEquals(largest, area, 1e-6);
+        }
+    }
+
+    @Test
+    void randomSizesKeepOrderCountAndEndpoints() {
+        Random random = new Random(4);
+        for (int run = 0; run < 500; run++) {
+            int maxPoints = 3 + random.nextInt(400);
+            int size = maxPoints + 1 + random.nextInt(3000);
+            List<ChartDataPoint> points = series(randomCloses(size, run));
+            assertValidSample(points, ChartDownsampler.lttb(points, maxPoints), maxPoints);
+        }
+    }
+
+    @Test
+    void spikesSurviveDownsampling() {
+        double[] closes = new double[1000];
+        for (int i = 0; i < closes.length; i++) {
+            closes[i] = 10_000 + (i % 2) * 10;
+        }
+        closes[377] = 20_000;
+        closes[712] = 1_000;
+        List<ChartDataPoint> points = series(closes);
+
+        List<ChartDataPoint> sampled = ChartDownsampler.lttb(points, 50);
+        assertTrue(sampled.contains(points.get(377)));
+        assertTrue(sampled.contains(points.get(712)));
+    }
+
+    private static void assertValidSample(List<ChartDataPoint> points, List<ChartDataPoint> sampled, int maxPoints) {
+        assertEquals(maxPoints, sampled.size());
+        assertSame(points.get(0), sampled.get(0));
+        assertSame(points.get(points.size() - 1), sampled.get(sampled.size() - 1));
+        // Strictly increasing dates: original order, no point kept twice
+        for (int i = 1; i < sampled.size(); i++) {
+            assertTrue(sampled.get(i - 1).date().compareTo(sampled.get(i).date()) < 0,
+                "size " + points.size() + ", maxPoints " + maxPoints + ", position " + i);
+        }
+        for (ChartDataPoint point : sampled) {
+            assertTrue(points.contains(point));
+        }
+    }
+
+    private static double[] randomCloses(int size, long seed) {
+        Random random = new Random(seed);
+        double[] closes = new double[size];
+        double price = 30_000;
+        for (int i = 0; i < size; i++) {
+            price = Math.max(100, price + Math.round(random.nextGaussian() * 500));
+            closes[i] = price;
+        }
+        return closes;
+    }
+
+    private static List<ChartDataPoint> series(double[] closes) {
+        List<ChartDataPoint> points = new ArrayList<>(closes.length);
+        LocalDate date = LocalDate.of(2010, 1, 4);
+        for (int i = 0; i < closes.length; i++) {
+            points.add(new ChartDataPoint(date.plusDays(i).format(DATE_FORMAT), closes[i], 1_000L + i));
+        }
+        return points;
+    }
+}
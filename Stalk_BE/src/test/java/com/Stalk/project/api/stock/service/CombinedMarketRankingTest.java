@@ -0,0 +1,143 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.api.stock.dto.KrxRankingStock;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CombinedMarketRankingTest {
+
+    private final Random random = new Random(7);
+    // Rows of both markets in KRX response order, KOSPI first
+    private final List<KrxRankingStock> allRows = new ArrayList<>();
+    private final MarketSnapshot kospi = randomSnapshot("STK", "K", 400);
+    private final MarketSnapshot kosdaq = randomSnapshot("KSQ", "Q", 300);
+
+    @Test
+    void mergedOrderEqualsFullSortOfBothMarkets() {
+        CombinedMarketRanking ranking = new CombinedMarketRanking(kospi, kosdaq);
+        for (MarketSnapshot.SortKey sortKey : MarketSnapshot.SortKey.values()) {
+            List<KrxRankingStock> merged = ranking.top(sortKey, allRows.size());
+            assertEquals(tickers(fullSort(sortKey, allRows)), tickers(merged), sortKey.name());
+            for (int i = 0; i < merged.size(); i++) {
+                assertEquals(i + 1, merged.get(i).getRank());
+            }
+        }
+    }
+
+    @Test
+    void tiesRankKospiFirst() {
+        MarketSnapshot.Builder kospiBuilder = MarketSnapshot.builder("STK", "20260102", 2);
+        addRow(kospiBuilder, "K1", "KOSPI one", 100, 1.5);
+        addRow(kospiBuilder, "K2", "KOSPI two", 50, 0.0);
+        MarketSnapshot.Builder kosdaqBuilder = MarketSnapshot.builder("KSQ", "20260102", 2);
+        addRow(kosdaqBuilder, "Q1", "KOSDAQ one", 200, 1.5);
+        addRow(kosdaqBuilder, "Q2", "KOSDAQ two", 100, 0.0);
+
+        CombinedMarketRanking ranking = new CombinedMarketRanking(kospiBuilder.build(), kosdaqBuilder.build());
+        assertEquals(List.of("Q1", "K1", "Q2", "K2"), tickers(ranking.top(MarketSnapshot.SortKey.VOLUME, 10)));
+        assertEquals(List.of("K1", "Q1", "K2", "Q2"), tickers(ranking.top(MarketSnapshot.SortKey.CHANGE_RATE_DESC, 10)));
+        assertEquals(List.of("K2", "Q2", "K1", "Q1"), tickers(ranking.top(MarketSnapshot.SortKey.CHANGE_RATE_ASC, 10)));
+    }
+
+    @Test
+    void topGrowsAndShrinksAcrossCalls() {
+        CombinedMarketRanking ranking = new CombinedMarketRanking(kospi, kosdaq);
+        List<String> expected = tickers(fullSort(MarketSnapshot.SortKey.TRADE_VALUE, allRows));
+        for (int limit : new int[] {5, 50, 3, 200, 0, 120, 1}) {
+            List<KrxRankingStock> top = ranking.top(MarketSnapshot.SortKey.TRADE_VALUE, limit);
+            assertEquals(expected.subList(0, limit), tickers(top), "limit " + limit);
+        }
+    }
+
+    @Test
+    void limitLargerThanBothMarketsReturnsEveryRow() {
+        CombinedMarketRanking ranking = new CombinedMarketRanking(kospi, kosdaq);
+        assertEquals(kospi.size() + kosdaq.size(), ranking.top(MarketSnapshot.SortKey.MARKET_CAP, 10_000).size());
+        assertEquals(kospi.size() + kosdaq.size(), ranking.top(MarketSnapshot.SortKey.MARKET_CAP, Integer.MAX_VALUE).size());
+        assertTrue(ranking.top(MarketSnapshot.SortKey.MARKET_CAP, -1).isEmpty());
+    }
+
+    @Test
+    void issueFilterRanksOnlyMatchingIssues() {
+        BiPredicate<String, String> etfs = (ticker, name) -> name.startsWith("KODEX");
+        CombinedMarketRanking ranking = new CombinedMarketRanking(kospi, kosdaq, etfs);
+
+        List<KrxRankingStock> matching = new ArrayList<>();
+        for (KrxRankingStock row : allRows) {
+            if (etfs.test(row.getTicker(), row.getName())) {
+                matching.add(row);
+            }
+        }
+        assertFalse(matching.isEmpty());
+        for (MarketSnapshot.SortKey sortKey : MarketSnapshot.SortKey.values()) {
+            assertEquals(tickers(fullSort(sortKey, matching)), tickers(ranking.top(sortKey, allRows.size())), sortKey.name());
+        }
+        assertEquals(tickers(fullSort(MarketSnapshot.SortKey.VOLUME, matching)).subList(0, 10),
+            tickers(ranking.top(MarketSnapshot.SortKey.VOLUME, 10)));
+
+        assertTrue(ranking.covers(kospi, kosdaq, etfs));
+        assertFalse(ranking.covers(kospi, kosdaq, (ticker, name) -> true));
+        assertFalse(new CombinedMarketRanking(kospi, kosdaq).covers(kospi, kosdaq, etfs));
+    }
+
+    private MarketSnapshot randomSnapshot(String market, String prefix, int size) {
+        MarketSnapshot.Builder builder = MarketSnapshot.builder(market, "20260102", size);
+        for (int i = 0; i < size; i++) {
+            // Few distinct values, so the merge has to break many ties
+            String name = (random.nextInt(4) == 0 ? "KODEX " : "Stock ") + prefix + i;
+            addRow(builder, prefix + i, name, random.nextInt(20) * 1_000L, (random.nextInt(11) - 5) * 0.5);
+        }
+        return builder.build();
+    }
+
+    private void addRow(MarketSnapshot.Builder builder, String ticker, String name, long volume, double changeRate) {
+        long tradeValue = volume * (1 + random.nextInt(3));
+        long marketCap = random.nextInt(10) * 1_000_000L;
+        builder.add(ticker, name, "KR" + ticker, 10_000, 0, changeRate, volume, tradeValue, marketCap,
+            10_000, 10_000, 10_000, 1_000);
+        allRows.add(new KrxRankingStock(0, ticker, name, 10_000, 0, changeRate, volume, marketCap, tradeValue));
+    }
+
+    /**
+     * Stable sort of the rows in response order, KOSPI before KOSDAQ
+     */
+    private static List<KrxRankingStock> fullSort(MarketSnapshot.SortKey sortKey, List<KrxRankingStock> rows) {
+        Comparator<KrxRankingStock> comparator;
+        switch (sortKey) {
+            case VOLUME:
+                comparator = Comparator.comparingLong(KrxRankingStock::getVolume).reversed();
+                break;
+            case TRADE_VALUE:
+                comparator = Comparator.comparingLong(KrxRankingStock::getTradeValue).reversed();
+                break;
+            case CHANGE_RATE_DESC:
+                comparator = Comparator.comparingDouble(KrxRankingStock::getChangeRate).reversed();
+                break;
+            case CHANGE_RATE_ASC:
+                comparator = Comparator.comparingDouble(KrxRankingStock::getChangeRate);
+                break;
+            default:
+                comparator = Comparator.comparingLong(KrxRankingStock::getMarketCap).reversed();
+        }
+        List<KrxRankingStock> sorted = new ArrayList<>(rows);
+        sorted.sort(comparator);
+        return sorted;
+    }
+
+    private static List<String> tickers(List<KrxRankingStock> rows) {
+        List<String> tickers = new ArrayList<>(rows.size());
+        for (KrxRankingStock row : rows) {
+            tickers.add(row.getTicker());
+        }
+        return tickers;
+    }
+}
@@ -0,0 +1,295 @@
+package com.Stalk.project.api.stock.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IndicatorEngineTest {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String ALL = "00000000";
+    // Response values are rounded to two decimals
+    private static final double TOLERANCE = 0.0100001;
+
+    private static final IndicatorEngine.Parameters PARAMETERS =
+        IndicatorEngine.Parameters.of(List.of(5, 20), List.of(10), 14, List.of(12, 26, 9), 20, 2.0);
+
+    private final List<String> dates = new ArrayList<>();
+    private final double[] closes = randomWalk(300, 11);
+
+    IndicatorEngineTest() {
+        LocalDate date = LocalDate.of(2025, 1, 2);
+        for (int i = 0; i < closes.length; i++) {
+            dates.add(date.plusDays(i).format(DATE_FORMAT));
+        }
+    }
+
+    @Test
+    void indicatorsMatchReferenceComputation() {
+        IndicatorEngine engine = new IndicatorEngine(PARAMETERS);
+        assertEquals(closes.length, engine.update(dates, closes));
+        Map<String, Object> response = engine.toResponse(ALL);
+        Map<String, Object> indicators = indicators(response);
+
+        assertSeries(closes, response.get("close"), "close");
+        assertSeries(sma(closes, 5), indicators.get("sma5"), "sma5");
+        assertSeries(sma(closes, 20), indicators.get("sma20"), "sma20");
+        assertSeries(ema(closes, 10), indicators.get("ema10"), "ema10");
+        assertSeries(rsi(closes, 14), indicators.get("rsi14"), "rsi14");
+
+        double[] macd = subtract(ema(closes, 12), ema(closes, 26));
+        double[] signal = ema(macd, 9);
+        Map<String, Object> macdValues = nested(indicators, "macd");
+        assertSeries(macd, macdValues.get("macd"), "macd");
+        assertSeries(signal, macdValues.get("signal"), "signal");
+        assertSeries(subtract(macd, signal), macdValues.get("histogram"), "histogram");
+
+        double[][] bands = bollinger(closes, 20, 2.0);
+        Map<String, Object> bollinger = nested(indicators, "bollinger");
+        assertSeries(bands[0], bollinger.get("middle"), "middle");
+        assertSeries(bands[1], bollinger.get("upper"), "upper");
+        assertSeries(bands[2], bollinger.get("lower"), "lower");
+    }
+
+    @Test
+    void responseStartsAtFromDate() {
+        IndicatorEngine engine = new IndicatorEngine(PARAMETERS);
+        engine.update(dates, closes);
+        Map<String, Object> response = engine.toResponse(dates.get(250));
+
+        assertEquals(dates.subList(250, dates.size()), response.get("dates"));
+        assertSeries(Arrays.copyOfRange(sma(closes, 20), 250, closes.length), indicators(response).get("sma20"), "sma20");
+    }
+
+    @Test
+    void appendedBarsAreProcessedIncrementally() {
+        IndicatorEngine engine = new IndicatorEngine(PARAMETERS);
+        assertEquals(200, engine.update(dates.subList(0, 200), Arrays.copyOf(closes, 200)));
+        assertEquals(30, engine.update(dates.subList(0, 230), Arrays.copyOf(closes, 230)));
+        assertEquals(0, engine.update(dates.subList(0, 230), Arrays.copyOf(closes, 230)));
+        assertEquals(70, engine.update(dates, closes));
+
+        assertEquals(fullRecompute(dates, closes), engine.toResponse(ALL));
+    }
+
+    @Test
+    void shorterSeriesStartingLaterIsResumed() {
+        IndicatorEngine engine = new IndicatorEngine(PARAMETERS);
+        engine.update(dates.subList(0, 250), Arrays.copyOf(closes, 250));
+
+        // The requested range moved forward by a few days and one new bar was added
+        assertEquals(1, engine.update(dates.subList(5, 251), Arrays.copyOfRange(closes, 5, 251)));
+        assertEquals(fullRecompute(dates.subList(0, 251), Arrays.copyOf(closes, 251)), engine.toResponse(ALL));
+    }
+
+    @Test
+    void revisedLastBarIsRecomputedFromSavedState() {
+        IndicatorEngine engine = new IndicatorEngine(PARAMETERS);
+        engine.update(dates.subList(0, 230), Arrays.copyOf(closes, 230));
+
+        double[] revised = Arrays.copyOf(closes, 230);
+        revised[229] += 150;
+        assertEquals(1, engine.update(dates.subList(0, 230), revised));
+        assertEquals(fullRecompute(dates.subList(0, 230), revised), engine.toResponse(ALL));
+
+        // Revised again together with two new bars
+        double[] grown = Arrays.copyOf(closes, 232);
+        grown[229] -= 80;
+        assertEquals(3, engine.update(dates.subList(0, 232), grown));
+        assertEquals(fullRecompute(dates.subList(0, 232), grown), engine.toResponse(ALL));
+    }
+
+    @Test
+    void adjustedEarlierClosesTriggerFullRecompute() {
+        IndicatorEngine engine = new IndicatorEngine(PARAMETERS);
+        engine.update(dates.subList(0, 230), Arrays.copyOf(closes, 230));
+
+        // A 2:1 split adjusts every close before the split day; the last stored bar is unchanged
+        double[] adjusted = Arrays.copyOf(closes, 231);
+        for (int i = 0; i < 200; i++) {
+            adjusted[i] /= 2;
+        }
+        assertEquals(231, engine.update(dates.subList(0, 231), adjusted));
+        Map<String, Object> response = engine.toResponse(ALL);
+        assertEquals(fullRecompute(dates.subList(0, 231), adjusted), response);
+        assertSeries(adjusted, response.get("close"), "close");
+    }
+
+    @Test
+    void gapInHistoryTriggersFullRecompute() {
+        IndicatorEngine engine = new IndicatorEngine(PARAMETERS);
+        engine.update(dates.subList(0, 230), Arrays.copyOf(closes, 230));
+
+        // Starts on a date the engine has never seen
+        List<String> shifted = new ArrayList<>(dates.subList(0, 231));
+        shifted.set(0, "20241231");
+        assertEquals(231, engine.update(shifted, Arrays.copyOf(closes, 231)));
+    }
+
+    @Test
+    void zeroDisablesEveryIndicator() {
+        IndicatorEngine.Parameters none = IndicatorEngine.Parameters.of(List.of(0), List.of(0), 0, List.of(0), 0, 2.0);
+        assertEquals(List.of(), none.smaPeriods());
+        assertEquals(List.of(), none.emaPeriods());
+        assertEquals(0, none.macdSlow());
+
+        IndicatorEngine engine = new IndicatorEngine(none);
+        engine.update(dates, closes);
+        assertEquals(Map.of(), indicators(engine.toResponse(ALL)));
+
+        IndicatorEngine.Parameters smaOnly = IndicatorEngine.Parameters.of(List.of(20), List.of(), 0, List.of(), 0, 2.0);
+        engine = new IndicatorEngine(smaOnly);
+        engine.update(dates, closes);
+        assertEquals(Set.of("sma20"), indicators(engine.toResponse(ALL)).keySet());
+    }
+
+    @Test
+    void invalidPeriodsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> IndicatorEngine.Parameters.of(List.of(0, 20), List.of(), 0, List.of(), 0, 2.0));
+        assertThrows(IllegalArgumentException.class,
+            () -> IndicatorEngine.Parameters.of(List.of(), List.of(251), 0, List.of(), 0, 2.0));
+        assertThrows(IllegalArgumentException.class,
+            () -> IndicatorEngine.Parameters.of(List.of(), List.of(), 0, List.of(12, 26), 0, 2.0));
+        assertThrows(IllegalArgumentException.class,
+            () -> IndicatorEngine.Parameters.of(List.of(), List.of(), 0, List.of(26, 12, 9), 0, 2.0));
+    }
+
+    private static Map<String, Object> fullRecompute(List<String> barDates, double[] barCloses) {
+        IndicatorEngine engine = new IndicatorEngine(PARAMETERS);
+        engine.update(barDates, barCloses);
+        return engine.toResponse(ALL);
+    }
+
+    private static double[] randomWalk(int length, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[length];
+        double price = 50_000;
+        for (int i = 0; i < length; i++) {
+            price = Math.max(1_000, price + Math.round(random.nextGaussian() * 800));
+            values[i] = price;
+        }
+        return values;
+    }
+
+    private static double[] sma(double[] values, int period) {
+        double[] out = nans(values.length);
+        for (int i = period - 1; i < values.length; i++) {
+            double sum = 0;
+            for (int j = i - period + 1; j <= i; j++) {
+                sum += values[j];
+            }
+            out[i] = sum / period;
+        }
+        return out;
+    }
+
+    /**
+     * EMA seeded with the simple average of the first {@code period} defined values
+     */
+    private static double[] ema(double[] values, int period) {
+        double[] out = nans(values.length);
+        int first = 0;
+        while (first < values.length && Double.isNaN(values[first])) {
+            first++;
+        }
+        int seedEnd = first + period - 1;
+        if (seedEnd >= values.length) {
+            return out;
+        }
+        double sum = 0;
+        for (int i = first; i <= seedEnd; i++) {
+            sum += values[i];
+        }
+        double alpha = 2.0 / (period + 1);
+        out[seedEnd] = sum / period;
+        for (int i = seedEnd + 1; i < values.length; i++) {
+            out[i] = out[i - 1] + alpha * (values[i] - out[i - 1]);
+        }
+        return out;
+    }
+
+    private static double[] rsi(double[] values, int period) {
+        double[] out = nans(values.length);
+        double averageGain = 0;
+        double averageLoss = 0;
+        for (int i = 1; i <= period; i++) {
+            double change = values[i] - values[i - 1];
+            averageGain += Math.max(change, 0) / period;
+            averageLoss += Math.max(-change, 0) / period;
+        }
+        for (int i = period; i < values.length; i++) {
+            if (i > period) {
+                double change = values[i] - values[i - 1];
+                averageGain = (averageGain * (period - 1) + Math.max(change, 0)) / period;
+                averageLoss = (averageLoss * (period - 1) + Math.max(-change, 0)) / period;
+            }
+            out[i] = averageLoss == 0 ? (averageGain == 0 ? 50 : 100) : 100 - 100 / (1 + averageGain / averageLoss);
+        }
+        return out;
+    }
+
+    private static double[][] bollinger(double[] values, int period, double width) {
+        double[] middle = sma(values, period);
+        double[] upper = nans(values.length);
+        double[] lower = nans(values.length);
+        for (int i = period - 1; i < values.length; i++) {
+            double squares = 0;
+            for (int j = i - period + 1; j <= i; j++) {
+                squares += (values[j] - middle[i]) * (values[j] - middle[i]);
+            }
+            double band = width * Math.sqrt(squares / period);
+            upper[i] = middle[i] + band;
+            lower[i] = middle[i] - band;
+        }
+        return new double[][] {middle, upper, lower};
+    }
+
+    private static double[] subtract(double[] a, double[] b) {
+        double[] out = new double[a.length];
+        for (int i = 0; i < a.length; i++) {
+            out[i] = a[i] - b[i];
+        }
+        return out;
+    }
+
+    private static double[] nans(int length) {
+        double[] out = new double[length];
+        Arrays.fill(out, Double.NaN);
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> indicators(Map<String, Object> response) {
+        return (Map<String, Object>) response.get("indicators");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> nested(Map<String, Object> indicators, String name) {
+        return (Map<String, Object>) indicators.get(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assertSeries(double[] expected, Object actual, String name) {
+        List<Double> values = (List<Double>) actual;
+        assertEquals(expected.length, values.size(), name + " length");
+        for (int i = 0; i < expected.length; i++) {
+            if (Double.isNaN(expected[i])) {
+                assertNull(values.get(i), name + "[" + i + "]");
+            } else {
+                assertEquals(expected[i], values.get(i).doubleValue(), TOLERANCE, name + "[" + i + "]");
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.global.config.KisApiConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the token manager against a local stand-in for the KIS token endpoint and an in-memory Redis
+ */
+class KisAccessTokenManagerTest {
+
+    private static final String TOKEN_KEY = "kis:access_token";
+    private static final String LOCK_KEY = "kis:access_token:lock";
+    private static final long DAY_SECONDS = 86_400L;
+
+    private HttpServer tokenEndpoint;
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    // expires_in of the next responses; DAY_SECONDS once empty
+    private final Queue<Long> expiresIn = new ConcurrentLinkedQueue<>();
+    private volatile long responseDelayMillis;
+    private volatile boolean failing;
+    // Published by another node right before this node takes the lock, once
+    private volatile String publishedBeforeLock;
+
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+    private KisAccessTokenManager manager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tokenEndpoint = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        tokenEndpoint.createContext("/oauth2/tokenP", this::issueToken);
+        tokenEndpoint.setExecutor(Executors.newCachedThreadPool());
+        tokenEndpoint.start();
+
+        manager = new KisAccessTokenManager(new KisApiConfig(), inMemoryRedis(), directScheduler(),
+            "http://127.0.0.1:" + tokenEndpoint.getAddress().getPort());
+        ReflectionTestUtils.setField(manager, "refreshLeadSeconds", 1_800L);
+        ReflectionTestUtils.setField(manager, "initialWaitSeconds", 10L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdownRefreshExecutor();
+        tokenEndpoint.stop(0);
+    }
+
+    @Test
+    void concurrentCallersAtExpiryShareOneTokenRequest() throws Exception {
+        // Issued with no lifetime left, so it has expired by the time the callers arrive
+        expiresIn.add(300L);
+        assertEquals("token-1", manager.getAccessToken());
+
+        responseDelayMillis = 300;
+        int callers = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return manager.getAccessToken();
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertEquals("token-2", result.get(15, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(2, tokenRequests.get());
+    }
+
+    @Test
+    void tokenInsideRefreshLeadIsRenewedInTheBackground() {
+        // Valid for another 15 minutes, inside the 30 minute refresh lead
+        expiresIn.add(1_200L);
+        assertEquals("token-1", manager.getAccessToken());
+        assertEquals(1, tokenRequests.get());
+
+        // The caller gets the current token right away while the renewal is still waiting on KIS
+        responseDelayMillis = 500;
+        assertEquals("token-1", manager.getAccessToken());
+
+        await(() -> tokenRequests.get() == 2);
+        await(() -> "token-2".equals(manager.getAccessToken()));
+        assertEquals(2, tokenRequests.get());
+        assertTrue(redis.get(TOKEN_KEY).endsWith("|token-2"));
+    }
+
+    @Test
+    void scheduledCheckOnlyRenewsTokensInsideRefreshLead() {
+        assertEquals("token-1", manager.getAccessToken());
+        manager.refreshIfNeeded();
+        assertEquals(1, tokenRequests.get());
+
+        ReflectionTestUtils.setField(manager, "refreshLeadSeconds", 2 * DAY_SECONDS);
+        manager.refreshIfNeeded();
+        await(() -> tokenRequests.get() == 2);
+    }
+
+    @Test
+    void tokenPublishedInRedisIsAdoptedWithoutCallingKis() {
+        redis.put(TOKEN_KEY, (System.currentTimeMillis() + Duration.ofHours(2).toMillis()) + "|shared-token");
+
+        assertEquals("shared-token", manager.getAccessToken());
+        assertEquals("shared-token", manager.accessToken().block());
+        assertEquals(0, tokenRequests.get());
+    }
+
+    @Test
+    void tokenIssuedByLockHolderIsAdoptedWithoutCallingKis() throws Exception {
+        redis.put(LOCK_KEY, "other-node");
+        ExecutorService otherNode = Executors.newSingleThreadExecutor();
+        try {
+            otherNode.submit(() -> {
+                Thread.sleep(500);
+                redis.put(TOKEN_KEY, (System.currentTimeMillis() + Duration.ofHours(2).toMillis()) + "|other-node-token");
+                return null;
+            });
+
+            assertEquals("other-node-token", manager.getAccessToken());
+        } finally {
+            otherNode.shutdownNow();
+        }
+        assertEquals(0, tokenRequests.get());
+        assertEquals("other-node", redis.get(LOCK_KEY));
+    }
+
+    @Test
+    void tokenPublishedJustBeforeTakingTheLockIsAdoptedWithoutCallingKis() {
+        // This node read an expiring token; the other node then published a new one and released the lock
+        redis.put(TOKEN_KEY, (System.currentTimeMillis() + Duration.ofMinutes(10).toMillis()) + "|old-token");
+        publishedBeforeLock = (System.currentTimeMillis() + Duration.ofHours(2).toMillis()) + "|other-node-token";
+
+        assertEquals("other-node-token", manager.getAccessToken());
+        assertEquals(0, tokenRequests.get());
+        assertNull(redis.get(LOCK_KEY));
+    }
+
+    @Test
+    void failedRefreshIsNotRetriedDuringBackoff() {
+        failing = true;
+        assertNull(manager.getAccessToken());
+        assertEquals(1, tokenRequests.get());
+
+        // Both variants give up right away instead of calling KIS again
+        assertNull(manager.getAccessToken());
+        assertNull(manager.accessToken().block());
+        assertEquals(1, tokenRequests.get());
+
+        failing = false;
+        ReflectionTestUtils.setField(manager, "lastFailureAt", System.currentTimeMillis() - 31_000L);
+        assertEquals("token-2", manager.getAccessToken());
+        assertEquals(2, tokenRequests.get());
+    }
+
+    private void issueToken(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        int count = tokenRequests.incrementAndGet();
+        try {
+            Thread.sleep(responseDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int status = failing ? 500 : 200;
+        Long lifetime = failing ? null : expiresIn.poll();
+        String body = failing
+            ? "{\"error_description\":\"token issuance throttled\"}"
+            : "{\"access_token\":\"token-" + count + "\",\"token_type\":\"Bearer\",\"expires_in\":"
+                + (lifetime != null ? lifetime : DAY_SECONDS) + "}";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisTemplate<String, String> inMemoryRedis() {
+        RedisTemplate<String, String> template = mock(RedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(template.opsForValue()).thenReturn(values);
+        when(values.get(any())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(values).set(anyString(), anyString(), any(Duration.class));
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenAnswer(invocation -> {
+            String published = publishedBeforeLock;
+            if (published != null) {
+                publishedBeforeLock = null;
+                redis.put(TOKEN_KEY, published);
+            }
+            return redis.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null;
+        });
+        when(template.delete(anyString())).thenAnswer(invocation -> redis.remove(invocation.<String>getArgument(0)) != null);
+        return template;
+    }
+
+    /**
+     * Runs every call right away, without rate limiting
+     */
+    @SuppressWarnings("unchecked")
+    private static OutboundCallScheduler directScheduler() {
+        OutboundCallScheduler scheduler = mock(OutboundCallScheduler.class);
+        doAnswer(invocation -> ((Supplier<Mono<Object>>) invocation.getArgument(2)).get())
+            .when(scheduler).schedule(anyString(), any(), any());
+        return scheduler;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met within 10 seconds");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
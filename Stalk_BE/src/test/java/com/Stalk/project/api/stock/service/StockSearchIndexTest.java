@@ -0,0 +1,149 @@
+package com.Stalk.project.api.stock.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockSearchIndexTest {
+
+    private static final List<StockListingService.StockListing> LISTINGS = List.of(
+        new StockListingService.StockListing("005930", "삼성전자", "KOSPI", 1),
+        new StockListingService.StockListing("005935", "삼성전자우", "KOSPI", 8),
+        new StockListingService.StockListing("006400", "삼성SDI", "KOSPI", 5),
+        new StockListingService.StockListing("028260", "삼성물산", "KOSPI", 12),
+        new StockListingService.StockListing("000660", "SK하이닉스", "KOSPI", 2),
+        new StockListingService.StockListing("373220", "LG에너지솔루션", "KOSPI", 4),
+        new StockListingService.StockListing("035420", "NAVER", "KOSPI", 3),
+        new StockListingService.StockListing("069500", "KODEX 200", "KOSPI", 6),
+        new StockListingService.StockListing("247540", "에코프로비엠", "KOSDAQ", 7)
+    );
+
+    private final StockSearchIndex index = StockSearchIndex.build(LISTINGS);
+
+    @Test
+    void chosungQueryMatchesNameInitials() {
+        assertEquals(List.of("005930", "005935"), tickers(index.search("ㅅㅅㅈㅈ", 10)));
+        // Prefix matches of the initials first, by volume rank
+        assertEquals(List.of("005930", "006400", "005935", "028260"), tickers(index.search("ㅅㅅ", 10)));
+        // Substring of the initials
+        assertEquals(List.of("005930", "005935"), tickers(index.search("ㅈㅈ", 10)));
+    }
+
+    @Test
+    void mixedHangulAndLatinNames() {
+        assertEquals(List.of("006400"), tickers(index.search("삼성SDI", 10)));
+        assertEquals(List.of("006400"), tickers(index.search("삼성 sdi", 10)));
+        assertEquals(List.of("006400"), tickers(index.search("ㅅㅅs", 10)));
+        assertEquals(List.of("373220"), tickers(index.search("lgㅇㄴㅈ", 10)));
+        assertEquals(List.of("373220"), tickers(index.search("LG에너", 10)));
+        assertEquals(List.of("000660"), tickers(index.search("하이닉스", 10)));
+        assertEquals(List.of("069500"), tickers(index.search("kodex200", 10)));
+        assertEquals(List.of("035420"), tickers(index.search("Nav", 10)));
+    }
+
+    @Test
+    void tickerPrefixMatchesRankBeforeSubstringMatches() {
+        assertEquals(List.of("005930", "005935"), tickers(index.search("00593", 10)));
+        assertEquals(List.of("000660"), tickers(index.search("0006", 10)));
+        // Tickers starting with "00", then 069500 which only contains it, each group by volume rank
+        assertEquals(List.of("005930", "000660", "006400", "005935", "069500"), tickers(index.search("00", 10)));
+        assertEquals(List.of("005930", "000660"), tickers(index.search("00", 2)));
+    }
+
+    @Test
+    void blankAndUnknownQueriesReturnNothing() {
+        assertTrue(index.search("", 10).isEmpty());
+        assertTrue(index.search("   ", 10).isEmpty());
+        assertTrue(index.search(null, 10).isEmpty());
+        assertTrue(index.search("없는종목", 10).isEmpty());
+        assertTrue(index.search("삼성", 0).isEmpty());
+    }
+
+    @Test
+    void topResultsMatchBruteForceSearch() {
+        Random random = new Random(42);
+        String[] syllables = {"삼", "성", "전", "자", "에", "코", "프", "로", "한", "화", "A", "B", "X", " "};
+        List<StockListingService.StockListing> listings = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            StringBuilder name = new StringBuilder();
+            int length = 1 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                name.append(syllables[random.nextInt(syllables.length)]);
+            }
+            String ticker = String.format("%06d", random.nextInt(1_000_000));
+            // Few distinct ranks, so ties are broken by ticker
+            listings.add(new StockListingService.StockListing(ticker, name.toString(), "KOSPI", random.nextInt(50)));
+        }
+        StockSearchIndex largeIndex = StockSearchIndex.build(listings);
+
+        List<String> queries = new ArrayList<>(List.of("삼", "삼성", "ㅅ", "ㅅㅅ", "ㅈ", "a", "ab", "X", "0", "00", "12", "9"));
+        for (int i = 0; i < 300; i++) {
+            StockListingService.StockListing stock = listings.get(random.nextInt(listings.size()));
+            String[] keys = keysOf(stock);
+            String key = keys[random.nextInt(keys.length)];
+            if (key.isEmpty()) {
+                continue;
+            }
+            int start = random.nextInt(key.length());
+            queries.add(key.substring(start, start + 1 + random.nextInt(key.length() - start)));
+        }
+
+        for (String query : queries) {
+            for (int limit : new int[] {1, 5, StockSearchIndex.MAX_RESULTS, 50}) {
+                assertEquals(tickers(bruteForce(listings, query, limit)), tickers(largeIndex.search(query, limit)),
+                    "query '" + query + "', limit " + limit);
+            }
+        }
+    }
+
+    private static List<StockListingService.StockListing> bruteForce(List<StockListingService.StockListing> listings,
+                                                                     String query, int limit) {
+        String normalized = normalize(query);
+        List<StockListingService.StockListing> ordered = new ArrayList<>(listings);
+        ordered.sort(Comparator.comparingInt(StockListingService.StockListing::getVolumeRank)
+            .thenComparing(StockListingService.StockListing::getTicker));
+
+        List<StockListingService.StockListing> prefixMatches = new ArrayList<>();
+        List<StockListingService.StockListing> substringMatches = new ArrayList<>();
+        for (StockListingService.StockListing stock : ordered) {
+            boolean prefix = false;
+            boolean substring = false;
+            for (String key : keysOf(stock)) {
+                prefix |= key.startsWith(normalized);
+                substring |= key.contains(normalized);
+            }
+            if (prefix) {
+                prefixMatches.add(stock);
+            } else if (substring) {
+                substringMatches.add(stock);
+            }
+        }
+
+        List<StockListingService.StockListing> results = new ArrayList<>(prefixMatches);
+        results.addAll(substringMatches);
+        return results.subList(0, Math.min(results.size(), Math.min(limit, StockSearchIndex.MAX_RESULTS)));
+    }
+
+    private static String[] keysOf(StockListingService.StockListing stock) {
+        String name = normalize(stock.getCompanyName());
+        return new String[] {normalize(stock.getTicker()), name, StockSearchIndex.chosung(name)};
+    }
+
+    private static String normalize(String text) {
+        return text.replaceAll("\\s", "").toLowerCase();
+    }
+
+    private static List<String> tickers(List<StockListingService.StockListing> listings) {
+        List<String> tickers = new ArrayList<>(listings.size());
+        for (StockListingService.StockListing listing : listings) {
+            tickers.add(listing.getTicker());
+        }
+        return tickers;
+    }
+}
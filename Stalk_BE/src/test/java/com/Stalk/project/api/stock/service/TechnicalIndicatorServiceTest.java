@@ -0,0 +1,79 @@
+package com.Stalk.project.api.stock.service;
+
+import com.Stalk.project.api.stock.dto.KisStockInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TechnicalIndicatorServiceTest {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final IndicatorEngine.Parameters PARAMETERS =
+        IndicatorEngine.Parameters.of(List.of(5, 20), List.of(20), 14, List.of(12, 26, 9), 20, 2.0);
+
+    // One bar per calendar day up to today
+    private final List<KisStockInfo> history = dailyHistory(1_500, 7);
+
+    @Test
+    void responseDoesNotDependOnEarlierRequests() {
+        Map<String, Object> alone = service().getIndicators("005930", 30, PARAMETERS).block();
+
+        TechnicalIndicatorService shared = service();
+        shared.getIndicators("005930", 365, PARAMETERS).block();
+        Map<String, Object> afterLonger = shared.getIndicators("005930", 30, PARAMETERS).block();
+
+        assertEquals(alone, afterLonger);
+    }
+
+    @Test
+    void repeatedRequestReturnsTheSameValues() {
+        TechnicalIndicatorService service = service();
+        Map<String, Object> first = service.getIndicators("005930", 180, PARAMETERS).block();
+        assertEquals(first, service.getIndicators("005930", 180, PARAMETERS).block());
+    }
+
+    private TechnicalIndicatorService service() {
+        KisApiService kisApiService = mock(KisApiService.class);
+        when(kisApiService.getHistoricalPricesAsync(anyString(), anyInt())).thenAnswer(invocation -> {
+            String from = LocalDate.now().minusDays(invocation.<Integer>getArgument(1)).format(DATE_FORMAT);
+            List<KisStockInfo> bars = new ArrayList<>();
+            for (KisStockInfo bar : history) {
+                if (bar.getDate().compareTo(from) >= 0) {
+                    bars.add(bar);
+                }
+            }
+            return Mono.just(bars);
+        });
+        TechnicalIndicatorService service = new TechnicalIndicatorService();
+        ReflectionTestUtils.setField(service, "kisApiService", kisApiService);
+        return service;
+    }
+
+    private static List<KisStockInfo> dailyHistory(int days, long seed) {
+        Random random = new Random(seed);
+        LocalDate today = LocalDate.now();
+        List<KisStockInfo> bars = new ArrayList<>(days);
+        double price = 50_000;
+        for (int i = days - 1; i >= 0; i--) {
+            price = Math.max(1_000, price + Math.round(random.nextGaussian() * 800));
+            KisStockInfo bar = new KisStockInfo();
+            bar.setDate(today.minusDays(i).format(DATE_FORMAT));
+            bar.setClosePrice(String.valueOf((long) price));
+            bars.add(bar);
+        }
+        return bars;
+    }
+}